@@ -0,0 +1,505 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * <p>管理员搜索的内存索引</p>
+ *
+ * <p>在用户名、昵称、手机号码、电子邮箱中搜索关键字，如果通过SQL语句的LIKE '%关键字%'实现，将扫描整张数据表，
+ * 此类在内存中保存这些字段，并为每个字段中连续的2个、3个字符（n-gram）建立倒排索引：</p>
+ *
+ * <ul>
+ *     <li>完全相等的排在最前，其次是以关键字开头的，最后是包含关键字的，相同时按id升序排列，比较时不区分大小写</li>
+ *     <li>按以上顺序分3步查找，每一步都已按id升序排列，找到足够的数量后立即结束，即使关键字能匹配大量数据，也只需检查少量数据：
+ *     完全相等的通过字段值查找，以关键字开头的通过字段开头的n-gram查找，包含关键字的通过关键字的各个n-gram中匹配数据最少的查找，
+ *     关键字只有1个字符时，检查所有数据</li>
+ *     <li>倒排索引中的记录按id升序排列，多个事务提交的顺序可能与id的顺序不同，所以增量加入时通过二分查找插入到对应的位置
+ *     （通常是末尾）</li>
+ *     <li>启动后在后台线程中加载，此后定期全量重建，加载完成前，调用者应查询数据库</li>
+ *     <li>添加、删除管理员，修改启用状态后，在事务提交后增量修改索引，重建期间的修改将在重建完成后应用到新的索引</li>
+ *     <li>删除的数据只做标记，倒排索引中的记录在下次重建时才被清除</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class AdminSearchIndex {
+
+    /**
+     * 加载索引时查询的列
+     */
+    private static final List<String> COLUMNS = Arrays.asList("id", "username", "nickname", "phone", "email", "enable");
+    /**
+     * n-gram的最大长度
+     */
+    private static final int MAX_GRAM = 3;
+
+    @Value("${csmall.admin.search-index.enabled}")
+    private boolean enabled;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    private volatile Index index;
+    /**
+     * 重建期间发生的修改，重建完成后将应用到新的索引，为null时表示未在重建
+     */
+    private List<Consumer<Index>> pendingChanges;
+    private final Object loadLock = new Object();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public AdminSearchIndex() {
+        log.debug("创建索引对象：AdminSearchIndex");
+    }
+
+    /**
+     * 启动完成后在后台线程中加载，不延迟启动，加载失败时（例如数据库暂不可用），将在下次定期重建时再次加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("加载管理员搜索索引失败，将在下次定期重建时再次加载：{}", e.getMessage());
+            }
+        }, "admin-search-index-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 定期全量重建，以清除已删除的数据，并发现其它途径对管理员数据的修改
+     */
+    @Scheduled(fixedDelayString = "${csmall.admin.search-index.refresh-interval-in-millis}",
+            initialDelayString = "${csmall.admin.search-index.refresh-interval-in-millis}")
+    public void scheduledReload() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("重建管理员搜索索引失败，将继续使用原数据：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库全量加载索引
+     */
+    public void reload() {
+        synchronized (loadLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            Index next = new Index();
+            try {
+                // 不包含1号管理员
+                for (AdminListItemVO item : adminMapper.list(COLUMNS)) {
+                    next.add(item.getId(), item.getUsername(), item.getNickname(),
+                            item.getPhone(), item.getEmail(), item.getEnable());
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (Consumer<Index> change : pendingChanges) {
+                    change.accept(next);
+                }
+                pendingChanges = null;
+                lock.writeLock().lock();
+                try {
+                    index = next;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.debug("已加载管理员搜索索引，管理员数量：{}，n-gram数量：{}", next.size, next.postings.size());
+        }
+    }
+
+    /**
+     * 判断索引是否已经可以使用
+     *
+     * @return 如果已启用且已加载，则返回true，否则返回false
+     */
+    public boolean isReady() {
+        return enabled && index != null;
+    }
+
+    /**
+     * 在用户名、昵称、手机号码、电子邮箱中搜索关键字
+     *
+     * @param keyword 关键字，不区分大小写
+     * @param limit   最多返回的数量
+     * @return 匹配的管理员（仅包含id、用户名、昵称、手机号码、电子邮箱、启用状态），如果索引不可用，则返回null
+     */
+    public List<AdminListItemVO> search(String keyword, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Index index = this.index;
+            return index == null ? null : index.search(normalize(keyword), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 将新的管理员加入索引，如果存在事务，则在事务提交后加入
+     *
+     * @param admin 新的管理员，必须已经包含id
+     */
+    public void add(Admin admin) {
+        Long id = admin.getId();
+        String username = admin.getUsername();
+        String nickname = admin.getNickname();
+        String phone = admin.getPhone();
+        String email = admin.getEmail();
+        Integer enable = admin.getEnable();
+        afterCommit(index -> index.add(id, username, nickname, phone, email, enable));
+    }
+
+    /**
+     * 从索引中移除若干个管理员，如果存在事务，则在事务提交后移除
+     *
+     * @param ids 若干个管理员id
+     */
+    public void removeAll(Collection<Long> ids) {
+        List<Long> copy = new ArrayList<>(ids);
+        afterCommit(index -> copy.forEach(index::remove));
+    }
+
+    /**
+     * 修改索引中若干个管理员的启用状态，如果存在事务，则在事务提交后修改，索引中不存在的管理员将被忽略
+     *
+     * @param ids    若干个管理员id
+     * @param enable 启用状态
+     */
+    public void setEnableAll(Collection<Long> ids, Integer enable) {
+        List<Long> copy = new ArrayList<>(ids);
+        afterCommit(index -> copy.forEach(id -> index.setEnable(id, enable)));
+    }
+
+    /**
+     * 获取索引中管理员的数量
+     *
+     * @return 索引中管理员的数量，如果尚未加载，则返回0
+     */
+    public int size() {
+        Index index = this.index;
+        return index == null ? 0 : index.size;
+    }
+
+    private void afterCommit(Consumer<Index> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    /**
+     * 修改当前索引，如果正在重建，则重建完成后将同样修改新的索引
+     */
+    private synchronized void apply(Consumer<Index> change) {
+        if (index != null) {
+            lock.writeLock().lock();
+            try {
+                change.accept(index);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * n-gram的Key：高16位是长度，其余每16位是1个字符
+     */
+    private static long gramKey(String text, int start, int length) {
+        long key = length;
+        for (int i = start; i < start + length; i++) {
+            key = key << 16 | text.charAt(i);
+        }
+        return key;
+    }
+
+    /**
+     * 字段开头的n-gram的Key：在n-gram的Key的基础上标记最高位
+     */
+    private static long prefixKey(String text, int length) {
+        return gramKey(text, 0, length) | Long.MIN_VALUE;
+    }
+
+    /**
+     * 索引中的1个管理员
+     */
+    private static final class Doc {
+
+        private final long id;
+        private final String username;
+        private final String nickname;
+        private final String phone;
+        private final String email;
+        /**
+         * 用于匹配的、转换为小写的各字段
+         */
+        private final String[] keys;
+        private Integer enable;
+        private boolean deleted;
+
+        Doc(long id, String username, String nickname, String phone, String email, Integer enable) {
+            this.id = id;
+            this.username = username;
+            this.nickname = nickname;
+            this.phone = phone;
+            this.email = email;
+            this.enable = enable;
+            this.keys = new String[]{normalize(username), normalize(nickname), normalize(phone), normalize(email)};
+        }
+
+        /**
+         * @return 匹配程度，0=某个字段完全相等，1=某个字段以关键字开头，2=某个字段包含关键字，-1=不匹配
+         */
+        int score(String keyword) {
+            int score = -1;
+            for (String key : keys) {
+                if (key.equals(keyword)) {
+                    return 0;
+                }
+                if (key.startsWith(keyword)) {
+                    score = 1;
+                } else if (score == -1 && key.contains(keyword)) {
+                    score = 2;
+                }
+            }
+            return score;
+        }
+
+        AdminListItemVO toListItem() {
+            AdminListItemVO item = new AdminListItemVO();
+            item.setId(id);
+            item.setUsername(username);
+            item.setNickname(nickname);
+            item.setPhone(phone);
+            item.setEmail(email);
+            item.setEnable(enable);
+            return item;
+        }
+
+    }
+
+    /**
+     * 倒排索引，修改时需持有写锁，搜索时需持有读锁
+     */
+    private static final class Index {
+
+        private final List<Doc> docs = new ArrayList<>();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        /**
+         * 字段值与数据的对应关系，用于查找完全相等的
+         */
+        private final Map<String, IntList> exact = new HashMap<>();
+        /**
+         * 所有数据，按id升序排列，用于关键字只有1个字符时检查所有数据
+         */
+        private final IntList all = new IntList();
+        /**
+         * n-gram（包括字段开头的n-gram）与数据的对应关系
+         */
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private int size;
+
+        void add(Long id, String username, String nickname, String phone, String email, Integer enable) {
+            if (id == null || slotById.containsKey(id)) {
+                return;
+            }
+            Doc doc = new Doc(id, username, nickname, phone, email, enable);
+            int slot = docs.size();
+            docs.add(doc);
+            slotById.put(id, slot);
+            size++;
+            insert(all, slot);
+            // 同一个值、n-gram在各字段中可能出现多次，只记录1次
+            Set<String> values = new HashSet<>();
+            Set<Long> grams = new HashSet<>();
+            for (String key : doc.keys) {
+                if (key.isEmpty()) {
+                    continue;
+                }
+                values.add(key);
+                for (int length = 1; length <= MAX_GRAM && length <= key.length(); length++) {
+                    grams.add(prefixKey(key, length));
+                }
+                for (int length = 2; length <= MAX_GRAM; length++) {
+                    for (int i = 0; i + length <= key.length(); i++) {
+                        grams.add(gramKey(key, i, length));
+                    }
+                }
+            }
+            for (String value : values) {
+                insert(exact.computeIfAbsent(value, key -> new IntList()), slot);
+            }
+            for (Long gram : grams) {
+                insert(postings.computeIfAbsent(gram, key -> new IntList()), slot);
+            }
+        }
+
+        /**
+         * 将数据插入到列表中按id升序排列的位置，通常新数据的id最大，直接追加到末尾
+         */
+        private void insert(IntList list, int slot) {
+            long id = docs.get(slot).id;
+            int low = 0;
+            int high = list.size;
+            if (high > 0 && docs.get(list.values[high - 1]).id > id) {
+                high--;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (docs.get(list.values[mid]).id < id) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+            } else {
+                low = high;
+            }
+            list.add(low, slot);
+        }
+
+        void remove(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                docs.get(slot).deleted = true;
+                size--;
+            }
+        }
+
+        void setEnable(Long id, Integer enable) {
+            Integer slot = slotById.get(id);
+            if (slot != null) {
+                docs.get(slot).enable = enable;
+            }
+        }
+
+        List<AdminListItemVO> search(String keyword, int limit) {
+            List<AdminListItemVO> result = new ArrayList<>();
+            if (keyword.isEmpty() || limit <= 0) {
+                return result;
+            }
+            // 匹配的数据一定包含关键字的每个n-gram，取匹配数据最少的n-gram，关键字只有1个字符时是所有数据
+            int length = Math.min(keyword.length(), MAX_GRAM);
+            IntList rarest = null;
+            for (int i = 0; length > 1 && i + length <= keyword.length(); i++) {
+                IntList posting = postings.get(gramKey(keyword, i, length));
+                if (posting == null) {
+                    return result;
+                }
+                if (rarest == null || posting.size < rarest.size) {
+                    rarest = posting;
+                }
+            }
+            // 第1步：完全相等的
+            IntList equal = exact.get(keyword);
+            if (equal != null) {
+                collect(equal, keyword, 0, limit, result);
+            }
+            // 第2步：以关键字开头的，取字段开头的n-gram与以上n-gram中匹配数据较少的
+            if (rarest == null) {
+                rarest = all;
+            }
+            IntList prefix = postings.get(prefixKey(keyword, length));
+            if (prefix != null) {
+                collect(rarest.size < prefix.size ? rarest : prefix, keyword, 1, limit, result);
+            }
+            // 第3步：包含关键字的
+            collect(rarest, keyword, 2, limit, result);
+            return result;
+        }
+
+        /**
+         * 按顺序检查候选数据，将匹配程度等于score的加入结果，直至结果达到limit个
+         *
+         * @param candidates 候选数据，按id升序排列
+         * @param score      匹配程度，参见{@link Doc#score(String)}
+         */
+        private void collect(IntList candidates, String keyword, int score, int limit, List<AdminListItemVO> result) {
+            for (int i = 0; i < candidates.size && result.size() < limit; i++) {
+                Doc doc = docs.get(candidates.values[i]);
+                if (!doc.deleted && doc.score(keyword) == score) {
+                    result.add(doc.toListItem());
+                }
+            }
+        }
+
+    }
+
+    /**
+     * 基本类型int的列表，避免倒排索引中的每个记录都是Integer对象
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int index, int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (index < size) {
+                System.arraycopy(values, index, values, index + 1, size - index);
+            }
+            values[index] = value;
+            size++;
+        }
+
+    }
+
+}
@@ -0,0 +1,252 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * <p>管理员唯一字段（用户名、手机号码、电子邮箱）的内存索引</p>
+ *
+ * <p>添加管理员前需要检查这3个字段是否已经被占用，绝大多数情况下都不会被占用，
+ * 所以在内存中保存所有已存在的值，索引中不存在时，无须查询数据库：</p>
+ *
+ * <ul>
+ *     <li>首次使用时从数据库加载，此后定期全量刷新，以发现其它途径对数据的修改</li>
+ *     <li>值在规范化（去除首尾空白，用户名和电子邮箱转换为小写）后保存，与数据库不区分大小写的比较保持一致</li>
+ *     <li>添加管理员时立即加入索引（使同一时间添加相同值的请求也需要查询数据库），并在事务提交后再次加入，
+ *     避免提交前开始的全量刷新因查询不到未提交的数据而丢失此值；删除管理员时在事务提交后从索引中移除</li>
+ *     <li>索引中存在的值可能已经过时，所以索引命中时仍需查询数据库确认，索引只用于跳过查询</li>
+ *     <li>未启用或加载失败时，总是需要查询数据库</li>
+ *     <li>索引只包含当前进程的修改（以及全量刷新时数据库中已有的数据），仅适用于单实例部署，部署多个实例时应该禁用</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class AdminUniqueIndex {
+
+    @Value("${csmall.admin.unique-index.enabled}")
+    private boolean enabled;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    private volatile Index index;
+    /**
+     * 加载期间发生的修改，加载完成后将应用到新的索引，为null时表示未在加载
+     */
+    private List<Consumer<Index>> pendingChanges;
+    private final Object loadLock = new Object();
+
+    public AdminUniqueIndex() {
+        log.debug("创建索引对象：AdminUniqueIndex");
+    }
+
+    /**
+     * 判断用户名、手机号码、电子邮箱是否可能已经被占用
+     *
+     * @param username 用户名
+     * @param phone    手机号码
+     * @param email    电子邮箱
+     * @return 如果索引中存在任何一个值，或索引不可用，则返回true，否则返回false（一定未被占用）
+     */
+    public boolean mightConflict(String username, String phone, String email) {
+        Index index = getIndex();
+        if (index == null) {
+            return true;
+        }
+        return index.contains(index.usernames, normalize(username))
+                || index.contains(index.phones, trim(phone))
+                || index.contains(index.emails, normalize(email));
+    }
+
+    /**
+     * 将新管理员的唯一字段加入索引，如果存在事务，则在事务提交后再次加入
+     *
+     * @param username 用户名
+     * @param phone    手机号码
+     * @param email    电子邮箱
+     */
+    public void add(String username, String phone, String email) {
+        apply(index -> index.add(username, phone, email));
+        // 如果全量刷新在此之后、事务提交之前开始，查询结果中不包含此管理员，新的索引将丢失以上修改，所以提交后再次加入
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(index -> index.add(username, phone, email));
+                }
+            });
+        }
+    }
+
+    /**
+     * 从索引中移除管理员的唯一字段，如果存在事务，则在事务提交后移除
+     *
+     * @param username 用户名
+     * @param phone    手机号码
+     * @param email    电子邮箱
+     */
+    public void remove(String username, String phone, String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(index -> index.remove(username, phone, email));
+                }
+            });
+        } else {
+            apply(index -> index.remove(username, phone, email));
+        }
+    }
+
+    /**
+     * 定期全量刷新，尚未加载时不刷新
+     */
+    @Scheduled(fixedDelayString = "${csmall.admin.unique-index.refresh-interval-in-millis}",
+            initialDelayString = "${csmall.admin.unique-index.refresh-interval-in-millis}")
+    public void scheduledReload() {
+        if (index == null) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("刷新管理员唯一字段的索引失败，将继续使用原数据：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库全量加载索引
+     */
+    public void reload() {
+        synchronized (loadLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            Index next = new Index();
+            try {
+                List<AdminUniqueFieldsVO> list = adminMapper.listUniqueFields();
+                for (AdminUniqueFieldsVO item : list) {
+                    next.add(item.getUsername(), item.getPhone(), item.getEmail());
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                for (Consumer<Index> change : pendingChanges) {
+                    change.accept(next);
+                }
+                pendingChanges = null;
+                index = next;
+            }
+            log.debug("已加载管理员唯一字段的索引，用户名数量：{}", next.usernames.size());
+        }
+    }
+
+    /**
+     * 获取索引中用户名的数量
+     *
+     * @return 索引中用户名的数量，如果尚未加载，则返回0
+     */
+    public int size() {
+        Index index = this.index;
+        return index == null ? 0 : index.usernames.size();
+    }
+
+    private Index getIndex() {
+        if (!enabled) {
+            return null;
+        }
+        Index index = this.index;
+        if (index == null) {
+            try {
+                synchronized (loadLock) {
+                    if (this.index == null) {
+                        reload();
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("加载管理员唯一字段的索引失败，将查询数据库：{}", e.getMessage());
+                return null;
+            }
+            index = this.index;
+        }
+        return index;
+    }
+
+    /**
+     * 修改当前索引，如果正在加载，则加载完成后将同样修改新的索引
+     */
+    private synchronized void apply(Consumer<Index> change) {
+        if (index != null) {
+            change.accept(index);
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Index {
+
+        private final Set<String> usernames = ConcurrentHashMap.newKeySet();
+        private final Set<String> phones = ConcurrentHashMap.newKeySet();
+        private final Set<String> emails = ConcurrentHashMap.newKeySet();
+
+        boolean contains(Set<String> values, String value) {
+            return value != null && values.contains(value);
+        }
+
+        void add(String username, String phone, String email) {
+            add(usernames, normalize(username));
+            add(phones, trim(phone));
+            add(emails, normalize(email));
+        }
+
+        void remove(String username, String phone, String email) {
+            remove(usernames, normalize(username));
+            remove(phones, trim(phone));
+            remove(emails, normalize(email));
+        }
+
+        private static void add(Set<String> values, String value) {
+            if (value != null && !value.isEmpty()) {
+                values.add(value);
+            }
+        }
+
+        private static void remove(Set<String> values, String value) {
+            if (value != null) {
+                values.remove(value);
+            }
+        }
+
+    }
+
+}
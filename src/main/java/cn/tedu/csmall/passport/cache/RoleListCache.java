@@ -0,0 +1,212 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
+import cn.tedu.csmall.passport.web.JsonResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>角色列表的缓存</p>
+ *
+ * <p>角色数据极少修改，但每次打开管理页面都会查询角色列表，此类在内存中保存角色列表的快照，
+ * 以及响应结果（JsonResult）序列化后的字节（原始的和gzip压缩的）及其ETag，控制器可以直接响应这些字节，
+ * 既不查询数据库，也不序列化：</p>
+ *
+ * <ul>
+ *     <li>首次使用时从数据库加载，快照中不包含1号角色，按自定义排序序号降序、id升序排列</li>
+ *     <li>快照记录了加载时角色数据表的版本（参见{@link TableVersions}），ETag根据此版本生成，通过MyBatis修改角色数据后，版本发生变化，下次使用时将重新加载</li>
+ *     <li>也可以调用{@link #invalidate()}使快照立即失效，用于未经过MyBatis的修改</li>
+ *     <li>定期全量刷新，以发现其它途径对角色数据的修改，数据有变化时更新角色数据表的版本，使客户端缓存的ETag失效</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class RoleListCache {
+
+    /**
+     * 角色数据表
+     */
+    public static final String TABLE = "ams_role";
+
+    @Autowired
+    private RoleMapper roleMapper;
+    @Autowired
+    private TableVersions tableVersions;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile Snapshot snapshot;
+
+    public RoleListCache() {
+        log.debug("创建缓存对象：RoleListCache");
+    }
+
+    /**
+     * 获取角色列表的快照，快照不存在或已过期时从数据库加载
+     *
+     * @return 角色列表的快照
+     */
+    public Snapshot get() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null || snapshot.version != tableVersions.getVersion(TABLE)) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null || snapshot.version != tableVersions.getVersion(TABLE)) {
+                    snapshot = load();
+                    this.snapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 使快照失效，下次使用时将重新加载
+     */
+    public void invalidate() {
+        snapshot = null;
+        log.debug("角色列表的缓存已失效");
+    }
+
+    /**
+     * 定期全量刷新，尚未加载时不刷新
+     */
+    @Scheduled(fixedDelayString = "${csmall.role.cache.refresh-interval-in-millis}",
+            initialDelayString = "${csmall.role.cache.refresh-interval-in-millis}")
+    public void scheduledReload() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            Snapshot next = load();
+            synchronized (this) {
+                if (!Arrays.equals(current.json, next.json)) {
+                    log.debug("刷新角色列表的缓存时发现数据已变化，将更新角色数据表的版本");
+                    tableVersions.changed(TABLE);
+                    next = withVersion(next, tableVersions.getVersion(TABLE));
+                }
+                // 刷新期间可能已经因为修改而重新加载，此时不覆盖
+                if (snapshot == current) {
+                    snapshot = next;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("刷新角色列表的缓存失败，将继续使用原数据：{}", e.getMessage());
+        }
+    }
+
+    private Snapshot load() {
+        // 先获取版本，再查询，即使查询期间数据被修改，版本也会变化，下次使用时将重新加载
+        long version = tableVersions.getVersion(TABLE);
+        List<RoleListItemVO> list = new ArrayList<>(roleMapper.list());
+        // 不包含1号角色
+        list.removeIf(role -> role.getId() == 1);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(JsonResult.ok(list));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        Snapshot snapshot = withVersion(new Snapshot(version, Collections.unmodifiableList(list), json, gzip(json),
+                null, null), version);
+        log.debug("已加载角色列表的缓存，角色数量：{}，响应结果：{}字节，gzip：{}字节",
+                list.size(), snapshot.json.length, snapshot.gzipJson.length);
+        return snapshot;
+    }
+
+    /**
+     * 使用新的版本号及对应的ETag创建快照，gzip压缩后的结果是不同的表示形式，使用不同的ETag
+     */
+    private Snapshot withVersion(Snapshot snapshot, long version) {
+        return new Snapshot(version, snapshot.list, snapshot.json, snapshot.gzipJson,
+                tableVersions.getETag(null, version), tableVersions.getETag("gzip", version));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 角色列表的快照，创建后不再修改
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final List<RoleListItemVO> list;
+        private final byte[] json;
+        private final byte[] gzipJson;
+        private final String etag;
+        private final String gzipETag;
+
+        private Snapshot(long version, List<RoleListItemVO> list, byte[] json, byte[] gzipJson,
+                         String etag, String gzipETag) {
+            this.version = version;
+            this.list = list;
+            this.json = json;
+            this.gzipJson = gzipJson;
+            this.etag = etag;
+            this.gzipETag = gzipETag;
+        }
+
+        /**
+         * @return 不可修改的角色列表，列表中的元素也不应被修改
+         */
+        public List<RoleListItemVO> getList() {
+            return list;
+        }
+
+        /**
+         * @return 响应结果序列化后的字节，调用者不应修改
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return 响应结果序列化并gzip压缩后的字节，调用者不应修改
+         */
+        public byte[] getGzipJson() {
+            return gzipJson;
+        }
+
+        /**
+         * @return 响应结果的强ETag
+         */
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return gzip压缩后的响应结果的强ETag，与未压缩的不同
+         */
+        public String getGzipETag() {
+            return gzipETag;
+        }
+
+    }
+
+}
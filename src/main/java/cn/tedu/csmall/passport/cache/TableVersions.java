@@ -0,0 +1,131 @@
+package cn.tedu.csmall.passport.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>数据表的版本</p>
+ *
+ * <p>每张数据表在内存中有1个版本号，执行INSERT、UPDATE、DELETE后（如果在事务中，则在事务结束后）更新，
+ * 查询类的请求可以据此生成ETag，客户端再次请求时，如果数据表没有变化，则直接响应304，
+ * 无须查询数据库，也无须序列化响应结果</p>
+ *
+ * <p>不使用Last-Modified：HTTP日期只精确到秒，同一秒内的修改无法区分，且无法区分同一数据的不同表示形式</p>
+ *
+ * <p>注意：只能发现经过当前进程的MyBatis执行的修改，版本号中包含进程的启动时间，以保证重启后不会与此前的ETag相同</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class TableVersions {
+
+    /**
+     * 条件请求的响应的Cache-Control：响应中包含当事人可以访问的数据，只允许客户端缓存，且每次使用前必须重新验证
+     */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    /**
+     * 进程的启动时间，作为ETag的一部分
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public TableVersions() {
+        log.debug("创建数据表版本对象：TableVersions");
+    }
+
+    /**
+     * 记录数据表发生了修改，如果当前存在事务，则在事务结束后（无论提交还是回滚）才更新版本，
+     * 避免在事务提交前有请求以新的版本缓存了旧的数据
+     *
+     * @param table 数据表的名称
+     */
+    public void changed(String table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    increment(table);
+                }
+            });
+        } else {
+            increment(table);
+        }
+    }
+
+    /**
+     * 获取数据表的版本号
+     *
+     * @param table 数据表的名称
+     * @return 数据表的版本号，启动后没有修改过的数据表的版本号为0
+     */
+    public long getVersion(String table) {
+        Long version = versions.get(table);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * 根据若干张数据表的版本生成强ETag
+     *
+     * @param variant 同一数据的不同表示形式，例如查询参数，可以为null
+     * @param tables  响应结果所依赖的若干张数据表的名称
+     * @return 强ETag
+     */
+    public String getETag(String variant, String... tables) {
+        long[] versions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            versions[i] = getVersion(tables[i]);
+        }
+        return getETag(variant, versions);
+    }
+
+    /**
+     * 根据已获取的若干个版本号生成强ETag，用于缓存了数据及其版本号的场景，保证ETag与数据对应
+     *
+     * @param variant  同一数据的不同表示形式，可以为null
+     * @param versions 通过{@link #getVersion(String)}获取的版本号
+     * @return 强ETag
+     */
+    public String getETag(String variant, long... versions) {
+        StringBuilder etag = new StringBuilder("\"").append(epoch);
+        for (long version : versions) {
+            etag.append('.').append(Long.toString(version, 36));
+        }
+        if (variant != null) {
+            etag.append('-').append(Integer.toHexString(variant.hashCode()));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * 检查请求中的If-None-Match，并在响应中添加ETag、Cache-Control
+     *
+     * @param request 当前请求
+     * @param variant 同一数据的不同表示形式，例如查询参数，可以为null
+     * @param tables  响应结果所依赖的若干张数据表的名称
+     * @return 如果客户端缓存的数据仍然有效，则返回true，此时响应状态码已被设置为304，控制器应直接返回null，否则返回false
+     */
+    public boolean checkNotModified(ServletWebRequest request, String variant, String... tables) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(getETag(variant, tables));
+    }
+
+    private void increment(String table) {
+        long version = versions.merge(table, 1L, Long::sum);
+        log.trace("数据表【{}】的版本已更新：{}", table, version);
+    }
+
+}
@@ -1,6 +1,10 @@
 package cn.tedu.csmall.passport.config;
 
+import cn.tedu.csmall.passport.cache.TableVersions;
 import cn.tedu.csmall.passport.mybatis.InsertUpdateTimeInterceptor;
+import cn.tedu.csmall.passport.mybatis.SqlStats;
+import cn.tedu.csmall.passport.mybatis.SqlStatsInterceptor;
+import cn.tedu.csmall.passport.mybatis.TableVersionInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.annotation.MapperScan;
@@ -27,12 +31,22 @@ public class MybatisConfiguration {
 
     @Autowired
     private List<SqlSessionFactory> sqlSessionFactoryList;
+    @Autowired
+    private TableVersions tableVersions;
+    @Autowired
+    private SqlStats sqlStats;
 
     @PostConstruct // 在方法上添加@PostConstruct注解，表示此方法是Spring Bean的生命周期方法的初始化方法，会在创建对象之后自动执行
     public void addInterceptor() {
-        InsertUpdateTimeInterceptor interceptor = new InsertUpdateTimeInterceptor();
+        TableVersionInterceptor tableVersionInterceptor = new TableVersionInterceptor(tableVersions);
+        SqlStatsInterceptor sqlStatsInterceptor = new SqlStatsInterceptor(sqlStats);
         for (SqlSessionFactory sqlSessionFactory : sqlSessionFactoryList) {
+            // 时间参数的映射与MyBatis配置相关，所以每个SqlSessionFactory使用各自的拦截器
+            InsertUpdateTimeInterceptor interceptor = new InsertUpdateTimeInterceptor(sqlSessionFactory.getConfiguration());
             sqlSessionFactory.getConfiguration().addInterceptor(interceptor);
+            sqlSessionFactory.getConfiguration().addInterceptor(tableVersionInterceptor);
+            // 最后添加的拦截器在最外层，统计的耗时包括其它拦截器的处理
+            sqlSessionFactory.getConfiguration().addInterceptor(sqlStatsInterceptor);
         }
     }
 
@@ -0,0 +1,22 @@
+package cn.tedu.csmall.passport.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 计划任务配置类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Configuration
+@EnableScheduling
+public class ScheduleConfiguration {
+
+    public ScheduleConfiguration() {
+        log.debug("创建配置类对象：ScheduleConfiguration");
+    }
+
+}
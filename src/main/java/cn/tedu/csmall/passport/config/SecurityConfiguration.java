@@ -1,14 +1,15 @@
 package cn.tedu.csmall.passport.config;
 
 import cn.tedu.csmall.passport.filter.JwtAuthorizationFilter;
+import cn.tedu.csmall.passport.security.AdaptiveBCryptPasswordEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -24,11 +25,26 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Autowired
     private JwtAuthorizationFilter jwtAuthorizationFilter;
+    @Value("${csmall.security.bcrypt.strength}")
+    private int bcryptStrength;
+    @Value("${csmall.security.bcrypt.calibrate}")
+    private boolean bcryptCalibrate;
+    @Value("${csmall.security.bcrypt.latency-budget-in-millis}")
+    private long bcryptLatencyBudgetInMillis;
+    @Value("${csmall.security.bcrypt.min-strength}")
+    private int bcryptMinStrength;
+    @Value("${csmall.security.bcrypt.max-strength}")
+    private int bcryptMaxStrength;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
         // return NoOpPasswordEncoder.getInstance(); // NoOpPasswordEncoder是“不加密”的密码编码器
-        return new BCryptPasswordEncoder();
+        // 启用校准时，根据耗时预算在当前服务器上校准，配置的强度的耗时仍在预算内时保持不变
+        int strength = bcryptCalibrate
+                ? AdaptiveBCryptPasswordEncoder.calibrate(
+                bcryptLatencyBudgetInMillis, bcryptMinStrength, bcryptMaxStrength, bcryptStrength)
+                : bcryptStrength;
+        return new AdaptiveBCryptPasswordEncoder(strength);
     }
 
     @Bean
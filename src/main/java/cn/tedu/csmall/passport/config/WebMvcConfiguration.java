@@ -1,8 +1,11 @@
 package cn.tedu.csmall.passport.config;
 
+import cn.tedu.csmall.passport.security.PermissionInterceptor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
@@ -15,6 +18,9 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebMvcConfiguration implements WebMvcConfigurer {
 
+    @Autowired
+    private PermissionInterceptor permissionInterceptor;
+
     public WebMvcConfiguration() {
         log.debug("创建配置类对象：WebMvcConfiguration");
     }
@@ -29,4 +35,10 @@ public class WebMvcConfiguration implements WebMvcConfigurer {
                 .maxAge(3600);
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 检查控制器方法上的@RequirePermission
+        registry.addInterceptor(permissionInterceptor);
+    }
+
 }
@@ -1,23 +1,49 @@
 package cn.tedu.csmall.passport.controller;
 
+import cn.tedu.csmall.passport.cache.TableVersions;
+import cn.tedu.csmall.passport.ex.ServiceException;
 import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
 import cn.tedu.csmall.passport.pojo.dto.AdminLoginDTO;
+import cn.tedu.csmall.passport.pojo.vo.AdminDeleteBatchResultVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminStandardVO;
+import cn.tedu.csmall.passport.pojo.vo.CursorPageVO;
 import cn.tedu.csmall.passport.security.LoginPrincipal;
+import cn.tedu.csmall.passport.security.RequirePermission;
+import cn.tedu.csmall.passport.service.IAdminImportService;
 import cn.tedu.csmall.passport.service.IAdminService;
 import cn.tedu.csmall.passport.web.JsonResult;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import com.alibaba.fastjson.JSON;
 import com.github.xiaoymin.knife4j.annotations.ApiOperationSupport;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 处理管理员相关请求的控制器
@@ -31,8 +57,23 @@ import java.util.List;
 @Api(tags = "1. 管理员管理模块")
 public class AdminController {
 
+    /**
+     * 导出文件名中时间的格式
+     */
+    private static final DateTimeFormatter EXPORT_FILENAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    /**
+     * 查询管理员数据的响应结果所依赖的数据表
+     */
+    private static final String TABLE_ADMIN = "ams_admin";
+
     @Autowired
     private IAdminService adminService;
+    @Autowired
+    private IAdminImportService adminImportService;
+    @Autowired
+    private TableVersions tableVersions;
+    @Value("${csmall.admin.etag.enabled}")
+    private boolean etagEnabled;
 
     public AdminController() {
         log.debug("创建控制器对象：AdminController");
@@ -42,16 +83,16 @@ public class AdminController {
     @ApiOperation("管理员登录")
     @ApiOperationSupport(order = 50)
     @PostMapping("/login")
-    public JsonResult login(AdminLoginDTO adminLoginDTO) {
+    public CompletableFuture<JsonResult> login(AdminLoginDTO adminLoginDTO,
+                                               @ApiIgnore HttpServletRequest request) {
         log.debug("开始处理【管理员登录】的请求，参数：{}", adminLoginDTO);
-        String jwt = adminService.login(adminLoginDTO);
-        return JsonResult.ok(jwt);
+        return adminService.loginAsync(adminLoginDTO, request.getRemoteAddr()).thenApply(JsonResult::ok);
     }
 
     // http://localhost:9081/admins/add-new
     @ApiOperation("添加管理员")
     @ApiOperationSupport(order = 100)
-    @PreAuthorize("hasAuthority('/ams/admin/add-new')")
+    @RequirePermission("/ams/admin/add-new")
     @PostMapping("/add-new")
     public JsonResult addNew(AdminAddNewDTO adminAddNewDTO) {
         log.debug("开始处理【添加管理员】的请求，参数：{}", adminAddNewDTO);
@@ -59,11 +100,67 @@ public class AdminController {
         return JsonResult.ok();
     }
 
+    // http://localhost:9081/admins/import
+    @ApiOperation(value = "批量导入管理员",
+            notes = "请求体为CSV（Content-Type: text/csv）或JSON数组（Content-Type: application/json），"
+                    + "响应为NDJSON，每行是1行数据的导入结果，最后1行是汇总结果")
+    @ApiOperationSupport(order = 110)
+    @RequirePermission("/ams/admin/add-new")
+    @PostMapping("/import")
+    public void importAdmins(@ApiIgnore HttpServletRequest request,
+                             @ApiIgnore HttpServletResponse response) throws IOException {
+        log.debug("开始处理【批量导入管理员】的请求，Content-Type：{}", request.getContentType());
+        String contentType = request.getContentType() == null
+                ? "" : request.getContentType().toLowerCase(Locale.ROOT);
+        String format;
+        if (contentType.contains("csv")) {
+            format = IAdminImportService.FORMAT_CSV;
+        } else if (contentType.contains("json")) {
+            format = IAdminImportService.FORMAT_JSON;
+        } else {
+            String message = "批量导入管理员失败，仅支持CSV或JSON格式的数据！";
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+        Charset charset;
+        try {
+            charset = request.getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        } catch (IllegalArgumentException e) {
+            String message = "批量导入管理员失败，不支持的字符编码：" + request.getCharacterEncoding();
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+
+        // 开始写入响应后，异常将无法交由全局异常处理器处理，所以导入失败时也在最后1行写入结果
+        response.setContentType("application/x-ndjson;charset=UTF-8");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        Object lastLine;
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            lastLine = adminImportService.importAdmins(reader, format, result -> {
+                try {
+                    writer.write(JSON.toJSONString(result));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("批量导入管理员失败：{}", e.getMessage());
+            lastLine = e instanceof ServiceException
+                    ? JsonResult.fail((ServiceException) e)
+                    : JsonResult.fail(ServiceCode.ERR_UNKNOWN, "批量导入管理员失败，服务器忙，请稍后再尝试！");
+        }
+        writer.write(JSON.toJSONString(lastLine));
+        writer.write('\n');
+        writer.flush();
+    }
+
     // http://localhost:9081/admins/9527/delete
     @ApiOperation("根据id删除删除管理员")
     @ApiOperationSupport(order = 200)
     @ApiImplicitParam(name = "id", value = "管理员ID", required = true, dataType = "long")
-    @PreAuthorize("hasAuthority('/ams/admin/delete')")
+    @RequirePermission("/ams/admin/delete")
     @PostMapping("/{id:[0-9]+}/delete")
     public JsonResult delete(@PathVariable Long id,
                              @ApiIgnore @AuthenticationPrincipal LoginPrincipal loginPrincipal) {
@@ -75,11 +172,23 @@ public class AdminController {
         return JsonResult.ok();
     }
 
+    // http://localhost:9081/admins/delete-batch
+    @ApiOperation("批量删除管理员")
+    @ApiOperationSupport(order = 210)
+    @ApiImplicitParam(name = "ids", value = "若干个管理员ID", required = true, dataType = "long", allowMultiple = true)
+    @RequirePermission("/ams/admin/delete")
+    @PostMapping("/delete-batch")
+    public JsonResult deleteBatch(Long[] ids) {
+        log.debug("开始处理【批量删除管理员】的请求，参数：{}", Arrays.toString(ids));
+        AdminDeleteBatchResultVO result = adminService.deleteBatch(ids);
+        return JsonResult.ok(result);
+    }
+
     // http://localhost:9081/admins/9527/enable
     @ApiOperation("启用管理员")
     @ApiOperationSupport(order = 310)
     @ApiImplicitParam(name = "id", value = "管理员ID", required = true, dataType = "long")
-    @PreAuthorize("hasAuthority('/ams/admin/update')")
+    @RequirePermission("/ams/admin/update")
     @PostMapping("/{id:[0-9]+}/enable")
     public JsonResult setEnable(@PathVariable Long id) {
         log.debug("开始处理【启用管理员】的请求，参数：{}", id);
@@ -91,7 +200,7 @@ public class AdminController {
     @ApiOperation("禁用管理员")
     @ApiOperationSupport(order = 311)
     @ApiImplicitParam(name = "id", value = "管理员ID", required = true, dataType = "long")
-    @PreAuthorize("hasAuthority('/ams/admin/update')")
+    @RequirePermission("/ams/admin/update")
     @PostMapping("/{id:[0-9]+}/disable")
     public JsonResult setDisable(@PathVariable Long id) {
         log.debug("开始处理【禁用管理员】的请求，参数：{}", id);
@@ -99,15 +208,125 @@ public class AdminController {
         return JsonResult.ok();
     }
 
-    // http://localhost:9081/admins
-    @ApiOperation("查询管理员列表")
+    // http://localhost:9081/admins/enable-batch
+    @ApiOperation("批量启用管理员")
+    @ApiOperationSupport(order = 312)
+    @ApiImplicitParam(name = "ids", value = "若干个管理员ID", required = true, dataType = "long", allowMultiple = true)
+    @RequirePermission("/ams/admin/update")
+    @PostMapping("/enable-batch")
+    public JsonResult setEnableBatch(Long[] ids) {
+        log.debug("开始处理【批量启用管理员】的请求，参数：{}", Arrays.toString(ids));
+        int rows = adminService.setEnableBatch(ids);
+        return JsonResult.ok(rows);
+    }
+
+    // http://localhost:9081/admins/disable-batch
+    @ApiOperation("批量禁用管理员")
+    @ApiOperationSupport(order = 313)
+    @ApiImplicitParam(name = "ids", value = "若干个管理员ID", required = true, dataType = "long", allowMultiple = true)
+    @RequirePermission("/ams/admin/update")
+    @PostMapping("/disable-batch")
+    public JsonResult setDisableBatch(Long[] ids) {
+        log.debug("开始处理【批量禁用管理员】的请求，参数：{}", Arrays.toString(ids));
+        int rows = adminService.setDisableBatch(ids);
+        return JsonResult.ok(rows);
+    }
+
+    // http://localhost:9081/admins/2?fields=username,nickname
+    @ApiOperation(value = "根据id查询管理员详情", notes = "可以通过fields指定需要查询的属性，未指定时查询所有属性")
+    @ApiOperationSupport(order = 410)
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "id", value = "管理员ID", required = true, dataType = "long"),
+            @ApiImplicitParam(name = "fields", value = "需要查询的属性，以逗号分隔", dataType = "string")
+    })
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/{id:[0-9]+}")
+    public JsonResult getStandardById(@PathVariable Long id, String fields,
+                                      @ApiIgnore ServletWebRequest webRequest) {
+        log.debug("开始处理【根据id查询管理员详情】的请求，参数：{}，字段：{}", id, fields);
+        if (etagEnabled && tableVersions.checkNotModified(webRequest, id + "&" + fields, TABLE_ADMIN)) {
+            return null;
+        }
+        AdminStandardVO admin = adminService.getStandardById(id, fields);
+        return JsonResult.ok(admin);
+    }
+
+    // http://localhost:9081/admins?fields=username,nickname,enable
+    @ApiOperation(value = "查询管理员列表", notes = "可以通过fields指定需要查询的属性，未指定时查询所有属性")
     @ApiOperationSupport(order = 420)
-    @PreAuthorize("hasAuthority('/ams/admin/read')")
+    @ApiImplicitParam(name = "fields", value = "需要查询的属性，以逗号分隔", dataType = "string")
+    @RequirePermission("/ams/admin/read")
     @GetMapping("")
-    public JsonResult list() {
-        log.debug("开始处理【查询管理员列表】的请求，参数：无");
-        List<AdminListItemVO> list = adminService.list();
+    public JsonResult list(String fields, @ApiIgnore ServletWebRequest webRequest) {
+        log.debug("开始处理【查询管理员列表】的请求，字段：{}", fields);
+        // 管理员数据没有变化时直接响应304，不查询数据库
+        if (etagEnabled && tableVersions.checkNotModified(webRequest, fields, TABLE_ADMIN)) {
+            return null;
+        }
+        List<AdminListItemVO> list = adminService.list(fields);
         return JsonResult.ok(list);
     }
 
+    // http://localhost:9081/admins/search?keyword=wang&limit=10
+    @ApiOperation(value = "搜索管理员", notes = "在用户名、昵称、手机号码、电子邮箱中搜索关键字，不区分大小写，完全相等的在前，其次是以关键字开头的")
+    @ApiOperationSupport(order = 422)
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "keyword", value = "关键字", required = true, dataType = "string"),
+            @ApiImplicitParam(name = "limit", value = "最多返回的数量", dataType = "int")
+    })
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/search")
+    public JsonResult search(String keyword, Integer limit) {
+        log.debug("开始处理【搜索管理员】的请求，关键字：{}，数量：{}", keyword, limit);
+        List<AdminListItemVO> list = adminService.search(keyword, limit);
+        return JsonResult.ok(list);
+    }
+
+    // http://localhost:9081/admins/export?format=csv
+    @ApiOperation(value = "导出管理员数据", notes = "逐行写出所有管理员数据，format取值为csv或ndjson（每行是1个JSON对象）")
+    @ApiOperationSupport(order = 430)
+    @ApiImplicitParam(name = "format", value = "导出格式", defaultValue = "csv", dataType = "string")
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format) {
+        log.debug("开始处理【导出管理员数据】的请求，格式：{}", format);
+        MediaType mediaType;
+        if (IAdminService.EXPORT_FORMAT_CSV.equals(format)) {
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if (IAdminService.EXPORT_FORMAT_NDJSON.equals(format)) {
+            mediaType = new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        } else {
+            String message = "导出管理员数据失败，仅支持csv或ndjson格式！";
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+        String filename = "admins-" + LocalDateTime.now().format(EXPORT_FILENAME_FORMATTER) + "." + format;
+        // 在异步线程中写出响应，不占用请求线程，导出过程在1个只读事务中逐行查询、逐行写出
+        StreamingResponseBody body = outputStream -> adminService.export(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // http://localhost:9081/admins/page?size=20&fields=username,enable
+    @ApiOperation("分页查询管理员列表")
+    @ApiOperationSupport(order = 421)
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "cursor", value = "上一页返回的游标，查询第1页时不提交", dataType = "string"),
+            @ApiImplicitParam(name = "size", value = "每页的数量", dataType = "int"),
+            @ApiImplicitParam(name = "fields", value = "需要查询的属性，以逗号分隔", dataType = "string")
+    })
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/page")
+    public JsonResult listPage(String cursor, Integer size, String fields,
+                               @ApiIgnore ServletWebRequest webRequest) {
+        log.debug("开始处理【分页查询管理员列表】的请求，游标：{}，每页数量：{}，字段：{}", cursor, size, fields);
+        if (etagEnabled && tableVersions.checkNotModified(webRequest, cursor + "&" + size + "&" + fields, TABLE_ADMIN)) {
+            return null;
+        }
+        CursorPageVO<AdminListItemVO> page = adminService.listPage(cursor, size, fields);
+        return JsonResult.ok(page);
+    }
+
 }
@@ -0,0 +1,112 @@
+package cn.tedu.csmall.passport.controller;
+
+import cn.tedu.csmall.passport.mybatis.SqlStats;
+import cn.tedu.csmall.passport.pojo.vo.JwtCacheStatsVO;
+import cn.tedu.csmall.passport.pojo.vo.LoginExecutorStatsVO;
+import cn.tedu.csmall.passport.pojo.vo.LoginThrottleStatsVO;
+import cn.tedu.csmall.passport.pojo.vo.SqlStatementStatsVO;
+import cn.tedu.csmall.passport.security.JwtCache;
+import cn.tedu.csmall.passport.security.LoginExecutor;
+import cn.tedu.csmall.passport.security.LoginThrottle;
+import cn.tedu.csmall.passport.security.RequirePermission;
+import cn.tedu.csmall.passport.web.JsonResult;
+import com.github.xiaoymin.knife4j.annotations.ApiOperationSupport;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 处理运行状态监控相关请求的控制器
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@RestController
+@RequestMapping("/monitor")
+@Api(tags = "9. 运行监控模块")
+public class MonitorController {
+
+    @Autowired
+    private JwtCache jwtCache;
+    @Autowired
+    private LoginExecutor loginExecutor;
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private SqlStats sqlStats;
+
+    public MonitorController() {
+        log.debug("创建控制器对象：MonitorController");
+    }
+
+    // http://localhost:9081/monitor/jwt-cache
+    @ApiOperation("查询JWT缓存的统计信息")
+    @ApiOperationSupport(order = 410)
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/jwt-cache")
+    public JsonResult jwtCacheStats() {
+        log.debug("开始处理【查询JWT缓存的统计信息】的请求，无参数");
+        JwtCacheStatsVO jwtCacheStatsVO = new JwtCacheStatsVO();
+        jwtCacheStatsVO.setSize(jwtCache.size());
+        jwtCacheStatsVO.setHits(jwtCache.getHits());
+        jwtCacheStatsVO.setMisses(jwtCache.getMisses());
+        jwtCacheStatsVO.setEvictions(jwtCache.getEvictions());
+        return JsonResult.ok(jwtCacheStatsVO);
+    }
+
+    // http://localhost:9081/monitor/login-executor
+    @ApiOperation("查询登录任务执行器的统计信息")
+    @ApiOperationSupport(order = 420)
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/login-executor")
+    public JsonResult loginExecutorStats() {
+        log.debug("开始处理【查询登录任务执行器的统计信息】的请求，无参数");
+        LoginExecutorStatsVO loginExecutorStatsVO = new LoginExecutorStatsVO();
+        loginExecutorStatsVO.setPoolSize(loginExecutor.getPoolSize());
+        loginExecutorStatsVO.setActiveCount(loginExecutor.getActiveCount());
+        loginExecutorStatsVO.setQueueSize(loginExecutor.getQueueSize());
+        loginExecutorStatsVO.setQueueCapacity(loginExecutor.getQueueCapacity());
+        loginExecutorStatsVO.setSubmitted(loginExecutor.getSubmitted());
+        loginExecutorStatsVO.setCompleted(loginExecutor.getCompleted());
+        loginExecutorStatsVO.setRejected(loginExecutor.getRejected());
+        loginExecutorStatsVO.setExpired(loginExecutor.getExpired());
+        loginExecutorStatsVO.setAverageWaitMillis(loginExecutor.getAverageWaitMillis());
+        loginExecutorStatsVO.setMaxWaitMillis(loginExecutor.getMaxWaitMillis());
+        return JsonResult.ok(loginExecutorStatsVO);
+    }
+
+    // http://localhost:9081/monitor/login-throttle
+    @ApiOperation("查询登录限流器的统计信息")
+    @ApiOperationSupport(order = 430)
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/login-throttle")
+    public JsonResult loginThrottleStats() {
+        log.debug("开始处理【查询登录限流器的统计信息】的请求，无参数");
+        LoginThrottleStatsVO loginThrottleStatsVO = new LoginThrottleStatsVO();
+        loginThrottleStatsVO.setUsernameKeys(loginThrottle.getUsernameKeys());
+        loginThrottleStatsVO.setIpKeys(loginThrottle.getIpKeys());
+        loginThrottleStatsVO.setRejectedByUsername(loginThrottle.getRejectedByUsername());
+        loginThrottleStatsVO.setRejectedByIp(loginThrottle.getRejectedByIp());
+        loginThrottleStatsVO.setEvictions(loginThrottle.getEvictions());
+        return JsonResult.ok(loginThrottleStatsVO);
+    }
+
+    // http://localhost:9081/monitor/sql
+    @ApiOperation("查询SQL语句执行情况的统计信息")
+    @ApiOperationSupport(order = 440)
+    @RequirePermission("/ams/admin/read")
+    @GetMapping("/sql")
+    public JsonResult sqlStats() {
+        log.debug("开始处理【查询SQL语句执行情况的统计信息】的请求，无参数");
+        List<SqlStatementStatsVO> list = sqlStats.getStatementStats();
+        return JsonResult.ok(list);
+    }
+
+}
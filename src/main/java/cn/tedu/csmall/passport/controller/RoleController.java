@@ -1,19 +1,23 @@
 package cn.tedu.csmall.passport.controller;
 
-import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
+import cn.tedu.csmall.passport.cache.RoleListCache;
+import cn.tedu.csmall.passport.security.RequirePermission;
 import cn.tedu.csmall.passport.service.IRoleService;
-import cn.tedu.csmall.passport.web.JsonResult;
 import com.github.xiaoymin.knife4j.annotations.ApiOperationSupport;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import springfox.documentation.annotations.ApiIgnore;
 
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * 处理角色相关请求的控制器
@@ -27,6 +31,11 @@ import java.util.List;
 @Api(tags = "2. 角色管理模块")
 public class RoleController {
 
+    /**
+     * 条件请求的响应的Cache-Control：只允许客户端缓存，且每次使用前必须重新验证
+     */
+    private static final String CACHE_CONTROL = "private, no-cache";
+
     @Autowired
     private IRoleService roleService;
 
@@ -37,12 +46,46 @@ public class RoleController {
     // http://localhost:9081/roles
     @ApiOperation("查询角色列表")
     @ApiOperationSupport(order = 420)
-    @PreAuthorize("hasAuthority('/ams/admin/read')")
+    @RequirePermission("/ams/admin/read")
     @GetMapping("")
-    public JsonResult list() {
+    public ResponseEntity<byte[]> list(@ApiIgnore ServletWebRequest webRequest) {
         log.debug("开始处理【查询角色列表】的请求，无参数");
-        List<RoleListItemVO> list = roleService.list();
-        return JsonResult.ok(list);
+        // 原始的和gzip压缩的响应结果是不同的表示形式，强ETag不可以相同
+        boolean gzip = acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // 角色数据没有变化时快照来自缓存，客户端缓存的数据仍然有效时直接响应304，不查询数据库
+        RoleListCache.Snapshot snapshot = roleService.getListSnapshot();
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        if (webRequest.checkNotModified(gzip ? snapshot.getGzipETag() : snapshot.getETag())) {
+            return null;
+        }
+        // 直接响应快照中已序列化的结果，客户端支持gzip时响应压缩后的结果
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getGzipJson());
+        }
+        return builder.body(snapshot.getJson());
+    }
+
+    /**
+     * 判断客户端是否接受gzip编码，例如：gzip, deflate, br
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                // gzip;q=0表示不接受
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
     }
 
 }
@@ -1,15 +1,22 @@
 package cn.tedu.csmall.passport.filter;
 
+import cn.tedu.csmall.passport.security.AuthorityRegistry;
+import cn.tedu.csmall.passport.security.JwtCache;
+import cn.tedu.csmall.passport.security.JwtRevocationList;
 import cn.tedu.csmall.passport.security.LoginPrincipal;
+import cn.tedu.csmall.passport.security.PermissionDictionary;
+import cn.tedu.csmall.passport.security.RbacModel;
 import cn.tedu.csmall.passport.web.JsonResult;
 import cn.tedu.csmall.passport.web.ServiceCode;
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
 import io.jsonwebtoken.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -18,11 +25,15 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <p>JWT过滤器</p>
@@ -33,6 +44,12 @@ import java.util.List;
  *     <li>解析客户端携带的JWT，并创建Authentication对象，存入到SecurityContext中</li>
  * </ul>
  *
+ * <p>解析成功的JWT会存入JwtCache，同一个JWT再次提交时直接使用缓存的解析结果</p>
+ *
+ * <p>无论是否使用缓存，都会检查JWT是否已被JwtRevocationList吊销（管理员已被禁用或删除）</p>
+ *
+ * <p>解析失败时，直接响应预先编码的JSON，并限制记录日志的频率</p>
+ *
  * @author java@tedu.cn
  * @version 0.0.1
  */
@@ -42,8 +59,35 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     public static final int JWT_MIN_LENGTH = 113;
 
+    /**
+     * 解析JWT失败时的响应正文，启动时预先编码，处理请求时不必再创建JsonResult并序列化
+     */
+    private static final String MESSAGE_UNKNOWN = "服务器忙，请稍后再尝试（开发阶段，请检查服务器端控制台）！";
+    private static final byte[] BODY_JWT_EXPIRED = encode(ServiceCode.ERR_JWT_EXPIRED, "您的登录信息已过期，请重新登录！");
+    private static final byte[] BODY_JWT_SIGNATURE = encode(ServiceCode.ERR_JWT_SIGNATURE, "非法访问！");
+    private static final byte[] BODY_JWT_MALFORMED = encode(ServiceCode.ERR_JWT_MALFORMED, "非法访问！");
+    private static final byte[] BODY_JWT_REVOKED = encode(ServiceCode.ERR_JWT_REVOKED, "您的登录信息已失效，请重新登录！");
+    private static final byte[] BODY_UNKNOWN = encode(ServiceCode.ERR_UNKNOWN, MESSAGE_UNKNOWN);
+    /**
+     * 解析JWT失败时，两次记录日志的最小间隔时间（毫秒），其间的失败只计数，避免大量JWT同时过期或被伪造时日志刷屏
+     */
+    private static final long FAILURE_LOG_INTERVAL = 10 * 1000;
+
     @Value("${csmall.jwt.secret-key}")
     private String secretKey;
+    @Value("${csmall.jwt.duration-in-minute}")
+    private long durationInMinute;
+    @Autowired
+    private JwtCache jwtCache;
+    @Autowired
+    private JwtRevocationList jwtRevocationList;
+    @Autowired
+    private PermissionDictionary permissionDictionary;
+    @Autowired
+    private RbacModel rbacModel;
+
+    private final AtomicLong nextFailureLogTime = new AtomicLong();
+    private final LongAdder suppressedFailures = new LongAdder();
 
     public JwtAuthorizationFilter() {
         log.debug("创建过滤器对象：JwtAuthorizationFilter");
@@ -70,68 +114,74 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 设置响应的文档类型，用于处理异常时
-        response.setContentType("application/json;charset=utf-8");
+        // 优先使用缓存的解析结果
+        LoginPrincipal loginPrincipal;
+        List<? extends GrantedAuthority> authorities;
+        long issuedAt;
+        JwtCache.Entry cacheEntry = jwtCache.get(jwt);
+        if (cacheEntry != null) {
+            log.debug("JWT缓存命中，将使用缓存的解析结果");
+            loginPrincipal = cacheEntry.getLoginPrincipal();
+            authorities = cacheEntry.getAuthorities();
+            issuedAt = cacheEntry.getIssuedAt();
+        } else {
+            // 尝试解析JWT
+            log.debug("获取到的JWT被视为有效，准备解析JWT……");
+            Claims claims = null;
+            try {
+                claims = Jwts.parser()
+                        .setSigningKey(secretKey)
+                        .parseClaimsJws(jwt)
+                        .getBody();
+                // 准备管理员权限
+                authorities = resolveAuthorities(claims);
+            } catch (ExpiredJwtException e) {
+                logFailure(e, "您的登录信息已过期，请重新登录！");
+                writeFailure(response, BODY_JWT_EXPIRED);
+                return;
+            } catch (SignatureException e) {
+                logFailure(e, "非法访问！");
+                writeFailure(response, BODY_JWT_SIGNATURE);
+                return;
+            } catch (MalformedJwtException e) {
+                logFailure(e, "非法访问！");
+                writeFailure(response, BODY_JWT_MALFORMED);
+                return;
+            } catch (Throwable e) {
+                logFailure(e, MESSAGE_UNKNOWN);
+                writeFailure(response, BODY_UNKNOWN);
+                return;
+            }
 
-        // 尝试解析JWT
-        log.debug("获取到的JWT被视为有效，准备解析JWT……");
-        Claims claims = null;
-        try {
-            claims = Jwts.parser()
-                    .setSigningKey(secretKey)
-                    .parseClaimsJws(jwt)
-                    .getBody();
-        } catch (ExpiredJwtException e) {
-            String message = "您的登录信息已过期，请重新登录！";
-            log.warn("解析JWT时出现ExpiredJwtException，响应的消息：{}", message);
-            JsonResult jsonResult = JsonResult.fail(ServiceCode.ERR_JWT_EXPIRED, message);
-            PrintWriter writer = response.getWriter();
-            writer.println(JSON.toJSONString(jsonResult));
-            writer.close();
-            return;
-        } catch (SignatureException e) {
-            String message = "非法访问！";
-            log.warn("解析JWT时出现SignatureException，响应的消息：{}", message);
-            JsonResult jsonResult = JsonResult.fail(ServiceCode.ERR_JWT_SIGNATURE, message);
-            PrintWriter writer = response.getWriter();
-            writer.println(JSON.toJSONString(jsonResult));
-            writer.close();
-            return;
-        } catch (MalformedJwtException e) {
-            String message = "非法访问！";
-            log.warn("解析JWT时出现MalformedJwtException，响应的消息：{}", message);
-            JsonResult jsonResult = JsonResult.fail(ServiceCode.ERR_JWT_MALFORMED, message);
-            PrintWriter writer = response.getWriter();
-            writer.println(JSON.toJSONString(jsonResult));
-            writer.close();
-            return;
-        } catch (Throwable e) {
-            String message = "服务器忙，请稍后再尝试（开发阶段，请检查服务器端控制台）！";
-            log.warn("解析JWT时出现{}，响应的消息：{}", e.getClass().getName(), message);
-            e.printStackTrace();
-            JsonResult jsonResult = JsonResult.fail(ServiceCode.ERR_UNKNOWN, message);
-            PrintWriter writer = response.getWriter();
-            writer.println(JSON.toJSONString(jsonResult));
-            writer.close();
-            return;
-        }
+            // 从Claims中获取生成时存入的数据
+            Long id = claims.get("id", Long.class);
+            String username = claims.get("username", String.class);
+            log.debug("从JWT中解析得到id：{}", id);
+            log.debug("从JWT中解析得到username：{}", username);
+            log.debug("从JWT中解析得到authorities：{}", authorities);
 
-        // 从Claims中获取生成时存入的数据
-        Long id = claims.get("id", Long.class);
-        String username = claims.get("username", String.class);
-        String authoritiesJsonString = claims.get("authorities", String.class);
-        log.debug("从JWT中解析得到id：{}", id);
-        log.debug("从JWT中解析得到username：{}", username);
-        log.debug("从JWT中解析得到authoritiesJsonString：{}", authoritiesJsonString);
+            // 将解析JWT得到的管理员信息创建成为AdminPrincipal（当事人）对象
+            loginPrincipal = new LoginPrincipal();
+            loginPrincipal.setId(id);
+            loginPrincipal.setUsername(username);
+            // 计算权限位图，用于检查@RequirePermission
+            loginPrincipal.setPermissionBits(rbacModel.toPermissionBits(authorities));
 
-        // 将解析JWT得到的管理员信息创建成为AdminPrincipal（当事人）对象
-        LoginPrincipal loginPrincipal = new LoginPrincipal();
-        loginPrincipal.setId(id);
-        loginPrincipal.setUsername(username);
+            // JWT的签发时间（毫秒），早期签发的JWT中没有签发时间，则根据过期时间推算
+            issuedAt = getIssuedAt(claims);
 
-        // 准备管理员权限
-        List<SimpleGrantedAuthority> authorities
-                = JSON.parseArray(authoritiesJsonString, SimpleGrantedAuthority.class);
+            // 缓存解析结果，以JWT的过期时间作为缓存项的过期时间
+            if (claims.getExpiration() != null) {
+                jwtCache.put(jwt, loginPrincipal, authorities, issuedAt, claims.getExpiration().getTime());
+            }
+        }
+
+        // 检查JWT是否已被吊销
+        if (loginPrincipal.getId() != null && jwtRevocationList.isRevoked(loginPrincipal.getId(), issuedAt)) {
+            log.debug("JWT已被吊销，管理员ID：{}", loginPrincipal.getId());
+            writeFailure(response, BODY_JWT_REVOKED);
+            return;
+        }
 
         // 创建Authentication对象，将存入到SecurityContext中
         // 此Authentication对象必须包含：当事人（Principal）、权限（Authorities），不必包含凭证（Credentials）
@@ -149,4 +199,92 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-}
\ No newline at end of file
+    /**
+     * 从Claims中获取管理员权限，兼容紧凑格式和JSON格式
+     *
+     * @param claims 解析JWT得到的Claims
+     * @return 管理员权限列表
+     */
+    private List<? extends GrantedAuthority> resolveAuthorities(Claims claims) {
+        String permissions = claims.get(PermissionDictionary.CLAIM_PERMISSIONS, String.class);
+        if (permissions != null) {
+            log.debug("从JWT中解析得到紧凑格式的权限：{}", permissions);
+            return permissionDictionary.decode(permissions);
+        }
+        String authoritiesJsonString = claims.get("authorities", String.class);
+        log.debug("从JWT中解析得到authoritiesJsonString：{}", authoritiesJsonString);
+        JSONArray authoritiesJsonArray = JSON.parseArray(authoritiesJsonString);
+        List<GrantedAuthority> authorities = new ArrayList<>(authoritiesJsonArray.size());
+        for (int i = 0; i < authoritiesJsonArray.size(); i++) {
+            String authority = authoritiesJsonArray.getJSONObject(i).getString("authority");
+            authorities.add(AuthorityRegistry.of(authority));
+        }
+        return authorities;
+    }
+
+    /**
+     * 获取JWT的签发时间
+     *
+     * @param claims 解析JWT得到的Claims
+     * @return JWT的签发时间（毫秒），如果无法确定，则返回0
+     */
+    private long getIssuedAt(Claims claims) {
+        Long issuedAt = claims.get(JwtRevocationList.CLAIM_ISSUED_AT, Long.class);
+        if (issuedAt != null) {
+            return issuedAt;
+        }
+        // 标准的签发时间只精确到秒
+        if (claims.getIssuedAt() != null) {
+            return claims.getIssuedAt().getTime();
+        }
+        if (claims.getExpiration() != null) {
+            return claims.getExpiration().getTime() - durationInMinute * 60 * 1000;
+        }
+        return 0;
+    }
+
+    /**
+     * 响应预先编码的失败结果
+     *
+     * @param response 响应对象
+     * @param body     预先编码的响应正文
+     */
+    private void writeFailure(HttpServletResponse response, byte[] body) throws IOException {
+        response.setContentType("application/json;charset=utf-8");
+        response.setContentLength(body.length);
+        ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(body);
+        outputStream.flush();
+    }
+
+    /**
+     * 记录解析JWT失败的日志，每个时间间隔内最多记录1次，其余的失败只计数，在下次记录时一并输出
+     *
+     * @param e       解析JWT时出现的异常
+     * @param message 响应的消息
+     */
+    private void logFailure(Throwable e, String message) {
+        long now = System.currentTimeMillis();
+        long next = nextFailureLogTime.get();
+        if (now < next || !nextFailureLogTime.compareAndSet(next, now + FAILURE_LOG_INTERVAL)) {
+            suppressedFailures.increment();
+            return;
+        }
+        long suppressed = suppressedFailures.sumThenReset();
+        if (e instanceof JwtException) {
+            log.warn("解析JWT时出现{}，响应的消息：{}，此前未记录的失败次数：{}",
+                    e.getClass().getSimpleName(), message, suppressed);
+        } else {
+            log.error("解析JWT时出现{}，响应的消息：{}，此前未记录的失败次数：{}",
+                    e.getClass().getName(), message, suppressed, e);
+        }
+    }
+
+    /**
+     * 将失败的响应结果编码为UTF-8的JSON
+     */
+    static byte[] encode(ServiceCode serviceCode, String message) {
+        return JSON.toJSONString(JsonResult.fail(serviceCode, message)).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
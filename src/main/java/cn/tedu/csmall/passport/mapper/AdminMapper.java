@@ -1,9 +1,13 @@
 package cn.tedu.csmall.passport.mapper;
 
 import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.vo.AdminConflictCountVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminLoginInfoVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminStandardVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -56,6 +60,32 @@ public interface AdminMapper {
      */
     int update(Admin admin);
 
+    /**
+     * 批量更新管理员的登录统计数据
+     *
+     * @param adminList 若干个管理员的登录统计数据，每个元素的loginCount表示登录次数的增量，
+     *                  lastLoginIp和gmtLastLogin表示最后登录的IP和时间
+     * @return 受影响的行数
+     */
+    int updateLoginStatisticsBatch(List<Admin> adminList);
+
+    /**
+     * 当管理员的启用状态与目标状态不同时，修改管理员的启用状态
+     *
+     * @param admin 封装了管理员id和目标状态的对象
+     * @return 受影响的行数，如果管理员不存在，或已经处于目标状态，则返回0
+     */
+    int updateEnableById(Admin admin);
+
+    /**
+     * 批量修改若干个管理员的启用状态，已经处于目标状态的管理员不会被修改
+     *
+     * @param ids    若干个管理员id
+     * @param enable 目标状态
+     * @return 受影响的行数，即状态实际发生变化的管理员的数量
+     */
+    int updateEnableByIds(@Param("ids") Long[] ids, @Param("enable") Integer enable);
+
     /**
      * 统计管理员数据的数量
      *
@@ -87,6 +117,22 @@ public interface AdminMapper {
      */
     int countByEmail(String email);
 
+    /**
+     * 统计与管理员的用户名、手机号码、电子邮箱分别相同的管理员数据的数量
+     *
+     * @param admin 封装了用户名、手机号码、电子邮箱的对象
+     * @return 用户名、手机号码、电子邮箱分别相同的管理员数据的数量
+     */
+    AdminConflictCountVO countConflicts(Admin admin);
+
+    /**
+     * 查询用户名、手机号码、电子邮箱与若干个管理员中的任何一个相同的管理员的唯一字段
+     *
+     * @param adminList 封装了用户名、手机号码、电子邮箱的若干个对象
+     * @return 存在冲突的管理员的唯一字段的列表
+     */
+    List<AdminUniqueFieldsVO> listConflicts(List<Admin> adminList);
+
     /**
      * 根据管理员id查询管理员数据详情
      * @param id 管理员id
@@ -94,6 +140,15 @@ public interface AdminMapper {
      */
     AdminStandardVO getStandardById(Long id);
 
+    /**
+     * 根据管理员id查询管理员数据详情，只查询指定的列
+     *
+     * @param id      管理员id
+     * @param columns 需要查询的列名，必须来自白名单，为null时查询所有列，不可以是空列表
+     * @return 匹配的管理员数据详情，未查询的属性为null，如果没有匹配的数据，则返回null
+     */
+    AdminStandardVO getStandardByIdWithColumns(@Param("id") Long id, @Param("columns") List<String> columns);
+
     /**
      * 根据管理员用户名查询管理登录信息
      * @param username 用户名
@@ -102,10 +157,64 @@ public interface AdminMapper {
     AdminLoginInfoVO getLoginInfoByUsername(String username);
 
     /**
-     * 查询管理员数据列表
+     * 根据管理员用户名查询管理员的基本登录信息（不关联查询权限）
+     * @param username 用户名
+     * @return 匹配的登录信息，其中不包含权限和角色，如果没有匹配的数据，则返回null
+     */
+    AdminLoginInfoVO getBasicLoginInfoByUsername(String username);
+
+    /**
+     * 查询管理员数据列表，不包含1号管理员
+     *
+     * @param columns 需要查询的列名，必须来自白名单，为null时查询所有列，不可以是空列表
+     * @return 管理员数据列表，未查询的属性为null
+     */
+    List<AdminListItemVO> list(@Param("columns") List<String> columns);
+
+    /**
+     * 查询id大于某值的管理员数据列表（键集分页），不包含1号管理员
+     *
+     * @param afterId 上一页最后一条数据的id，查询第1页时为0
+     * @param limit   最多查询的数据的数量
+     * @param columns 需要查询的列名，必须来自白名单，为null时查询所有列，不可以是空列表
+     * @return 按id升序排列的管理员数据列表，未查询的属性为null
+     */
+    List<AdminListItemVO> listAfterId(@Param("afterId") Long afterId, @Param("limit") Integer limit,
+                                      @Param("columns") List<String> columns);
+
+    /**
+     * 在用户名、昵称、手机号码、电子邮箱中搜索关键字，不包含1号管理员
+     *
+     * @param keyword 关键字
+     * @param pattern 转义了LIKE通配符的关键字
+     * @param limit   最多查询的数据的数量
+     * @return 匹配的管理员数据列表（仅包含id、用户名、昵称、手机号码、电子邮箱、启用状态），完全相等的在前，其次是以关键字开头的
+     */
+    List<AdminListItemVO> search(@Param("keyword") String keyword, @Param("pattern") String pattern,
+                                 @Param("limit") Integer limit);
+
+    /**
+     * 以游标的方式逐行查询管理员数据列表，不包含1号管理员
+     *
+     * <p>注意：必须在事务中调用，并在事务结束前遍历完成</p>
+     *
+     * @return 按id升序排列的管理员数据的游标
+     */
+    Cursor<AdminListItemVO> listCursor();
+
+    /**
+     * 查询所有管理员的唯一字段（用户名、手机号码、电子邮箱）
+     *
+     * @return 所有管理员的唯一字段的列表
+     */
+    List<AdminUniqueFieldsVO> listUniqueFields();
+
+    /**
+     * 根据若干个id查询管理员的唯一字段，并锁定这些数据直至事务结束
      *
-     * @return 管理员数据列表
+     * @param ids 若干个管理员id
+     * @return 存在的管理员的唯一字段的列表
      */
-    List<AdminListItemVO> list();
+    List<AdminUniqueFieldsVO> listUniqueFieldsByIdsForUpdate(Long[] ids);
 
 }
@@ -3,6 +3,8 @@ package cn.tedu.csmall.passport.mapper;
 import cn.tedu.csmall.passport.pojo.entity.AdminRole;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * 处理管理员与角色的关联数据的Mapper接口
  *
@@ -28,4 +30,20 @@ public interface AdminRoleMapper {
      */
     int deleteByAdminId(Long adminId);
 
+    /**
+     * 根据若干个管理员id批量删除管理员与角色的关联数据
+     *
+     * @param adminIds 若干个管理员id
+     * @return 受影响的行数
+     */
+    int deleteByAdminIds(Long[] adminIds);
+
+    /**
+     * 根据管理员id查询此管理员的角色id
+     *
+     * @param adminId 管理员id
+     * @return 此管理员的角色id列表
+     */
+    List<Long> listRoleIdsByAdminId(Long adminId);
+
 }
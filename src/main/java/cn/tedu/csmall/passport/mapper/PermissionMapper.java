@@ -0,0 +1,24 @@
+package cn.tedu.csmall.passport.mapper;
+
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 处理权限数据的Mapper接口
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Repository
+public interface PermissionMapper {
+
+    /**
+     * 查询权限列表
+     *
+     * @return 权限列表
+     */
+    List<PermissionListItemVO> list();
+
+}
@@ -0,0 +1,32 @@
+package cn.tedu.csmall.passport.mapper;
+
+import cn.tedu.csmall.passport.pojo.entity.RolePermission;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 处理角色与权限的关联数据的Mapper接口
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Repository
+public interface RolePermissionMapper {
+
+    /**
+     * 查询所有角色与权限的关联数据
+     *
+     * @return 角色与权限的关联数据列表，只包含角色id和权限id
+     */
+    List<RolePermission> list();
+
+    /**
+     * 根据角色id查询此角色的权限id
+     *
+     * @param roleId 角色id
+     * @return 此角色的权限id列表
+     */
+    List<Long> listPermissionIdsByRoleId(Long roleId);
+
+}
@@ -3,12 +3,19 @@ package cn.tedu.csmall.passport.mybatis;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
 
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -19,6 +26,12 @@ import java.util.regex.Pattern;
  *
  * <p>具体的拦截处理由内部的intercept()方法实现</p>
  *
+ * <p>此方法在每次执行SQL语句之前都会被调用：不是INSERT、UPDATE的语句（例如SELECT）直接放行，
+ * 其它语句的改写结果按原SQL语句缓存为模板，每次只需添加当前时间的参数</p>
+ *
+ * <p>时间值通过“?”占位符和追加的参数映射（ParameterMapping）传递，而不是直接写在SQL语句中，
+ * 所以同一条SQL语句每次执行时的SQL文本都相同，JDBC驱动和数据库可以复用已经预编译的SQL语句</p>
+ *
  * <p>注意：由于仅适用于当前项目，并不具备范用性，所以：</p>
  *
  * <ul>
@@ -45,6 +58,10 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
      * 自动更新时间的字段
      */
     private static final String FIELD_MODIFIED = "gmt_modified";
+    /**
+     * 时间参数的名称，作为BoundSql的附加参数，不会与Mapper方法的参数冲突
+     */
+    private static final String TIME_PARAMETER = "__insertUpdateTime";
     /**
      * SQL语句类型：其它（暂无实际用途）
      */
@@ -60,82 +77,136 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
     /**
      * 查找SQL类型的正则表达式：INSERT
      */
-    private static final String SQL_TYPE_PATTERN_INSERT = "^insert\\s";
+    private static final Pattern SQL_TYPE_PATTERN_INSERT = Pattern.compile("^insert\\s", Pattern.CASE_INSENSITIVE);
     /**
      * 查找SQL类型的正则表达式：UPDATE
      */
-    private static final String SQL_TYPE_PATTERN_UPDATE = "^update\\s";
+    private static final Pattern SQL_TYPE_PATTERN_UPDATE = Pattern.compile("^update\\s", Pattern.CASE_INSENSITIVE);
     /**
      * 查询SQL语句片段的正则表达式：gmt_modified片段
      */
-    private static final String SQL_STATEMENT_PATTERN_MODIFIED = ",\\s*" + FIELD_MODIFIED + "\\s*=";
+    private static final Pattern SQL_STATEMENT_PATTERN_MODIFIED = Pattern.compile(
+            ",\\s*" + FIELD_MODIFIED + "\\s*=", Pattern.CASE_INSENSITIVE);
     /**
      * 查询SQL语句片段的正则表达式：gmt_create片段
      */
-    private static final String SQL_STATEMENT_PATTERN_CREATE = ",\\s*" + FIELD_CREATE + "\\s*[,)]?";
+    private static final Pattern SQL_STATEMENT_PATTERN_CREATE = Pattern.compile(
+            ",\\s*" + FIELD_CREATE + "\\s*[,)]?", Pattern.CASE_INSENSITIVE);
     /**
      * 查询SQL语句片段的正则表达式：WHERE子句
      */
-    private static final String SQL_STATEMENT_PATTERN_WHERE = "\\s+where\\s+";
+    private static final Pattern SQL_STATEMENT_PATTERN_WHERE = Pattern.compile("\\s+where\\s+", Pattern.CASE_INSENSITIVE);
     /**
      * 查询SQL语句片段的正则表达式：VALUES子句
      */
-    private static final String SQL_STATEMENT_PATTERN_VALUES = "\\)\\s*values?\\s*\\(";
+    private static final Pattern SQL_STATEMENT_PATTERN_VALUES = Pattern.compile(
+            "\\)\\s*values?\\s*\\(", Pattern.CASE_INSENSITIVE);
+    /**
+     * 查询SQL语句片段的正则表达式：参数值列表的结束括号
+     */
+    private static final Pattern SQL_STATEMENT_PATTERN_PARAM_END = Pattern.compile("\\)");
+    /**
+     * 查询SQL语句片段的正则表达式：连续的空白
+     */
+    private static final Pattern SQL_STATEMENT_PATTERN_WHITESPACE = Pattern.compile("\\s+");
+    /**
+     * 生成SQL模板时，在时间值的位置使用的标记，SQL语句中不会出现此字符
+     */
+    private static final String TIME_MARKER = "\u0000";
+    /**
+     * 不需要改写的SQL语句的模板
+     */
+    private static final SqlTemplate NO_REWRITE = new SqlTemplate(null, new int[0], 0);
+    /**
+     * 最多缓存的SQL模板数量，动态SQL（例如批量插入）可能生成很多种SQL语句，超出后不再缓存
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1000;
+    /**
+     * BoundSql中保存SQL语句的属性
+     */
+    private static final Field BOUND_SQL_FIELD;
+    /**
+     * BoundSql中保存参数映射的属性
+     */
+    private static final Field BOUND_SQL_PARAMETER_MAPPINGS_FIELD;
+
+    static {
+        try {
+            BOUND_SQL_FIELD = BoundSql.class.getDeclaredField("sql");
+            BOUND_SQL_FIELD.setAccessible(true);
+            BOUND_SQL_PARAMETER_MAPPINGS_FIELD = BoundSql.class.getDeclaredField("parameterMappings");
+            BOUND_SQL_PARAMETER_MAPPINGS_FIELD.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * <p>SQL模板的缓存，Key是原SQL语句，Value是改写后的SQL语句及时间参数的位置</p>
+     *
+     * <p>同一个MappedStatement每次生成的SQL语句通常相同（动态SQL按生成的SQL语句分别缓存），
+     * 所以判断SQL类型、查找插入位置只需执行1次，此后只需添加当前时间的参数</p>
+     */
+    private final Map<String, SqlTemplate> templateCache = new ConcurrentHashMap<>();
+    /**
+     * 时间参数的映射，所有时间参数使用同一个值
+     */
+    private final ParameterMapping timeParameterMapping;
+
+    /**
+     * 创建拦截器
+     *
+     * @param configuration 拦截器所属的MyBatis配置，用于确定时间参数的类型处理器
+     */
+    public InsertUpdateTimeInterceptor(Configuration configuration) {
+        timeParameterMapping = new ParameterMapping.Builder(configuration, TIME_PARAMETER, LocalDateTime.class).build();
+    }
 
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
-        // 日志
-        log.debug("准备拦截SQL语句……");
         // 获取boundSql，即：封装了即将执行的SQL语句及相关数据的对象
         BoundSql boundSql = getBoundSql(invocation);
         // 从boundSql中获取SQL语句
-        String sql = getSql(boundSql);
-        // 日志
-        log.debug("原SQL语句：{}", sql);
-        // 准备新SQL语句
-        String newSql = null;
-        // 判断原SQL类型
-        switch (getOriginalSqlType(sql)) {
-            case SQL_TYPE_INSERT:
-                // 日志
-                log.debug("原SQL语句是【INSERT】语句，准备补充更新时间……");
-                // 准备新SQL语句
-                newSql = appendCreateTimeField(sql, LocalDateTime.now());
-                break;
-            case SQL_TYPE_UPDATE:
-                // 日志
-                log.debug("原SQL语句是【UPDATE】语句，准备补充更新时间……");
-                // 准备新SQL语句
-                newSql = appendModifiedTimeField(sql, LocalDateTime.now());
-                break;
+        String sql = boundSql.getSql();
+        // 快速判断：不是INSERT、UPDATE语句的（绝大部分是SELECT语句），直接放行
+        if (!isInsertOrUpdate(sql)) {
+            return invocation.proceed();
         }
-        // 应用新SQL
-        if (newSql != null) {
-            // 日志
-            log.debug("新SQL语句：{}", newSql);
-            reflectAttributeValue(boundSql, "sql", newSql);
+        // 获取SQL模板，并添加当前时间的参数
+        SqlTemplate template = getTemplate(sql);
+        if (template != NO_REWRITE) {
+            List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+            if (template.parameterCount == parameterMappings.size()) {
+                // 原参数映射列表可能被同一条SQL语句的所有BoundSql共享，所以不能直接修改
+                BOUND_SQL_PARAMETER_MAPPINGS_FIELD.set(boundSql, template.addTimeParameters(
+                        parameterMappings, timeParameterMapping));
+                BOUND_SQL_FIELD.set(boundSql, template.sql);
+                boundSql.setAdditionalParameter(TIME_PARAMETER, LocalDateTime.now());
+                // 日志
+                log.debug("新SQL语句：{}", template.sql);
+            } else {
+                log.warn("SQL语句中的占位符数量与参数数量不一致，将不补充时间字段：{}", sql);
+            }
         }
 
         // 执行调用，即拦截器放行，执行后续部分
         return invocation.proceed();
     }
 
-    public String appendModifiedTimeField(String sqlStatement, LocalDateTime dateTime) {
-        Pattern gmtPattern = Pattern.compile(SQL_STATEMENT_PATTERN_MODIFIED, Pattern.CASE_INSENSITIVE);
-        if (gmtPattern.matcher(sqlStatement).find()) {
+    private String appendModifiedTimeField(String sqlStatement, String timeValue) {
+        if (SQL_STATEMENT_PATTERN_MODIFIED.matcher(sqlStatement).find()) {
             log.debug("原SQL语句中已经包含gmt_modified，将不补充添加时间字段");
             return null;
         }
         StringBuilder sql = new StringBuilder(sqlStatement);
-        Pattern whereClausePattern = Pattern.compile(SQL_STATEMENT_PATTERN_WHERE, Pattern.CASE_INSENSITIVE);
-        Matcher whereClauseMatcher = whereClausePattern.matcher(sql);
+        Matcher whereClauseMatcher = SQL_STATEMENT_PATTERN_WHERE.matcher(sql);
         // 查找 where 子句的位置
         if (whereClauseMatcher.find()) {
             int start = whereClauseMatcher.start();
             int end = whereClauseMatcher.end();
             String clause = whereClauseMatcher.group();
             log.debug("在原SQL语句 {} 到 {} 找到 {}", start, end, clause);
-            String newSetClause = ", " + FIELD_MODIFIED + "='" + dateTime + "'";
+            String newSetClause = ", " + FIELD_MODIFIED + "=" + timeValue;
             sql.insert(start, newSetClause);
             log.debug("在原SQL语句 {} 插入 {}", start, newSetClause);
             log.debug("生成SQL: {}", sql);
@@ -144,18 +215,16 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
         return null;
     }
 
-    public String appendCreateTimeField(String sqlStatement, LocalDateTime dateTime) {
+    private String appendCreateTimeField(String sqlStatement, String timeValue) {
         // 如果 SQL 中已经包含 gmt_create 就不在添加这两个字段了
-        Pattern gmtPattern = Pattern.compile(SQL_STATEMENT_PATTERN_CREATE, Pattern.CASE_INSENSITIVE);
-        if (gmtPattern.matcher(sqlStatement).find()) {
+        if (SQL_STATEMENT_PATTERN_CREATE.matcher(sqlStatement).find()) {
             log.debug("已经包含 gmt_create 不再添加 时间字段");
             return null;
         }
         // INSERT into table (xx, xx, xx ) values (?,?,?)
         // 查找 ) values ( 的位置
         StringBuilder sql = new StringBuilder(sqlStatement);
-        Pattern valuesClausePattern = Pattern.compile(SQL_STATEMENT_PATTERN_VALUES, Pattern.CASE_INSENSITIVE);
-        Matcher valuesClauseMatcher = valuesClausePattern.matcher(sql);
+        Matcher valuesClauseMatcher = SQL_STATEMENT_PATTERN_VALUES.matcher(sql);
         // 查找 ") values " 的位置
         if (valuesClauseMatcher.find()) {
             int start = valuesClauseMatcher.start();
@@ -166,11 +235,10 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
             String fieldNames = ", " + FIELD_CREATE + ", " + FIELD_MODIFIED;
             sql.insert(start, fieldNames);
             log.debug("插入字段列表{}", fieldNames);
-            // 定义查找参数值位置的 正则表达 “)”
-            Pattern paramPositionPattern = Pattern.compile("\\)");
-            Matcher paramPositionMatcher = paramPositionPattern.matcher(sql);
+            // 查找参数值位置的 正则表达 “)”
+            Matcher paramPositionMatcher = SQL_STATEMENT_PATTERN_PARAM_END.matcher(sql);
             // 从 ) values ( 的后面位置 end 开始查找 结束括号的位置
-            String param = ", '" + dateTime + "', '" + dateTime + "'";
+            String param = ", " + timeValue + ", " + timeValue;
             int position = end + fieldNames.length();
             while (paramPositionMatcher.find(position)) {
                 start = paramPositionMatcher.start();
@@ -227,28 +295,96 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
     }
 
     /**
-     * 从BoundSql对象中获取SQL语句
+     * 判断SQL语句是否以INSERT或UPDATE开头，不区分大小写，此方法不创建任何对象
+     *
+     * @param sql 原SQL语句
+     * @return SQL语句以INSERT或UPDATE开头时返回true，否则返回false
+     */
+    private static boolean isInsertOrUpdate(String sql) {
+        int i = 0;
+        int length = sql.length();
+        while (i < length && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return sql.regionMatches(true, i, "insert", 0, 6) || sql.regionMatches(true, i, "update", 0, 6);
+    }
+
+    /**
+     * 获取SQL模板，不存在时生成并缓存
+     *
+     * @param sql 原SQL语句
+     * @return SQL模板，不需要改写时返回{@link #NO_REWRITE}
+     */
+    private SqlTemplate getTemplate(String sql) {
+        SqlTemplate template = templateCache.get(sql);
+        if (template == null) {
+            template = createTemplate(sql);
+            if (templateCache.size() < MAX_CACHED_TEMPLATES) {
+                templateCache.put(sql, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * 生成SQL模板，即：在时间值的位置使用标记改写SQL语句，记录各标记之前的占位符数量，再将标记替换为占位符
      *
-     * @param boundSql BoundSql对象
-     * @return 将BoundSql对象中封装的SQL语句进行转换小写、去除多余空白后的SQL语句
+     * @param originalSql 原SQL语句
+     * @return SQL模板，不需要改写时返回{@link #NO_REWRITE}
      */
-    private String getSql(BoundSql boundSql) {
-        return boundSql.getSql().toLowerCase().replaceAll("\\s+", " ").trim();
+    private SqlTemplate createTemplate(String originalSql) {
+        String sql = normalizeSql(originalSql);
+        // 日志
+        log.debug("生成SQL模板，原SQL语句：{}", sql);
+        // 准备新SQL语句
+        String newSql = null;
+        // 判断原SQL类型
+        switch (getOriginalSqlType(sql)) {
+            case SQL_TYPE_INSERT:
+                // 日志
+                log.debug("原SQL语句是【INSERT】语句，准备补充更新时间……");
+                // 准备新SQL语句
+                newSql = appendCreateTimeField(sql, TIME_MARKER);
+                break;
+            case SQL_TYPE_UPDATE:
+                // 日志
+                log.debug("原SQL语句是【UPDATE】语句，准备补充更新时间……");
+                // 准备新SQL语句
+                newSql = appendModifiedTimeField(sql, TIME_MARKER);
+                break;
+        }
+        if (newSql == null) {
+            return NO_REWRITE;
+        }
+        // 统计各标记之前的占位符数量（不包括字符串中的问号），即时间参数在参数映射列表中的位置
+        int[] timeParameterIndexes = new int[0];
+        int placeholderCount = 0;
+        boolean inString = false;
+        StringBuilder templateSql = new StringBuilder(newSql.length());
+        for (int i = 0; i < newSql.length(); i++) {
+            char c = newSql.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (c == '?' && !inString) {
+                placeholderCount++;
+            } else if (c == TIME_MARKER.charAt(0)) {
+                timeParameterIndexes = Arrays.copyOf(timeParameterIndexes, timeParameterIndexes.length + 1);
+                timeParameterIndexes[timeParameterIndexes.length - 1] = placeholderCount;
+                c = '?';
+            }
+            templateSql.append(c);
+        }
+        return new SqlTemplate(templateSql.toString(), timeParameterIndexes, placeholderCount);
     }
 
     /**
-     * <p>通过反射，设置某个对象的某个属性的值</p>
+     * 将SQL语句转换小写、去除多余空白
      *
-     * @param object         需要设置值的对象
-     * @param attributeName  需要设置值的属性名称
-     * @param attributeValue 新的值
-     * @throws NoSuchFieldException   无此字段异常
-     * @throws IllegalAccessException 非法访问异常
+     * @param sql 原SQL语句
+     * @return 将SQL语句进行转换小写、去除多余空白后的SQL语句
      */
-    private void reflectAttributeValue(Object object, String attributeName, String attributeValue) throws NoSuchFieldException, IllegalAccessException {
-        Field field = object.getClass().getDeclaredField(attributeName);
-        field.setAccessible(true);
-        field.set(object, attributeValue);
+    private String normalizeSql(String sql) {
+        return SQL_STATEMENT_PATTERN_WHITESPACE.matcher(sql.toLowerCase()).replaceAll(" ").trim();
     }
 
     /**
@@ -258,16 +394,59 @@ public class InsertUpdateTimeInterceptor implements Interceptor {
      * @return SQL语句类型
      */
     private int getOriginalSqlType(String sql) {
-        Pattern pattern;
-        pattern = Pattern.compile(SQL_TYPE_PATTERN_INSERT, Pattern.CASE_INSENSITIVE);
-        if (pattern.matcher(sql).find()) {
+        if (SQL_TYPE_PATTERN_INSERT.matcher(sql).find()) {
             return SQL_TYPE_INSERT;
         }
-        pattern = Pattern.compile(SQL_TYPE_PATTERN_UPDATE, Pattern.CASE_INSENSITIVE);
-        if (pattern.matcher(sql).find()) {
+        if (SQL_TYPE_PATTERN_UPDATE.matcher(sql).find()) {
             return SQL_TYPE_UPDATE;
         }
         return SQL_TYPE_OTHER;
     }
 
-}
\ No newline at end of file
+    /**
+     * SQL模板，创建后不再修改
+     */
+    private static final class SqlTemplate {
+
+        /**
+         * 改写后的SQL语句，时间值使用“?”占位符
+         */
+        private final String sql;
+        /**
+         * 各时间参数在参数映射列表中的位置，即：其前面的原参数的数量，升序排列
+         */
+        private final int[] timeParameterIndexes;
+        /**
+         * 原SQL语句中的占位符数量
+         */
+        private final int parameterCount;
+
+        private SqlTemplate(String sql, int[] timeParameterIndexes, int parameterCount) {
+            this.sql = sql;
+            this.timeParameterIndexes = timeParameterIndexes;
+            this.parameterCount = parameterCount;
+        }
+
+        /**
+         * 在原参数映射列表中添加时间参数
+         *
+         * @param parameterMappings    原参数映射列表
+         * @param timeParameterMapping 时间参数的映射
+         * @return 新的参数映射列表
+         */
+        private List<ParameterMapping> addTimeParameters(List<ParameterMapping> parameterMappings,
+                                                         ParameterMapping timeParameterMapping) {
+            List<ParameterMapping> result = new ArrayList<>(parameterMappings.size() + timeParameterIndexes.length);
+            int from = 0;
+            for (int index : timeParameterIndexes) {
+                result.addAll(parameterMappings.subList(from, index));
+                result.add(timeParameterMapping);
+                from = index;
+            }
+            result.addAll(parameterMappings.subList(from, parameterMappings.size()));
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,272 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import cn.tedu.csmall.passport.pojo.vo.SqlStatementStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>SQL语句执行情况的统计</p>
+ *
+ * <p>由{@link SqlStatsInterceptor}记录每条SQL语句（MappedStatement）的每次执行，用于发现耗时较长的SQL语句：</p>
+ *
+ * <ul>
+ *     <li>按MappedStatement的id分别统计执行次数、出错次数、返回或受影响的行数、耗时，以及耗时的分布（直方图），
+ *     记录时只累加计数器，不加锁</li>
+ *     <li>直方图的每个区间的上限约是下限的1.25倍，所以根据直方图计算的百分位耗时（例如p99）是近似值，误差不超过25%</li>
+ *     <li>耗时超过阈值的是慢SQL，将输出日志，每条SQL语句的第1次及此后每隔若干次慢执行，在日志中输出参数值（密码等敏感参数除外）</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class SqlStats {
+
+    /**
+     * 日志中每个参数值最多输出的字符数
+     */
+    private static final int MAX_LOGGED_VALUE_LENGTH = 64;
+    /**
+     * 日志中SQL语句最多输出的字符数
+     */
+    private static final int MAX_LOGGED_SQL_LENGTH = 500;
+
+    @Value("${csmall.mybatis.stats.slow-threshold-in-millis}")
+    private long slowThresholdInMillis;
+    @Value("${csmall.mybatis.stats.parameter-sample-interval}")
+    private int parameterSampleInterval;
+
+    private final Map<String, StatementStats> statsById = new ConcurrentHashMap<>();
+
+    public SqlStats() {
+        log.debug("创建SQL语句执行情况的统计对象：SqlStats");
+    }
+
+    /**
+     * 记录SQL语句的1次执行
+     *
+     * @param mappedStatement 执行的SQL语句
+     * @param parameter       执行时的参数
+     * @param nanos           耗时，以纳秒为单位
+     * @param rows            返回或受影响的行数
+     * @param error           执行时是否出错
+     */
+    public void record(MappedStatement mappedStatement, Object parameter, long nanos, int rows, boolean error) {
+        String id = mappedStatement.getId();
+        StatementStats stats = statsById.get(id);
+        if (stats == null) {
+            stats = statsById.computeIfAbsent(id, StatementStats::new);
+        }
+        stats.record(nanos, rows, error);
+        if (slowThresholdInMillis > 0 && nanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdInMillis)) {
+            stats.slow.increment();
+            logSlowStatement(mappedStatement, parameter, nanos, rows, stats.slow.sum());
+        }
+    }
+
+    /**
+     * @return 所有已执行的SQL语句的统计信息，按总耗时降序排列
+     */
+    public List<SqlStatementStatsVO> getStatementStats() {
+        List<SqlStatementStatsVO> list = new ArrayList<>(statsById.size());
+        for (StatementStats stats : statsById.values()) {
+            list.add(stats.toVO());
+        }
+        list.sort(Comparator.comparing(SqlStatementStatsVO::getTotalMillis).reversed());
+        return list;
+    }
+
+    private void logSlowStatement(MappedStatement mappedStatement, Object parameter, long nanos, int rows, long slowCount) {
+        double millis = nanos / 1e6;
+        try {
+            BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+            String sql = truncate(boundSql.getSql().replaceAll("\\s+", " ").trim(), MAX_LOGGED_SQL_LENGTH);
+            if (parameterSampleInterval > 0 && (slowCount - 1) % parameterSampleInterval == 0) {
+                log.warn("慢SQL：{}，耗时{}毫秒，行数：{}，SQL语句：{}，参数：{}",
+                        mappedStatement.getId(), millis, rows, sql, getParameters(mappedStatement, boundSql, parameter));
+            } else {
+                log.warn("慢SQL：{}，耗时{}毫秒，行数：{}，SQL语句：{}", mappedStatement.getId(), millis, rows, sql);
+            }
+        } catch (RuntimeException e) {
+            // 输出日志失败不应影响SQL语句的执行结果
+            log.warn("慢SQL：{}，耗时{}毫秒，行数：{}，获取SQL语句失败：{}", mappedStatement.getId(), millis, rows, e.getMessage());
+        }
+    }
+
+    /**
+     * 获取各占位符对应的参数值，取值方式与MyBatis的DefaultParameterHandler一致
+     */
+    private static List<String> getParameters(MappedStatement mappedStatement, BoundSql boundSql, Object parameter) {
+        Configuration configuration = mappedStatement.getConfiguration();
+        MetaObject metaObject = null;
+        List<String> parameters = new ArrayList<>();
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameter);
+                }
+                value = metaObject.getValue(property);
+            }
+            // 不输出密码
+            String text = property.toLowerCase().contains("password") ? "******"
+                    : truncate(String.valueOf(value), MAX_LOGGED_VALUE_LENGTH);
+            parameters.add(property + "=" + text);
+        }
+        return parameters;
+    }
+
+    private static String truncate(String text, int maxLength) {
+        return text.length() <= maxLength ? text : text.substring(0, maxLength) + "...";
+    }
+
+    /**
+     * 1条SQL语句的统计信息，所有方法都是线程安全的，且不加锁
+     */
+    static final class StatementStats {
+
+        /**
+         * 耗时小于此值（微秒）的，每微秒1个区间
+         */
+        private static final int LINEAR_MICROS = 4;
+        /**
+         * 此后耗时每增加1倍，分为此数量的区间
+         */
+        private static final int SUB_BUCKETS = 4;
+        /**
+         * 最大的以2为底的耗时（微秒）的对数，更长的耗时（约4.7小时）计入最后1个区间
+         */
+        private static final int MAX_EXPONENT = 34;
+        private static final int BUCKETS = LINEAR_MICROS + (MAX_EXPONENT - 1) * SUB_BUCKETS;
+
+        private final String id;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        StatementStats(String id) {
+            this.id = id;
+        }
+
+        void record(long nanos, int rows, boolean error) {
+            count.increment();
+            if (error) {
+                errors.increment();
+            }
+            if (rows > 0) {
+                this.rows.add(rows);
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            histogram.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        }
+
+        /**
+         * 计算耗时所在的区间：[0, 4)微秒每微秒1个区间，此后[2^e, 2^(e+1))微秒平均分为4个区间
+         */
+        static int bucketOf(long micros) {
+            if (micros < LINEAR_MICROS) {
+                return (int) Math.max(micros, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            if (exponent > MAX_EXPONENT) {
+                return BUCKETS - 1;
+            }
+            int subBucket = (int) (micros >> (exponent - 2)) - SUB_BUCKETS;
+            return Math.min(LINEAR_MICROS + (exponent - 2) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+        }
+
+        /**
+         * @return 区间的上限（不包含），以微秒为单位
+         */
+        static long bucketUpperMicros(int bucket) {
+            if (bucket < LINEAR_MICROS) {
+                return bucket + 1;
+            }
+            int exponent = (bucket - LINEAR_MICROS) / SUB_BUCKETS + 2;
+            int subBucket = (bucket - LINEAR_MICROS) % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - 2);
+        }
+
+        /**
+         * 根据直方图计算百分位耗时，返回所在区间的上限，但不超过最长耗时
+         *
+         * @param percentile 百分位，例如0.99
+         * @return 百分位耗时（毫秒），尚未执行时返回0
+         */
+        double percentileMillis(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            int bucket = BUCKETS - 1;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    bucket = i;
+                    break;
+                }
+            }
+            return Math.min(bucketUpperMicros(bucket) / 1e3, maxNanos.get() / 1e6);
+        }
+
+        SqlStatementStatsVO toVO() {
+            long count = this.count.sum();
+            long totalNanos = this.totalNanos.sum();
+            SqlStatementStatsVO vo = new SqlStatementStatsVO();
+            vo.setStatementId(id);
+            vo.setCount(count);
+            vo.setErrors(errors.sum());
+            vo.setRows(rows.sum());
+            vo.setSlow(slow.sum());
+            vo.setTotalMillis(totalNanos / 1e6);
+            vo.setAverageMillis(count == 0 ? 0 : totalNanos / 1e6 / count);
+            vo.setMaxMillis(maxNanos.get() / 1e6);
+            vo.setP50Millis(percentileMillis(0.5));
+            vo.setP95Millis(percentileMillis(0.95));
+            vo.setP99Millis(percentileMillis(0.99));
+            return vo;
+        }
+
+    }
+
+}
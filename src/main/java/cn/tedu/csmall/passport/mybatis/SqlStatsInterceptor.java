@@ -0,0 +1,102 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * <p>基于MyBatis的统计SQL语句执行情况的拦截器</p>
+ *
+ * <p>拦截Executor的update、query、queryCursor方法，记录每次执行的耗时、返回或受影响的行数、是否出错，
+ * 由{@link SqlStats}统计，并输出慢SQL的日志</p>
+ *
+ * <p>注意：</p>
+ *
+ * <ul>
+ * <li>耗时包括从执行SQL语句到处理完结果集（通过Cursor查询时，仅包括打开Cursor）的时间，查询结果来自MyBatis缓存时，耗时很短</li>
+ * <li>通过ResultHandler或Cursor处理的查询结果，不计入返回的行数</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Intercepts({
+        @Signature(
+                type = Executor.class,
+                method = "update",
+                args = {MappedStatement.class, Object.class}
+        ),
+        @Signature(
+                type = Executor.class,
+                method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}
+        ),
+        @Signature(
+                type = Executor.class,
+                method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}
+        )
+})
+public class SqlStatsInterceptor implements Interceptor {
+
+    private final SqlStats sqlStats;
+
+    public SqlStatsInterceptor(SqlStats sqlStats) {
+        this.sqlStats = sqlStats;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement mappedStatement = (MappedStatement) args[0];
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            sqlStats.record(mappedStatement, args[1], System.nanoTime() - start, 0, true);
+            throw e;
+        }
+        sqlStats.record(mappedStatement, args[1], System.nanoTime() - start, getRows(result), false);
+        return result;
+    }
+
+    /**
+     * 获取返回或受影响的行数
+     *
+     * @param result Executor的方法的返回值
+     * @return 查询结果的数量，或受影响的行数，无法确定时返回0
+     */
+    private static int getRows(Object result) {
+        if (result instanceof List) {
+            return ((List<?>) result).size();
+        }
+        // 批量执行器返回的是负数的常量，并不表示受影响的行数
+        if (result instanceof Integer && (Integer) result > 0) {
+            return (Integer) result;
+        }
+        return 0;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        } else {
+            return target;
+        }
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 无须执行操作
+    }
+
+}
@@ -0,0 +1,97 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import cn.tedu.csmall.passport.cache.TableVersions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>基于MyBatis的更新数据表版本的拦截器</p>
+ *
+ * <p>拦截Executor的update方法（INSERT、UPDATE、DELETE均通过此方法执行），执行成功后，更新SQL语句所修改的数据表的版本</p>
+ *
+ * <p>SQL语句所修改的数据表根据SQL语句的开头部分解析，每条SQL语句（MappedStatement）只解析1次</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Intercepts({@Signature(
+        type = Executor.class,
+        method = "update",
+        args = {MappedStatement.class, Object.class}
+)})
+public class TableVersionInterceptor implements Interceptor {
+
+    /**
+     * 查找SQL语句所修改的数据表的正则表达式
+     */
+    private static final Pattern TABLE_PATTERN = Pattern.compile(
+            "^\\s*(?:insert\\s+(?:ignore\\s+)?into|replace\\s+into|update|delete\\s+from)\\s+`?(\\w+)`?",
+            Pattern.CASE_INSENSITIVE);
+    /**
+     * 无法解析出数据表时使用的值
+     */
+    private static final String UNKNOWN_TABLE = "";
+
+    private final TableVersions tableVersions;
+    private final Map<String, String> tableByStatementId = new ConcurrentHashMap<>();
+
+    public TableVersionInterceptor(TableVersions tableVersions) {
+        this.tableVersions = tableVersions;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        // 批量执行器返回的是负数的常量，并不表示没有修改数据
+        if (result instanceof Integer && (Integer) result == 0) {
+            return result;
+        }
+        Object[] args = invocation.getArgs();
+        MappedStatement mappedStatement = (MappedStatement) args[0];
+        String table = tableByStatementId.computeIfAbsent(mappedStatement.getId(),
+                id -> parseTable(mappedStatement.getBoundSql(args[1]).getSql()));
+        if (!UNKNOWN_TABLE.equals(table)) {
+            tableVersions.changed(table);
+        }
+        return result;
+    }
+
+    /**
+     * 解析SQL语句所修改的数据表
+     *
+     * @param sql SQL语句
+     * @return 数据表的名称（小写），如果无法解析，则返回空字符串
+     */
+    static String parseTable(String sql) {
+        Matcher matcher = TABLE_PATTERN.matcher(sql);
+        if (matcher.find()) {
+            return matcher.group(1).toLowerCase();
+        }
+        log.warn("无法解析SQL语句所修改的数据表，将不更新数据表的版本：{}", sql);
+        return UNKNOWN_TABLE;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        } else {
+            return target;
+        }
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 无须执行操作
+    }
+
+}
@@ -0,0 +1,42 @@
+package cn.tedu.csmall.passport.pojo.entity;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 角色与权限的关联
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class RolePermission implements Serializable {
+
+    /**
+     * 数据id
+     */
+    private Long id;
+
+    /**
+     * 角色id
+     */
+    private Long roleId;
+
+    /**
+     * 权限id
+     */
+    private Long permissionId;
+
+    /**
+     * 数据创建时间
+     */
+    private LocalDateTime gmtCreate;
+
+    /**
+     * 数据最后修改时间
+     */
+    private LocalDateTime gmtModified;
+
+}
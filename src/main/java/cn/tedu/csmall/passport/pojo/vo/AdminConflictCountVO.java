@@ -0,0 +1,31 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 与新管理员的唯一字段冲突的数据统计VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class AdminConflictCountVO implements Serializable {
+
+    /**
+     * 用户名相同的管理员数据的数量
+     */
+    private Integer usernameCount;
+
+    /**
+     * 手机号码相同的管理员数据的数量
+     */
+    private Integer phoneCount;
+
+    /**
+     * 电子邮箱相同的管理员数据的数量
+     */
+    private Integer emailCount;
+
+}
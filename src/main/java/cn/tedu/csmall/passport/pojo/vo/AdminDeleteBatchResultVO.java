@@ -0,0 +1,27 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量删除管理员的结果VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class AdminDeleteBatchResultVO implements Serializable {
+
+    /**
+     * 已删除的管理员id
+     */
+    private List<Long> deletedIds;
+
+    /**
+     * 不存在的管理员id，因此未删除
+     */
+    private List<Long> missingIds;
+
+}
@@ -0,0 +1,41 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 批量导入管理员时，每行数据的导入结果VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class AdminImportResultVO implements Serializable {
+
+    /**
+     * 行号，从1开始
+     */
+    private Integer row;
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 导入成功时，新管理员的id
+     */
+    private Long id;
+
+    /**
+     * 业务状态码，与JsonResult中的state相同
+     */
+    private Integer state;
+
+    /**
+     * 导入失败时的错误信息
+     */
+    private String message;
+
+}
@@ -0,0 +1,41 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 批量导入管理员的汇总结果VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class AdminImportSummaryVO implements Serializable {
+
+    /**
+     * 读取到的数据的行数
+     */
+    private Integer total;
+
+    /**
+     * 导入成功的行数
+     */
+    private Integer succeeded;
+
+    /**
+     * 导入失败的行数
+     */
+    private Integer failed;
+
+    /**
+     * 导入耗时，以毫秒为单位
+     */
+    private Long durationInMillis;
+
+    /**
+     * 导入中止的原因，全部数据都已处理时为null
+     */
+    private String message;
+
+}
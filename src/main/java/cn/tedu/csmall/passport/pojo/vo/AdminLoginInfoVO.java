@@ -40,4 +40,9 @@ public class AdminLoginInfoVO implements Serializable {
      */
     private List<String> permissions;
 
+    /**
+     * 角色id列表
+     */
+    private List<Long> roleIds;
+
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 基于游标分页的查询结果VO类
+ *
+ * @param <T> 列表项的类型
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class CursorPageVO<T> implements Serializable {
+
+    /**
+     * 当前页的数据列表
+     */
+    private List<T> list;
+
+    /**
+     * 查询下一页时使用的游标，如果没有下一页，则为null
+     */
+    private String nextCursor;
+
+}
@@ -0,0 +1,36 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * JWT缓存的统计信息VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class JwtCacheStatsVO implements Serializable {
+
+    /**
+     * 当前缓存项的数量
+     */
+    private Integer size;
+
+    /**
+     * 累计命中次数
+     */
+    private Long hits;
+
+    /**
+     * 累计未命中次数
+     */
+    private Long misses;
+
+    /**
+     * 累计淘汰的缓存项数量
+     */
+    private Long evictions;
+
+}
@@ -0,0 +1,66 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 登录任务执行器的统计信息VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class LoginExecutorStatsVO implements Serializable {
+
+    /**
+     * 执行登录任务的线程数量
+     */
+    private Integer poolSize;
+
+    /**
+     * 正在执行登录任务的线程数量
+     */
+    private Integer activeCount;
+
+    /**
+     * 正在排队等待的登录任务数量
+     */
+    private Integer queueSize;
+
+    /**
+     * 队列容量
+     */
+    private Integer queueCapacity;
+
+    /**
+     * 累计提交的登录任务数量
+     */
+    private Long submitted;
+
+    /**
+     * 累计执行完成的登录任务数量
+     */
+    private Long completed;
+
+    /**
+     * 累计因队列已满被拒绝的登录请求数量
+     */
+    private Long rejected;
+
+    /**
+     * 累计因排队等待超时被拒绝的登录任务数量
+     */
+    private Long expired;
+
+    /**
+     * 平均排队等待时间（毫秒）
+     */
+    private Double averageWaitMillis;
+
+    /**
+     * 最长排队等待时间（毫秒）
+     */
+    private Double maxWaitMillis;
+
+}
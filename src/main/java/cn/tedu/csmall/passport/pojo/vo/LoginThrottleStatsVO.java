@@ -0,0 +1,41 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 登录限流器的统计信息VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class LoginThrottleStatsVO implements Serializable {
+
+    /**
+     * 当前按用户名计数的计数器数量
+     */
+    private Integer usernameKeys;
+
+    /**
+     * 当前按客户端IP计数的计数器数量
+     */
+    private Integer ipKeys;
+
+    /**
+     * 累计因用户名的尝试次数超出限制而被拒绝的登录请求数量
+     */
+    private Long rejectedByUsername;
+
+    /**
+     * 累计因客户端IP的尝试次数超出限制而被拒绝的登录请求数量
+     */
+    private Long rejectedByIp;
+
+    /**
+     * 累计淘汰的计数器数量
+     */
+    private Long evictions;
+
+}
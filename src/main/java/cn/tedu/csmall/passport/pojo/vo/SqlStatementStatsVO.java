@@ -0,0 +1,71 @@
+package cn.tedu.csmall.passport.pojo.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * SQL语句执行情况的统计信息VO类
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Data
+public class SqlStatementStatsVO implements Serializable {
+
+    /**
+     * SQL语句（MappedStatement）的id，即Mapper接口的全限定名与方法名
+     */
+    private String statementId;
+
+    /**
+     * 累计执行次数
+     */
+    private Long count;
+
+    /**
+     * 累计出错次数
+     */
+    private Long errors;
+
+    /**
+     * 累计返回（查询）或受影响（增删改）的行数
+     */
+    private Long rows;
+
+    /**
+     * 累计耗时超过阈值的执行次数
+     */
+    private Long slow;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private Double totalMillis;
+
+    /**
+     * 平均耗时（毫秒）
+     */
+    private Double averageMillis;
+
+    /**
+     * 最长耗时（毫秒）
+     */
+    private Double maxMillis;
+
+    /**
+     * 耗时的中位数（毫秒），近似值
+     */
+    private Double p50Millis;
+
+    /**
+     * 95%的执行不超过此耗时（毫秒），近似值
+     */
+    private Double p95Millis;
+
+    /**
+     * 99%的执行不超过此耗时（毫秒），近似值
+     */
+    private Double p99Millis;
+
+}
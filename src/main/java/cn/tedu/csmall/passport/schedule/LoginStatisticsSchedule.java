@@ -0,0 +1,143 @@
+package cn.tedu.csmall.passport.schedule;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>管理员登录统计的计划任务</p>
+ *
+ * <p>管理员登录成功时，只在内存中累计登录次数、记录最后登录的IP和时间，不直接写数据库，
+ * 由计划任务定期将累计的数据通过1条UPDATE语句批量写入数据库，关闭时也会写入尚未写入的数据</p>
+ *
+ * <p>写入数据库失败时，累计的数据将被合并回内存，下次执行计划任务时再次写入</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class LoginStatisticsSchedule {
+
+    /**
+     * 每条UPDATE语句最多更新的管理员数量
+     */
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    private final Map<Long, Statistics> pending = new ConcurrentHashMap<>();
+
+    public LoginStatisticsSchedule() {
+        log.debug("创建计划任务对象：LoginStatisticsSchedule");
+    }
+
+    /**
+     * 记录一次成功的登录
+     *
+     * @param adminId    管理员id
+     * @param remoteAddr 客户端IP
+     */
+    public void record(Long adminId, String remoteAddr) {
+        LocalDateTime now = LocalDateTime.now();
+        pending.compute(adminId, (id, statistics) -> {
+            if (statistics == null) {
+                statistics = new Statistics();
+            }
+            statistics.loginCount++;
+            statistics.lastLoginIp = remoteAddr;
+            statistics.gmtLastLogin = now;
+            return statistics;
+        });
+    }
+
+    /**
+     * 获取尚未写入数据库的管理员数量
+     */
+    public int getPendingSize() {
+        return pending.size();
+    }
+
+    /**
+     * 将累计的登录统计数据写入数据库
+     */
+    @Scheduled(fixedDelayString = "${csmall.login.statistics.flush-interval-in-millis}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 逐个移除再写入，移除后的登录将累计到新的统计数据中，不会丢失
+        List<Admin> adminList = new ArrayList<>(pending.size());
+        for (Long adminId : pending.keySet()) {
+            Statistics statistics = pending.remove(adminId);
+            if (statistics != null) {
+                Admin admin = new Admin();
+                admin.setId(adminId);
+                admin.setLoginCount(statistics.loginCount);
+                admin.setLastLoginIp(statistics.lastLoginIp);
+                admin.setGmtLastLogin(statistics.gmtLastLogin);
+                adminList.add(admin);
+            }
+        }
+        for (int i = 0; i < adminList.size(); i += BATCH_SIZE) {
+            List<Admin> batch = adminList.subList(i, Math.min(i + BATCH_SIZE, adminList.size()));
+            try {
+                int rows = adminMapper.updateLoginStatisticsBatch(batch);
+                log.debug("已写入{}个管理员的登录统计数据，受影响的行数：{}", batch.size(), rows);
+            } catch (RuntimeException e) {
+                log.warn("写入管理员的登录统计数据失败，将在下次重试：{}", e.getMessage());
+                for (Admin admin : adminList.subList(i, adminList.size())) {
+                    restore(admin);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 关闭时写入尚未写入的数据
+     */
+    @PreDestroy
+    public void destroy() {
+        log.debug("即将关闭，写入尚未写入的登录统计数据，管理员数量：{}", pending.size());
+        flush();
+    }
+
+    /**
+     * 将写入失败的数据合并回内存
+     */
+    private void restore(Admin admin) {
+        pending.compute(admin.getId(), (id, statistics) -> {
+            if (statistics == null) {
+                statistics = new Statistics();
+                statistics.lastLoginIp = admin.getLastLoginIp();
+                statistics.gmtLastLogin = admin.getGmtLastLogin();
+            }
+            statistics.loginCount += admin.getLoginCount();
+            return statistics;
+        });
+    }
+
+    /**
+     * 某个管理员累计的登录统计数据，只在ConcurrentHashMap.compute()中修改
+     */
+    private static final class Statistics {
+
+        private int loginCount;
+        private String lastLoginIp;
+        private LocalDateTime gmtLastLogin;
+
+    }
+
+}
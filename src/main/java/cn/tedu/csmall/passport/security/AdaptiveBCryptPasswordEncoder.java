@@ -0,0 +1,174 @@
+package cn.tedu.csmall.passport.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * <p>可校准强度的BCrypt密码编码器</p>
+ *
+ * <p>BCrypt的强度每增加1，计算耗时就增加1倍，合适的强度取决于服务器的硬件和登录的响应时间要求，
+ * 可以在启动时调用{@link #calibrate(long, int, int)}，在当前服务器上选出耗时不超过预算的最大强度</p>
+ *
+ * <p>每次测量的耗时都有波动，耗时接近预算时，每次启动校准的结果可能不同，导致已保存的密码反复被重新编码，
+ * 所以应使用{@link #calibrate(long, int, int, int)}，当前强度的耗时仍在预算内时保持不变</p>
+ *
+ * <p>与父类不同，只要已保存的密文的强度与当前强度不同（无论更高或更低），{@link #upgradeEncoding(String)}都返回true，
+ * 以便在管理员登录成功后重新编码其密码</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    /**
+     * 校准时每个强度的计算次数，取中位数作为耗时
+     */
+    private static final int CALIBRATE_ROUNDS = 3;
+    /**
+     * 保持当前强度时，仅当强度加1后的耗时不超过预算的此比例，才提高强度
+     */
+    private static final double RAISE_HEADROOM = 0.8;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+        log.debug("创建密码编码器对象：AdaptiveBCryptPasswordEncoder，强度：{}", strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int encodedStrength = getStrength(encodedPassword);
+        return encodedStrength > 0 && encodedStrength != strength;
+    }
+
+    /**
+     * 获取BCrypt密文的强度
+     *
+     * @param encodedPassword BCrypt密文，格式为：$2a$10$...
+     * @return 密文的强度，如果不是BCrypt密文，则返回0
+     */
+    public static int getStrength(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return 0;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9') {
+            return 0;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    /**
+     * 在当前服务器上校准BCrypt的强度
+     *
+     * @param latencyBudgetInMillis 每次计算的耗时预算（毫秒）
+     * @param minStrength           最小强度，即使耗时超出预算，也不会低于此强度
+     * @param maxStrength           最大强度
+     * @return 耗时不超过预算的最大强度
+     */
+    public static int calibrate(long latencyBudgetInMillis, int minStrength, int maxStrength) {
+        long start = System.currentTimeMillis();
+        warmUp();
+        // 先测量最小强度的耗时，再按“强度每增加1，耗时增加1倍”推算合适的强度
+        double minStrengthMillis = measure(minStrength);
+        int strength = minStrength;
+        while (strength < maxStrength && minStrengthMillis * (1L << (strength + 1 - minStrength)) <= latencyBudgetInMillis) {
+            strength++;
+        }
+        // 推算的结果只是估计值，实际测量后如果超出预算，则降低强度
+        double strengthMillis = strength == minStrength ? minStrengthMillis : measure(strength);
+        while (strength > minStrength && strengthMillis > latencyBudgetInMillis) {
+            strength--;
+            strengthMillis /= 2;
+        }
+        log.info("BCrypt强度校准完成，耗时预算：{}毫秒，强度：{}，每次计算耗时约：{}毫秒，校准耗时：{}毫秒",
+                latencyBudgetInMillis, strength, Math.round(strengthMillis), System.currentTimeMillis() - start);
+        return strength;
+    }
+
+    /**
+     * 在当前服务器上校准BCrypt的强度，当前强度的耗时仍在预算内时保持不变
+     *
+     * <p>仅当当前强度的耗时超出预算，或强度加1后的耗时仍明显低于预算时，才重新校准</p>
+     *
+     * @param latencyBudgetInMillis 每次计算的耗时预算（毫秒）
+     * @param minStrength           最小强度，即使耗时超出预算，也不会低于此强度
+     * @param maxStrength           最大强度
+     * @param currentStrength       当前强度
+     * @return 校准后的强度
+     */
+    public static int calibrate(long latencyBudgetInMillis, int minStrength, int maxStrength, int currentStrength) {
+        if (currentStrength >= minStrength && currentStrength <= maxStrength) {
+            warmUp();
+            double currentMillis = measure(currentStrength);
+            if (keepsCurrentStrength(currentMillis, latencyBudgetInMillis, currentStrength, maxStrength)) {
+                log.info("BCrypt强度校准完成，耗时预算：{}毫秒，当前强度：{}，每次计算耗时约：{}毫秒，仍在预算内，保持不变",
+                        latencyBudgetInMillis, currentStrength, Math.round(currentMillis));
+                return currentStrength;
+            }
+        }
+        int strength = calibrate(latencyBudgetInMillis, minStrength, maxStrength);
+        if (strength != currentStrength) {
+            log.warn("BCrypt强度由{}调整为{}，已保存的密码将在管理员登录成功后重新编码，建议将配置的强度修改为{}",
+                    currentStrength, strength, strength);
+        }
+        return strength;
+    }
+
+    /**
+     * 判断是否保持当前强度：当前强度的耗时在预算内，且已是最大强度，或强度加1后的耗时将超出预算的一定比例
+     *
+     * @param currentMillis         当前强度的耗时（毫秒）
+     * @param latencyBudgetInMillis 每次计算的耗时预算（毫秒）
+     * @param currentStrength       当前强度
+     * @param maxStrength           最大强度
+     * @return 如果保持当前强度，则返回true，否则返回false，表示需要重新校准
+     */
+    static boolean keepsCurrentStrength(double currentMillis, long latencyBudgetInMillis,
+                                        int currentStrength, int maxStrength) {
+        return currentMillis <= latencyBudgetInMillis
+                && (currentStrength == maxStrength || currentMillis * 2 > latencyBudgetInMillis * RAISE_HEADROOM);
+    }
+
+    /**
+     * 以最低强度计算若干次，使JIT编译完成，避免首次测量的耗时偏高
+     */
+    private static void warmUp() {
+        BCryptPasswordEncoder warmUpEncoder = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 20; i++) {
+            warmUpEncoder.encode("calibrate");
+        }
+    }
+
+    /**
+     * 测量指定强度的BCrypt计算耗时
+     *
+     * @return 多次计算耗时的中位数（毫秒）
+     */
+    private static double measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        // 预热
+        encoder.encode("calibrate");
+        double[] millis = new double[CALIBRATE_ROUNDS];
+        for (int i = 0; i < CALIBRATE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibrate");
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[CALIBRATE_ROUNDS / 2];
+    }
+
+}
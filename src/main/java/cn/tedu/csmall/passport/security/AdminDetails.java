@@ -18,10 +18,21 @@ public class AdminDetails extends User {
      */
     private Long id;
 
+    /**
+     * 密码是否需要以当前的BCrypt强度重新编码，认证通过后密码会被擦除，所以在加载时确定
+     */
+    private boolean passwordUpgradeRequired;
+
     public AdminDetails(Long id, String username, String password, boolean enabled,
                         Collection<? extends GrantedAuthority> authorities) {
         super(username, password, enabled, true, true, true, authorities);
         this.id = id;
     }
 
+    public AdminDetails(Long id, String username, String password, boolean enabled,
+                        Collection<? extends GrantedAuthority> authorities, boolean passwordUpgradeRequired) {
+        this(id, username, password, enabled, authorities);
+        this.passwordUpgradeRequired = passwordUpgradeRequired;
+    }
+
 }
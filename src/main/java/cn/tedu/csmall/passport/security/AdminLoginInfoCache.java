@@ -0,0 +1,185 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.pojo.vo.AdminLoginInfoVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <p>管理员登录信息的缓存</p>
+ *
+ * <p>查询登录信息需要关联4张表，且每个权限对应1行结果，所以缓存查询结果（密码密文、是否启用、权限列表），
+ * 同一管理员再次登录时，只需要验证密码：</p>
+ *
+ * <ul>
+ *     <li>以去除首尾空白并转换为小写的用户名作为Key，查询数据库时也使用此用户名，保证无论是否命中缓存，结果都相同</li>
+ *     <li>缓存项在配置的时长后过期，缓存项的数量不超过配置的上限</li>
+ *     <li>管理员的数据被修改时，调用{@link #invalidate(Long)}使其缓存项失效，如果存在事务，在事务提交后将再次失效</li>
+ *     <li>查询数据库期间如果发生了失效，则本次查询结果不存入缓存，避免缓存修改前的数据</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class AdminLoginInfoCache {
+
+    /**
+     * 缓存项数量达到上限时，每次至少淘汰的比例
+     */
+    private static final int EVICT_PERCENT = 10;
+
+    @Value("${csmall.login.info-cache.ttl-in-seconds}")
+    private long ttlInSeconds;
+    @Value("${csmall.login.info-cache.max-size}")
+    private int maxSize;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<Long, String> keyById = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AdminLoginInfoCache() {
+        log.debug("创建缓存对象：AdminLoginInfoCache");
+    }
+
+    /**
+     * 根据用户名获取管理员的登录信息，未缓存时通过loader查询并缓存
+     *
+     * @param username 用户名
+     * @param loader   查询登录信息的函数，参数是去除首尾空白并转换为小写的用户名
+     * @return 管理员的登录信息，如果没有匹配的管理员，则返回null
+     */
+    public AdminLoginInfoVO get(String username, Function<String, AdminLoginInfoVO> loader) {
+        String key = username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+        if (key == null || maxSize <= 0) {
+            return loader.apply(key);
+        }
+        long now = System.currentTimeMillis();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expiration > now) {
+            hits.increment();
+            return entry.loginInfo;
+        }
+        misses.increment();
+
+        long versionBeforeLoad = version.get();
+        AdminLoginInfoVO loginInfo = loader.apply(key);
+        if (loginInfo == null) {
+            return null;
+        }
+        if (cache.size() >= maxSize) {
+            evict(now);
+        }
+        keyById.put(loginInfo.getId(), key);
+        cache.put(key, new Entry(loginInfo, now + ttlInSeconds * 1000));
+        // 查询期间发生了失效，查询结果可能是修改前的数据，不保留
+        if (version.get() != versionBeforeLoad) {
+            cache.remove(key);
+        }
+        return loginInfo;
+    }
+
+    /**
+     * 使管理员的登录信息的缓存项失效
+     *
+     * @param adminId 管理员id
+     */
+    public void invalidate(Long adminId) {
+        remove(adminId);
+        // 在事务中修改数据时，提交前其它线程仍可能查询到修改前的数据并存入缓存，所以提交后再次失效
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(adminId);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        version.incrementAndGet();
+        cache.clear();
+        keyById.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void remove(Long adminId) {
+        version.incrementAndGet();
+        String key = keyById.remove(adminId);
+        if (key != null) {
+            cache.remove(key);
+            log.debug("管理员【{}】的登录信息缓存已失效", adminId);
+        }
+    }
+
+    /**
+     * 淘汰缓存项：优先淘汰已过期的，仍超出上限时，再淘汰一部分任意的缓存项
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = maxSize - Math.max(1, maxSize * EVICT_PERCENT / 100);
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.expiration <= now) {
+                    iterator.remove();
+                    keyById.remove(entry.loginInfo.getId());
+                }
+            }
+            iterator = cache.values().iterator();
+            while (cache.size() > target && iterator.hasNext()) {
+                Entry entry = iterator.next();
+                iterator.remove();
+                keyById.remove(entry.loginInfo.getId());
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+
+        private final AdminLoginInfoVO loginInfo;
+        private final long expiration;
+
+        private Entry(AdminLoginInfoVO loginInfo, long expiration) {
+            this.loginInfo = loginInfo;
+            this.expiration = expiration;
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+package cn.tedu.csmall.passport.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>权限对象的注册表</p>
+ *
+ * <p>权限值的种类较少且相对固定（即ams_permission表中的value），通过此注册表获取权限对象时，
+ * 同一个权限值在整个进程中只对应同一个不可变的权限对象，以避免每次登录、每次请求都创建新的权限对象，
+ * 并且，比较权限值时可以直接通过字符串的引用相等来完成</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+public final class AuthorityRegistry {
+
+    /**
+     * 最多注册的权限值的数量，超出后不再注册，以避免异常数据导致注册表无限增长
+     */
+    private static final int MAX_SIZE = 4096;
+
+    private static final Map<String, GrantedAuthority> AUTHORITIES = new ConcurrentHashMap<>();
+
+    private AuthorityRegistry() {
+    }
+
+    /**
+     * 获取权限值对应的权限对象
+     *
+     * @param value 权限值
+     * @return 权限值对应的唯一的权限对象
+     */
+    public static GrantedAuthority of(String value) {
+        GrantedAuthority authority = AUTHORITIES.get(value);
+        if (authority != null) {
+            return authority;
+        }
+        if (AUTHORITIES.size() >= MAX_SIZE) {
+            return new SimpleGrantedAuthority(value);
+        }
+        return AUTHORITIES.computeIfAbsent(value, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * 获取已注册的权限值的数量
+     *
+     * @return 已注册的权限值的数量
+     */
+    public static int size() {
+        return AUTHORITIES.size();
+    }
+
+}
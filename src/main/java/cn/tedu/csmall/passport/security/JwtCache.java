@@ -0,0 +1,239 @@
+package cn.tedu.csmall.passport.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>已验证JWT的缓存</p>
+ *
+ * <p>以JWT的SHA-256摘要作为Key，缓存解析JWT后得到的当事人和权限列表，
+ * 同一个JWT再次被提交时，无须重复验证签名、解析Claims和权限JSON</p>
+ *
+ * <p>注意：只有签名验证通过的JWT才允许存入缓存，缓存项在JWT过期时失效，缓存项的数量不超过配置的上限</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class JwtCache {
+
+    /**
+     * 缓存项数量达到上限时，每次至少淘汰的比例
+     */
+    private static final int EVICT_PERCENT = 10;
+
+    /**
+     * 每个线程复用的摘要算法对象
+     */
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Value("${csmall.jwt.cache.max-size}")
+    private int maxSize;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JwtCache() {
+        log.debug("创建缓存对象：JwtCache");
+    }
+
+    /**
+     * 根据JWT获取缓存项
+     *
+     * @param jwt JWT
+     * @return 未过期的缓存项，如果没有缓存或缓存已过期，则返回null
+     */
+    public Entry get(String jwt) {
+        Key key = Key.of(jwt);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.getExpiration() <= System.currentTimeMillis()) {
+            cache.remove(key, entry);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * 缓存已通过验证的JWT的解析结果
+     *
+     * @param jwt            已通过签名验证的JWT
+     * @param loginPrincipal 解析JWT得到的当事人
+     * @param authorities    解析JWT得到的权限列表
+     * @param issuedAt       JWT的签发时间（毫秒）
+     * @param expiration     JWT的过期时间（毫秒）
+     */
+    public void put(String jwt, LoginPrincipal loginPrincipal,
+                    List<? extends GrantedAuthority> authorities, long issuedAt, long expiration) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (cache.size() >= maxSize) {
+            evict();
+        }
+        cache.put(Key.of(jwt), new Entry(loginPrincipal, authorities, issuedAt, expiration));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 淘汰缓存项：优先淘汰已过期的，仍超出上限时，再淘汰一部分任意的缓存项
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            int target = maxSize - Math.max(1, maxSize * EVICT_PERCENT / 100);
+            int removed = 0;
+            Iterator<Entry> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getExpiration() <= now) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            iterator = cache.values().iterator();
+            while (cache.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                removed++;
+            }
+            evictions.add(removed);
+            log.debug("JWT缓存已达上限【{}】，淘汰缓存项数量：{}", maxSize, removed);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 缓存项
+     */
+    public static final class Entry {
+
+        private final LoginPrincipal loginPrincipal;
+        private final List<GrantedAuthority> authorities;
+        private final long issuedAt;
+        private final long expiration;
+
+        private Entry(LoginPrincipal loginPrincipal,
+                      List<? extends GrantedAuthority> authorities, long issuedAt, long expiration) {
+            this.loginPrincipal = loginPrincipal;
+            this.authorities = Collections.unmodifiableList(authorities);
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
+
+        public LoginPrincipal getLoginPrincipal() {
+            return loginPrincipal;
+        }
+
+        public List<GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiration() {
+            return expiration;
+        }
+
+    }
+
+    /**
+     * 缓存Key：JWT的SHA-256摘要
+     */
+    private static final class Key {
+
+        private final long a;
+        private final long b;
+        private final long c;
+        private final long d;
+
+        private Key(byte[] digest) {
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            this.a = buffer.getLong();
+            this.b = buffer.getLong();
+            this.c = buffer.getLong();
+            this.d = buffer.getLong();
+        }
+
+        static Key of(String jwt) {
+            MessageDigest digest = DIGEST.get();
+            return new Key(digest.digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return a == key.a && b == key.b && c == key.c && d == key.d;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (a ^ (a >>> 32));
+        }
+
+    }
+
+}
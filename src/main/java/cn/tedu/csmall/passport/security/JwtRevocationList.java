@@ -0,0 +1,284 @@
+package cn.tedu.csmall.passport.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>JWT吊销列表</p>
+ *
+ * <p>管理员被禁用或删除后，此前签发给此管理员的JWT应该立即失效，此类记录每个管理员的“吊销时间”（毫秒），
+ * 签发时间不晚于吊销时间的JWT都将被视为已吊销</p>
+ *
+ * <p>JWT标准的签发时间（iat）只精确到秒，所以签发时另外在{@link #CLAIM_ISSUED_AT}中记录毫秒，
+ * 否则，管理员被禁用后又在同一秒内被启用，此后登录得到的JWT也将被视为已吊销</p>
+ *
+ * <p>实现要点：</p>
+ * <ul>
+ *     <li>使用以管理员id为Key的开放寻址哈希表（基本类型long数组），查询时不加锁、不创建对象</li>
+ *     <li>写入时复制出新的哈希表再替换，写入（禁用、删除管理员）的频率很低，可以接受复制的开销</li>
+ *     <li>写入时清除“吊销时间 + JWT有效时长”已过去的数据，因为此前签发的JWT都已经过期</li>
+ *     <li>在事务中吊销时，事务提交后再次吊销，因为提交前登录的管理员仍能查询到修改前的启用状态，并得到新的JWT</li>
+ *     <li>每次写入后保存快照文件，启动时从快照文件恢复，以保证重启后吊销仍然有效</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class JwtRevocationList {
+
+    /**
+     * JWT中签发时间（毫秒）的Claim的名称
+     */
+    public static final String CLAIM_ISSUED_AT = "iatMillis";
+    /**
+     * 快照文件的标识
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4A52564C;
+    /**
+     * 快照文件的格式版本，第1版的吊销时间以秒为单位，第2版以毫秒为单位
+     */
+    private static final int SNAPSHOT_VERSION = 2;
+    /**
+     * 快照文件的头部（标识、格式版本、数据量）的字节数
+     */
+    private static final int SNAPSHOT_HEADER_BYTES = 12;
+    /**
+     * 快照文件中每条数据（管理员id、吊销时间）的字节数
+     */
+    private static final int SNAPSHOT_ENTRY_BYTES = 16;
+
+    @Value("${csmall.jwt.duration-in-minute}")
+    private long durationInMinute;
+    @Value("${csmall.jwt.revocation.snapshot-path}")
+    private String snapshotPath;
+
+    private volatile Table table = new Table(0);
+
+    public JwtRevocationList() {
+        log.debug("创建JWT吊销列表对象：JwtRevocationList");
+    }
+
+    /**
+     * 吊销某管理员在当前时间及以前签发的所有JWT
+     *
+     * @param adminId 管理员id
+     */
+    public void revoke(Long adminId) {
+        revokeAll(Collections.singletonList(adminId));
+    }
+
+    /**
+     * 吊销若干个管理员在当前时间及以前签发的所有JWT，无论管理员的数量多少，只复制1次哈希表、保存1次快照，
+     * 如果存在事务，则在事务提交后再次吊销
+     *
+     * @param adminIds 若干个管理员id
+     */
+    public void revokeAll(Collection<Long> adminIds) {
+        List<Long> copy = new ArrayList<>(adminIds);
+        revokeNow(copy);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokeNow(copy);
+                }
+            });
+        }
+    }
+
+    private void revokeNow(Collection<Long> adminIds) {
+        List<Long> validIds = new ArrayList<>(adminIds.size());
+        for (Long adminId : adminIds) {
+            if (adminId != null && adminId > 0) {
+                validIds.add(adminId);
+            }
+        }
+        if (validIds.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Table current = table;
+            Table next = new Table(current.size + validIds.size());
+            long expiredBefore = now - durationInMinute * 60 * 1000;
+            for (int i = 0; i < current.keys.length; i++) {
+                long key = current.keys[i];
+                if (key != 0 && current.values[i] >= expiredBefore) {
+                    next.put(key, current.values[i]);
+                }
+            }
+            for (Long adminId : validIds) {
+                next.put(adminId, now);
+            }
+            table = next;
+            log.debug("已吊销管理员【{}】在【{}】及以前签发的JWT，吊销列表的数据量：{}", validIds, now, next.size);
+            save(next);
+        }
+    }
+
+    /**
+     * 判断JWT是否已被吊销
+     *
+     * @param adminId  JWT中的管理员id
+     * @param issuedAt JWT的签发时间（毫秒）
+     * @return 如果已被吊销，则返回true，否则返回false
+     */
+    public boolean isRevoked(long adminId, long issuedAt) {
+        long revokedAt = table.get(adminId);
+        return revokedAt != 0 && issuedAt <= revokedAt;
+    }
+
+    /**
+     * 获取吊销列表的数据量
+     *
+     * @return 吊销列表的数据量
+     */
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * 启动时从快照文件恢复吊销列表
+     */
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            log.debug("JWT吊销列表的快照文件【{}】不存在，将使用空的吊销列表", path.toAbsolutePath());
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - durationInMinute * 60 * 1000;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : 0;
+            if (version != SNAPSHOT_VERSION && version != 1) {
+                log.warn("JWT吊销列表的快照文件【{}】格式错误，将使用空的吊销列表", path.toAbsolutePath());
+                return;
+            }
+            // 根据文件长度检查数据量，避免损坏的文件导致分配过大的数组
+            int size = in.readInt();
+            if (size < 0 || size > (Files.size(path) - SNAPSHOT_HEADER_BYTES) / SNAPSHOT_ENTRY_BYTES) {
+                log.warn("JWT吊销列表的快照文件【{}】已损坏，数据量：{}，将使用空的吊销列表", path.toAbsolutePath(), size);
+                return;
+            }
+            Table loaded = new Table(size);
+            for (int i = 0; i < size; i++) {
+                long key = in.readLong();
+                long value = in.readLong();
+                if (version == 1) {
+                    // 第1版的吊销时间以秒为单位，转换为此秒的最后1毫秒，使此秒内签发的JWT仍被视为已吊销
+                    value = value * 1000 + 999;
+                }
+                if (value >= expiredBefore) {
+                    loaded.put(key, value);
+                }
+            }
+            table = loaded;
+            log.debug("已从快照文件【{}】恢复JWT吊销列表，数据量：{}", path.toAbsolutePath(), loaded.size);
+        } catch (IOException e) {
+            log.warn("读取JWT吊销列表的快照文件【{}】失败，将使用空的吊销列表：{}", path.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * 关闭时保存快照
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        if (table.size > 0) {
+            save(table);
+        }
+    }
+
+    /**
+     * 保存快照：先写入临时文件，再替换快照文件，避免写入过程中崩溃导致快照文件损坏
+     */
+    private void save(Table table) {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(table.size);
+                for (int i = 0; i < table.keys.length; i++) {
+                    if (table.keys[i] != 0) {
+                        out.writeLong(table.keys[i]);
+                        out.writeLong(table.values[i]);
+                    }
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存JWT吊销列表的快照文件【{}】失败：{}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 以long为Key、long为Value的开放寻址哈希表，Key为0表示空位，创建完成并发布后不再修改
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final long[] values;
+        private final int mask;
+        private int size;
+
+        Table(int expectedSize) {
+            int capacity = 8;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            values = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        void put(long key, long value) {
+            int index = indexOf(key);
+            while (keys[index] != 0 && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == 0) {
+                size++;
+            }
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        long get(long key) {
+            int index = indexOf(key);
+            while (keys[index] != 0) {
+                if (keys[index] == key) {
+                    return values[index];
+                }
+                index = (index + 1) & mask;
+            }
+            return 0;
+        }
+
+        private int indexOf(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>登录任务的执行器</p>
+ *
+ * <p>登录时验证密码（BCrypt）是CPU密集型的耗时操作，如果在Tomcat的请求线程上执行，大量登录请求会占满所有请求线程，
+ * 导致其它请求也无法被处理，所以，登录任务将由此执行器中数量固定的线程执行：</p>
+ *
+ * <ul>
+ *     <li>等待执行的任务存放在有界队列中，队列已满时，立即以{@link ServiceCode#ERR_SERVICE_UNAVAILABLE}拒绝</li>
+ *     <li>任务在队列中等待的时间超过上限时，不再验证密码，同样以{@link ServiceCode#ERR_SERVICE_UNAVAILABLE}拒绝，此时客户端很可能已经放弃等待</li>
+ *     <li>统计任务的数量、排队等待的时间，用于监控</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class LoginExecutor {
+
+    private static final String MESSAGE_BUSY = "登录失败，服务器忙，请稍后再尝试！";
+    /**
+     * 队列已满时抛出的异常，仅用于在execute()的调用者中判断，不会被记录，所以复用同一个对象，
+     * 避免默认的AbortPolicy在每次拒绝时都拼接包含执行器状态的异常消息（需要获取执行器的锁）
+     */
+    private static final RejectedExecutionException REJECTED = new RejectedExecutionException("登录任务的队列已满");
+
+    @Value("${csmall.login.executor.pool-size}")
+    private int poolSize;
+    @Value("${csmall.login.executor.queue-capacity}")
+    private int queueCapacity;
+    @Value("${csmall.login.executor.max-wait-in-millis}")
+    private long maxWaitInMillis;
+
+    private ThreadPoolExecutor executor;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    public LoginExecutor() {
+        log.debug("创建登录任务的执行器对象：LoginExecutor");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (poolSize <= 0) {
+            poolSize = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, threadPoolExecutor) -> {
+                    throw REJECTED;
+                });
+        log.debug("登录任务的执行器已启动，线程数量：{}，队列容量：{}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交登录任务
+     *
+     * @param task 登录任务
+     * @param <T>  登录任务的结果的类型
+     * @return 登录任务的结果，登录任务抛出的异常将使结果异常完成
+     * @throws ServiceException 等待执行的任务已满时，立即抛出此异常
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long submitTime = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, future, submitTime));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceException(ServiceCode.ERR_SERVICE_UNAVAILABLE, MESSAGE_BUSY);
+        }
+        submitted.increment();
+        return future;
+    }
+
+    private <T> void run(Supplier<T> task, CompletableFuture<T> future, long submitTime) {
+        long waitNanos = System.nanoTime() - submitTime;
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+        try {
+            if (maxWaitInMillis > 0 && waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitInMillis)) {
+                expired.increment();
+                log.debug("登录任务排队等待了{}毫秒，超过上限，拒绝登录", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                future.completeExceptionally(new ServiceException(ServiceCode.ERR_SERVICE_UNAVAILABLE, MESSAGE_BUSY));
+                return;
+            }
+            future.complete(task.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            completed.increment();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    /**
+     * 获取已开始执行的任务的平均排队等待时间（毫秒）
+     */
+    public double getAverageWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalWaitNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * 获取已开始执行的任务的最长排队等待时间（毫秒）
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+}
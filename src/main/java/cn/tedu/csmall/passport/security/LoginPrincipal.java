@@ -17,4 +17,9 @@ public class LoginPrincipal implements Serializable {
      */
     private String username;
 
+    /**
+     * 权限位图，以权限在RbacModel中的下标为位，如果无法计算，则为null
+     */
+    private long[] permissionBits;
+
 }
@@ -0,0 +1,196 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>登录限流器</p>
+ *
+ * <p>分别按用户名和客户端IP统计登录尝试的次数，超出限制时立即拒绝，不再查询数据库和验证密码，用于抵御暴力破解和撞库：</p>
+ *
+ * <ul>
+ *     <li>使用滑动窗口计数：保留当前窗口和上一个窗口的次数，按上一个窗口在滑动窗口中的剩余比例加权求和</li>
+ *     <li>计数器按Key的哈希值分段加锁（锁分段），不同Key的计数几乎不会相互竞争</li>
+ *     <li>计数器的数量达到上限时，只淘汰空闲（2个窗口内无尝试，计数已为0）的计数器，淘汰时也持有对应分段的锁，
+ *     不会丢失正在记录的尝试；仍达到上限时，拒绝新的Key的登录尝试（已有计数器的Key不受影响），
+ *     避免攻击者通过大量随机的用户名、IP淘汰正在被限制的计数器</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    /**
+     * 锁的分段数量，必须是2的幂
+     */
+    private static final int STRIPES = 64;
+    private static final String MESSAGE_TOO_MANY_ATTEMPTS = "登录失败，尝试次数过多，请稍后再尝试！";
+
+    @Value("${csmall.login.throttle.window-in-seconds}")
+    private long windowInSeconds;
+    @Value("${csmall.login.throttle.max-attempts-per-username}")
+    private int maxAttemptsPerUsername;
+    @Value("${csmall.login.throttle.max-attempts-per-ip}")
+    private int maxAttemptsPerIp;
+    @Value("${csmall.login.throttle.max-keys}")
+    private int maxKeys;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<String, Counter> usernameCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> ipCounters = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder rejectedByUsername = new LongAdder();
+    private final LongAdder rejectedByIp = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LoginThrottle() {
+        log.debug("创建登录限流器对象：LoginThrottle");
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 记录一次登录尝试，超出限制时抛出异常
+     *
+     * @param username 尝试登录的用户名
+     * @param remoteAddr 客户端IP
+     * @throws ServiceException 按用户名或客户端IP统计的尝试次数超出限制
+     */
+    public void acquire(String username, String remoteAddr) {
+        acquire(username, remoteAddr, System.currentTimeMillis());
+    }
+
+    void acquire(String username, String remoteAddr, long now) {
+        if (remoteAddr != null && !tryAcquire(ipCounters, remoteAddr, maxAttemptsPerIp, now)) {
+            rejectedByIp.increment();
+            log.debug("客户端IP【{}】的登录尝试次数超出限制，拒绝登录", remoteAddr);
+            throw new ServiceException(ServiceCode.ERR_TOO_MANY_REQUESTS, MESSAGE_TOO_MANY_ATTEMPTS);
+        }
+        if (username != null && !tryAcquire(usernameCounters,
+                username.trim().toLowerCase(Locale.ROOT), maxAttemptsPerUsername, now)) {
+            rejectedByUsername.increment();
+            log.debug("用户名【{}】的登录尝试次数超出限制，拒绝登录", username);
+            throw new ServiceException(ServiceCode.ERR_TOO_MANY_REQUESTS, MESSAGE_TOO_MANY_ATTEMPTS);
+        }
+    }
+
+    private boolean tryAcquire(Map<String, Counter> counters, String key, int maxAttempts, long now) {
+        if (maxAttempts <= 0) {
+            return true;
+        }
+        long windowMillis = windowInSeconds * 1000;
+        long window = now / windowMillis;
+        synchronized (lockOf(key)) {
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                if (counters.size() >= maxKeys) {
+                    evict(counters, now);
+                    if (counters.size() >= maxKeys) {
+                        // 仍达到上限时，拒绝新的Key，而不是淘汰可能正在被限制的计数器
+                        return false;
+                    }
+                }
+                counter = new Counter();
+                counters.put(key, counter);
+            }
+            if (counter.window != window) {
+                counter.previous = counter.window == window - 1 ? counter.current : 0;
+                counter.current = 0;
+                counter.window = window;
+            }
+            counter.lastAccessTime = now;
+            // 上一个窗口在滑动窗口中的剩余比例
+            double previousWeight = 1 - (double) (now % windowMillis) / windowMillis;
+            if (counter.previous * previousWeight + counter.current >= maxAttempts) {
+                return false;
+            }
+            counter.current++;
+            return true;
+        }
+    }
+
+    private Object lockOf(String key) {
+        int hash = key.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * 淘汰空闲的计数器，调用时持有某个分段的锁，淘汰其它分段的计数器时再获取对应的锁（只在淘汰期间嵌套，
+     * 且同一时刻只有1个线程在淘汰，不会死锁）
+     */
+    private void evict(Map<String, Counter> counters, long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long idleBefore = now - windowInSeconds * 1000 * 2;
+            int removed = 0;
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                Counter counter = entry.getValue();
+                if (counter.lastAccessTime >= idleBefore) {
+                    continue;
+                }
+                synchronized (lockOf(entry.getKey())) {
+                    // 持有锁后再次检查，此前可能有新的尝试
+                    if (counter.lastAccessTime < idleBefore && counters.remove(entry.getKey(), counter)) {
+                        removed++;
+                    }
+                }
+            }
+            evictions.add(removed);
+            if (counters.size() >= maxKeys) {
+                log.warn("登录限流的计数器已达上限【{}】，且没有空闲的计数器，将拒绝新的用户名、IP的登录尝试", maxKeys);
+            } else {
+                log.debug("登录限流的计数器已达上限【{}】，淘汰空闲的计数器数量：{}", maxKeys, removed);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public int getUsernameKeys() {
+        return usernameCounters.size();
+    }
+
+    public int getIpKeys() {
+        return ipCounters.size();
+    }
+
+    public long getRejectedByUsername() {
+        return rejectedByUsername.sum();
+    }
+
+    public long getRejectedByIp() {
+        return rejectedByIp.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 滑动窗口计数器，除lastAccessTime外，各属性只在持有对应分段的锁时访问
+     */
+    private static final class Counter {
+
+        private long window;
+        private int previous;
+        private int current;
+        private volatile long lastAccessTime;
+
+    }
+
+}
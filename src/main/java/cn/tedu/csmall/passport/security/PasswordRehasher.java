@@ -0,0 +1,94 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * <p>密码重新编码器</p>
+ *
+ * <p>BCrypt的强度调整后，已保存的密文仍是原强度，由于无法从密文得到原文，只能在管理员登录成功（得到原文）后重新编码，
+ * 重新编码是耗时的操作，所以在后台的单个线程中执行，不影响登录的响应时间：</p>
+ *
+ * <ul>
+ *     <li>同一个管理员的重新编码任务只会提交1次，直至执行完成</li>
+ *     <li>等待执行的任务已满时，直接放弃，此管理员下次登录时会再次尝试</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class PasswordRehasher {
+
+    /**
+     * 等待执行的重新编码任务的最大数量
+     */
+    private static final int QUEUE_CAPACITY = 100;
+
+    @Autowired
+    private AdminMapper adminMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AdminLoginInfoCache adminLoginInfoCache;
+
+    private final Set<Long> pendingAdminIds = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-rehash");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+    public PasswordRehasher() {
+        log.debug("创建密码重新编码器对象：PasswordRehasher");
+    }
+
+    /**
+     * 在后台重新编码管理员的密码，并更新到数据库
+     *
+     * @param adminId     管理员id
+     * @param rawPassword 管理员登录时提交的、已通过验证的密码原文
+     */
+    public void rehash(Long adminId, String rawPassword) {
+        if (!pendingAdminIds.add(adminId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    Admin admin = new Admin();
+                    admin.setId(adminId);
+                    admin.setPassword(passwordEncoder.encode(rawPassword));
+                    int rows = adminMapper.update(admin);
+                    adminLoginInfoCache.invalidate(adminId);
+                    log.debug("已重新编码管理员【{}】的密码，受影响的行数：{}", adminId, rows);
+                } catch (RuntimeException e) {
+                    log.warn("重新编码管理员【{}】的密码失败：{}", adminId, e.getMessage());
+                } finally {
+                    pendingAdminIds.remove(adminId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingAdminIds.remove(adminId);
+            log.debug("重新编码密码的任务已满，放弃重新编码管理员【{}】的密码", adminId);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+}
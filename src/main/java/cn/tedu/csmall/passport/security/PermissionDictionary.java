@@ -0,0 +1,251 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.mapper.PermissionMapper;
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+/**
+ * <p>权限字典</p>
+ *
+ * <p>基于ams_permission表的数据，将权限值与权限id相互映射，用于将JWT中的权限列表编码为紧凑的二进制格式：</p>
+ *
+ * <ul>
+ *     <li>第1个字节表示格式，{@link #FORMAT_BITSET}表示以权限id为下标的位图，{@link #FORMAT_VARINT}表示升序权限id的差值的varint列表</li>
+ *     <li>编码时选择两种格式中较短的一种，最终结果使用Base64URL（无填充）表示</li>
+ * </ul>
+ *
+ * <p>权限id在数据表中不会被复用，所以，字典重新加载后，此前签发的JWT仍可以正确解码</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class PermissionDictionary {
+
+    /**
+     * JWT中存放紧凑格式权限列表的Claim名称
+     */
+    public static final String CLAIM_PERMISSIONS = "p";
+    /**
+     * 编码格式：位图
+     */
+    public static final byte FORMAT_BITSET = 1;
+    /**
+     * 编码格式：varint列表
+     */
+    public static final byte FORMAT_VARINT = 2;
+    /**
+     * 解码时发现未知权限id后，两次重新加载字典的最小间隔时间（毫秒）
+     */
+    private static final long RELOAD_INTERVAL = 10 * 1000;
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastLoadTime;
+
+    public PermissionDictionary() {
+        log.debug("创建权限字典对象：PermissionDictionary");
+    }
+
+    /**
+     * 从数据库重新加载权限字典
+     */
+    public synchronized void reload() {
+        List<PermissionListItemVO> permissions = permissionMapper.list();
+        log.debug("从数据库加载权限字典，权限数量：{}", permissions.size());
+        load(permissions);
+    }
+
+    /**
+     * 使用指定的权限列表加载权限字典
+     *
+     * @param permissions 权限列表
+     */
+    public void load(List<PermissionListItemVO> permissions) {
+        snapshot = new Snapshot(permissions);
+        lastLoadTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 将权限列表编码为紧凑格式
+     *
+     * @param authorities 权限列表
+     * @return 编码结果，如果存在字典中没有的权限，则返回null
+     */
+    public String encode(Collection<? extends GrantedAuthority> authorities) {
+        Snapshot snapshot = getSnapshot();
+        int[] ids = new int[authorities.size()];
+        int count = 0;
+        for (GrantedAuthority authority : authorities) {
+            Integer id = snapshot.idByValue.get(authority.getAuthority());
+            if (id == null) {
+                log.debug("权限字典中没有权限【{}】，无法使用紧凑格式编码", authority.getAuthority());
+                return null;
+            }
+            ids[count++] = id;
+        }
+        Arrays.sort(ids, 0, count);
+
+        byte[] bitset = encodeBitset(ids, count);
+        byte[] varint = encodeVarint(ids, count);
+        byte[] bytes = bitset.length <= varint.length ? bitset : varint;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 将紧凑格式的权限列表解码为权限对象的列表，字典中已不存在的权限将被忽略
+     *
+     * @param encoded 编码结果
+     * @return 权限列表，列表中的权限对象来自AuthorityRegistry
+     */
+    public List<GrantedAuthority> decode(String encoded) {
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("权限编码格式错误！");
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        Snapshot snapshot = getSnapshot();
+        boolean complete;
+        if (bytes[0] == FORMAT_BITSET) {
+            complete = decodeBitset(snapshot, bytes, authorities);
+        } else if (bytes[0] == FORMAT_VARINT) {
+            complete = decodeVarint(snapshot, bytes, authorities);
+        } else {
+            throw new IllegalArgumentException("权限编码格式错误！");
+        }
+
+        // 存在未知的权限id，可能是字典加载后新增了权限，重新加载字典后再次解码
+        if (!complete && System.currentTimeMillis() - lastLoadTime > RELOAD_INTERVAL) {
+            log.debug("解码权限时发现未知的权限id，将重新加载权限字典");
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("重新加载权限字典失败，将忽略未知的权限id：{}", e.getMessage());
+                return authorities;
+            }
+            return decode(encoded);
+        }
+        return authorities;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (this.snapshot == null) {
+                    reload();
+                }
+                snapshot = this.snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private static byte[] encodeBitset(int[] ids, int count) {
+        int maxId = count == 0 ? 0 : ids[count - 1];
+        byte[] bytes = new byte[1 + maxId / 8 + 1];
+        bytes[0] = FORMAT_BITSET;
+        for (int i = 0; i < count; i++) {
+            bytes[1 + ids[i] / 8] |= 1 << (ids[i] % 8);
+        }
+        return bytes;
+    }
+
+    private static byte[] encodeVarint(int[] ids, int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 + count * 2);
+        out.write(FORMAT_VARINT);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int delta = ids[i] - previous;
+            previous = ids[i];
+            while ((delta & ~0x7F) != 0) {
+                out.write((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.write(delta);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean decodeBitset(Snapshot snapshot, byte[] bytes, List<GrantedAuthority> authorities) {
+        boolean complete = true;
+        for (int i = 1; i < bytes.length; i++) {
+            int bits = bytes[i] & 0xFF;
+            while (bits != 0) {
+                int bit = Integer.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                complete &= snapshot.collect((i - 1) * 8 + bit, authorities);
+            }
+        }
+        return complete;
+    }
+
+    private static boolean decodeVarint(Snapshot snapshot, byte[] bytes, List<GrantedAuthority> authorities) {
+        boolean complete = true;
+        int id = 0;
+        int i = 1;
+        while (i < bytes.length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (i >= bytes.length || shift > 28) {
+                    throw new IllegalArgumentException("权限编码格式错误！");
+                }
+                b = bytes[i++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            id += delta;
+            complete &= snapshot.collect(id, authorities);
+        }
+        return complete;
+    }
+
+    /**
+     * 权限字典的不可变快照
+     */
+    private static final class Snapshot {
+
+        private final GrantedAuthority[] authorityById;
+        private final Map<String, Integer> idByValue;
+
+        Snapshot(List<PermissionListItemVO> permissions) {
+            int maxId = 0;
+            for (PermissionListItemVO permission : permissions) {
+                maxId = Math.max(maxId, permission.getId().intValue());
+            }
+            authorityById = new GrantedAuthority[maxId + 1];
+            idByValue = new HashMap<>();
+            for (PermissionListItemVO permission : permissions) {
+                int id = permission.getId().intValue();
+                authorityById[id] = AuthorityRegistry.of(permission.getValue());
+                idByValue.put(permission.getValue(), id);
+            }
+        }
+
+        /**
+         * 将权限id对应的权限对象添加到列表中
+         *
+         * @return 如果字典中存在此权限id，则返回true，否则返回false
+         */
+        boolean collect(int id, List<GrantedAuthority> authorities) {
+            if (id < 0 || id >= authorityById.length || authorityById[id] == null) {
+                return false;
+            }
+            authorities.add(authorityById[id]);
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package cn.tedu.csmall.passport.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>权限检查拦截器</p>
+ *
+ * <p>检查添加了{@link RequirePermission}注解的控制器方法：</p>
+ *
+ * <ul>
+ *     <li>每个方法所需的权限值只从注解中读取1次，其在RbacModel中的下标也只查找到1次，此后直接使用
+ *     （RbacModel中权限的下标只增不改）</li>
+ *     <li>当事人的权限位图在解析JWT时已计算得到，检查时只需要判断位图中对应的位</li>
+ *     <li>权限值或当事人的权限无法在RbacModel中找到时（例如RBAC模型尚未加载），逐个比较当事人的权限值</li>
+ *     <li>权限不足时抛出AccessDeniedException，与@PreAuthorize相同，由全局异常处理器处理</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class PermissionInterceptor implements HandlerInterceptor {
+
+    private static final String MESSAGE_ACCESS_DENIED = "不允许访问";
+
+    @Autowired
+    private RbacModel rbacModel;
+
+    private final Map<Method, Requirement> requirements = new ConcurrentHashMap<>();
+
+    public PermissionInterceptor() {
+        log.debug("创建拦截器对象：PermissionInterceptor");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步处理完成后的再次分派无须检查，首次分派时已检查，且此时不会再经过解析JWT的过滤器
+        if (!(handler instanceof HandlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Requirement requirement = getRequirement(((HandlerMethod) handler).getMethod());
+        if (requirement == Requirement.NONE) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!hasPermission(authentication, requirement.value, getIndex(requirement))) {
+            log.debug("当事人没有权限【{}】，拒绝访问", requirement.value);
+            throw new AccessDeniedException(MESSAGE_ACCESS_DENIED);
+        }
+        return true;
+    }
+
+    /**
+     * 判断当事人是否具有某项权限
+     *
+     * @param authentication 认证信息
+     * @param value          权限值
+     * @param index          权限在RbacModel中的下标，如果无法找到，则为-1
+     * @return 如果当事人具有此权限，则返回true，否则返回false
+     */
+    public static boolean hasPermission(Authentication authentication, String value, int index) {
+        if (authentication == null) {
+            return false;
+        }
+        Object principal = authentication.getPrincipal();
+        if (index >= 0 && principal instanceof LoginPrincipal) {
+            long[] bits = ((LoginPrincipal) principal).getPermissionBits();
+            if (bits != null) {
+                int word = index >>> 6;
+                return word < bits.length && (bits[word] & (1L << index)) != 0;
+            }
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (value.equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取权限在RbacModel中的下标，找到后缓存在Requirement中，尚未找到时（例如RBAC模型尚未加载）每次都查找
+     */
+    private int getIndex(Requirement requirement) {
+        int index = requirement.index;
+        if (index < 0) {
+            index = rbacModel.indexOf(requirement.value);
+            requirement.index = index;
+        }
+        return index;
+    }
+
+    private Requirement getRequirement(Method method) {
+        Requirement requirement = requirements.get(method);
+        if (requirement == null) {
+            RequirePermission requirePermission = method.getAnnotation(RequirePermission.class);
+            requirement = requirePermission == null ? Requirement.NONE : new Requirement(requirePermission.value());
+            requirements.put(method, requirement);
+        }
+        return requirement;
+    }
+
+    /**
+     * 某个控制器方法所需的权限
+     */
+    private static final class Requirement {
+
+        private static final Requirement NONE = new Requirement(null);
+
+        private final String value;
+        /**
+         * 权限在RbacModel中的下标，尚未找到时为-1
+         */
+        private volatile int index = -1;
+
+        private Requirement(String value) {
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,312 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.mapper.PermissionMapper;
+import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.mapper.RolePermissionMapper;
+import cn.tedu.csmall.passport.pojo.entity.RolePermission;
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * <p>内存中的RBAC（基于角色的访问控制）模型</p>
+ *
+ * <p>角色与权限的关联很少变化，所以在启动时加载到内存中，登录时只需要查询管理员的角色id，
+ * 再合并这些角色的权限，不必每次登录都关联查询角色与权限：</p>
+ *
+ * <ul>
+ *     <li>每个权限被分配一个稠密的下标（从0开始连续），每个角色的权限表示为以此下标为位的位图（long数组）</li>
+ *     <li>管理员的权限 = 其所有角色的位图按位或的结果</li>
+ *     <li>权限的下标只增不改，重新加载后，此前计算得到的位图仍然有效，已删除的权限仍占用其下标，但不会再出现在角色的位图中</li>
+ *     <li>可以调用{@link #refreshRole(Long)}只刷新某个角色，也会定期全量刷新，以发现其它途径对数据的修改</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Component
+public class RbacModel {
+
+    private static final long[] EMPTY_BITS = new long[0];
+
+    @Autowired
+    private PermissionMapper permissionMapper;
+    @Autowired
+    private RolePermissionMapper rolePermissionMapper;
+    @Autowired
+    private RoleMapper roleMapper;
+
+    private volatile Snapshot snapshot;
+
+    public RbacModel() {
+        log.debug("创建RBAC模型对象：RbacModel");
+    }
+
+    /**
+     * 启动完成后加载，加载失败时（例如数据库暂不可用），将在首次使用时再次加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("加载RBAC模型失败，将在首次使用时再次加载：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期全量刷新
+     */
+    @Scheduled(fixedDelayString = "${csmall.rbac.refresh-interval-in-millis}",
+            initialDelayString = "${csmall.rbac.refresh-interval-in-millis}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("刷新RBAC模型失败，将继续使用原数据：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库全量加载权限、角色与权限的关联，没有权限的角色也记录为空的位图
+     */
+    public synchronized void reload() {
+        List<PermissionListItemVO> permissions = permissionMapper.list();
+        List<RoleListItemVO> roles = roleMapper.list();
+        List<RolePermission> rolePermissions = rolePermissionMapper.list();
+        Snapshot current = snapshot == null ? new Snapshot() : snapshot;
+        Snapshot next = current.withPermissions(permissions);
+        Map<Long, List<Long>> permissionIdsByRoleId = new HashMap<>();
+        for (RoleListItemVO role : roles) {
+            permissionIdsByRoleId.put(role.getId(), new ArrayList<>());
+        }
+        for (RolePermission rolePermission : rolePermissions) {
+            permissionIdsByRoleId.computeIfAbsent(rolePermission.getRoleId(), k -> new ArrayList<>())
+                    .add(rolePermission.getPermissionId());
+        }
+        Map<Long, long[]> bitsByRoleId = new HashMap<>();
+        for (Map.Entry<Long, List<Long>> entry : permissionIdsByRoleId.entrySet()) {
+            bitsByRoleId.put(entry.getKey(), next.toBits(entry.getValue()));
+        }
+        snapshot = next.withRoles(bitsByRoleId);
+        log.debug("已加载RBAC模型，权限数量：{}，角色数量：{}", permissions.size(), bitsByRoleId.size());
+    }
+
+    /**
+     * 从数据库刷新某个角色的权限，在角色的权限被修改后调用
+     *
+     * @param roleId 角色id
+     */
+    public synchronized void refreshRole(Long roleId) {
+        Snapshot current = getSnapshot();
+        List<Long> permissionIds = rolePermissionMapper.listPermissionIdsByRoleId(roleId);
+        // 存在未知的权限，可能是新增了权限，先刷新权限
+        if (!current.indexByPermissionId.keySet().containsAll(permissionIds)) {
+            current = current.withPermissions(permissionMapper.list());
+        }
+        Map<Long, long[]> bitsByRoleId = new HashMap<>(current.bitsByRoleId);
+        bitsByRoleId.put(roleId, current.toBits(permissionIds));
+        snapshot = current.withRoles(bitsByRoleId);
+        log.debug("已刷新角色【{}】的权限，权限数量：{}", roleId, permissionIds.size());
+    }
+
+    /**
+     * 计算若干个角色的权限位图
+     *
+     * @param roleIds 角色id列表
+     * @return 所有角色的权限位图按位或的结果，以权限的下标为位
+     */
+    public long[] getPermissionBits(Collection<Long> roleIds) {
+        Snapshot snapshot = getSnapshot();
+        long[] bits = EMPTY_BITS;
+        for (Long roleId : roleIds) {
+            long[] roleBits = snapshot.bitsByRoleId.get(roleId);
+            if (roleBits == null) {
+                // 未知的角色，可能是加载后新增的角色，刷新后，即使没有权限，也会记录为空的位图
+                refreshRole(roleId);
+                snapshot = this.snapshot;
+                roleBits = snapshot.bitsByRoleId.get(roleId);
+            }
+            if (roleBits.length > bits.length) {
+                bits = Arrays.copyOf(bits, roleBits.length);
+            }
+            for (int i = 0; i < roleBits.length; i++) {
+                bits[i] |= roleBits[i];
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * 计算若干个角色的权限
+     *
+     * @param roleIds 角色id列表
+     * @return 权限列表，列表中的权限对象来自AuthorityRegistry
+     */
+    public List<GrantedAuthority> getAuthorities(Collection<Long> roleIds) {
+        return toAuthorities(getPermissionBits(roleIds));
+    }
+
+    /**
+     * 将权限位图转换为权限列表
+     *
+     * @param bits 权限位图
+     * @return 权限列表，列表中的权限对象来自AuthorityRegistry
+     */
+    public List<GrantedAuthority> toAuthorities(long[] bits) {
+        Snapshot snapshot = getSnapshot();
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                int index = i * 64 + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (index < snapshot.authorityByIndex.size()) {
+                    authorities.add(snapshot.authorityByIndex.get(index));
+                }
+            }
+        }
+        return authorities;
+    }
+
+    /**
+     * 获取权限值对应的下标，此方法不会加载RBAC模型
+     *
+     * @param value 权限值
+     * @return 权限的下标，如果RBAC模型尚未加载，或没有此权限，则返回-1
+     */
+    public int indexOf(String value) {
+        Snapshot snapshot = this.snapshot;
+        Integer index = snapshot == null ? null : snapshot.indexByValue.get(value);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 将权限列表转换为权限位图，此方法不会加载RBAC模型
+     *
+     * @param authorities 权限列表
+     * @return 权限位图，如果RBAC模型尚未加载，或存在无法找到的权限，则返回null
+     */
+    public long[] toPermissionBits(Collection<? extends GrantedAuthority> authorities) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            return null;
+        }
+        long[] bits = new long[(snapshot.authorityByIndex.size() + 63) / 64];
+        for (GrantedAuthority authority : authorities) {
+            Integer index = snapshot.indexByValue.get(authority.getAuthority());
+            if (index == null) {
+                return null;
+            }
+            bits[index / 64] |= 1L << (index % 64);
+        }
+        return bits;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (this.snapshot == null) {
+                    reload();
+                }
+                snapshot = this.snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * RBAC模型的不可变快照，权限的下标只增不改
+     */
+    private static final class Snapshot {
+
+        private final List<GrantedAuthority> authorityByIndex;
+        private final Map<Long, Integer> indexByPermissionId;
+        private final Map<String, Integer> indexByValue;
+        private final Map<Long, long[]> bitsByRoleId;
+
+        Snapshot() {
+            this(Collections.emptyList(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+        }
+
+        private Snapshot(List<GrantedAuthority> authorityByIndex, Map<Long, Integer> indexByPermissionId,
+                         Map<String, Integer> indexByValue, Map<Long, long[]> bitsByRoleId) {
+            this.authorityByIndex = authorityByIndex;
+            this.indexByPermissionId = indexByPermissionId;
+            this.indexByValue = indexByValue;
+            this.bitsByRoleId = bitsByRoleId;
+        }
+
+        /**
+         * 根据完整的权限列表重建：已有的权限保持原下标（权限值可能被修改），新的权限追加到末尾，
+         * 已删除的权限仍占用其下标，但不再能通过权限id、权限值找到，所以不会出现在位图中
+         */
+        Snapshot withPermissions(List<PermissionListItemVO> permissions) {
+            List<GrantedAuthority> authorityByIndex = new ArrayList<>(this.authorityByIndex);
+            Map<Long, Integer> indexByPermissionId = new HashMap<>();
+            for (PermissionListItemVO permission : permissions) {
+                GrantedAuthority authority = AuthorityRegistry.of(permission.getValue());
+                Integer index = this.indexByPermissionId.get(permission.getId());
+                if (index == null) {
+                    index = authorityByIndex.size();
+                    authorityByIndex.add(authority);
+                } else {
+                    authorityByIndex.set(index, authority);
+                }
+                indexByPermissionId.put(permission.getId(), index);
+            }
+            Map<String, Integer> indexByValue = new HashMap<>();
+            for (Integer index : indexByPermissionId.values()) {
+                indexByValue.put(authorityByIndex.get(index).getAuthority(), index);
+            }
+            // 已删除的权限，从各角色的位图中清除
+            Map<Long, long[]> bitsByRoleId = this.bitsByRoleId;
+            if (indexByPermissionId.size() < this.indexByPermissionId.size()
+                    || !indexByPermissionId.keySet().containsAll(this.indexByPermissionId.keySet())) {
+                long[] live = new long[(authorityByIndex.size() + 63) / 64];
+                for (Integer index : indexByPermissionId.values()) {
+                    live[index / 64] |= 1L << (index % 64);
+                }
+                bitsByRoleId = new HashMap<>();
+                for (Map.Entry<Long, long[]> entry : this.bitsByRoleId.entrySet()) {
+                    long[] bits = entry.getValue().clone();
+                    for (int i = 0; i < bits.length; i++) {
+                        bits[i] &= i < live.length ? live[i] : 0;
+                    }
+                    bitsByRoleId.put(entry.getKey(), bits);
+                }
+            }
+            return new Snapshot(authorityByIndex, indexByPermissionId, indexByValue, bitsByRoleId);
+        }
+
+        Snapshot withRoles(Map<Long, long[]> bitsByRoleId) {
+            return new Snapshot(authorityByIndex, indexByPermissionId, indexByValue, bitsByRoleId);
+        }
+
+        /**
+         * 将权限id列表转换为位图，未知的权限id将被忽略
+         */
+        long[] toBits(List<Long> permissionIds) {
+            long[] bits = new long[(authorityByIndex.size() + 63) / 64];
+            for (Long permissionId : permissionIds) {
+                Integer index = indexByPermissionId.get(permissionId);
+                if (index != null) {
+                    bits[index / 64] |= 1L << (index % 64);
+                }
+            }
+            return bits;
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package cn.tedu.csmall.passport.security;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>要求当事人具有某项权限才允许访问的控制器方法</p>
+ *
+ * <p>与<code>@PreAuthorize("hasAuthority('...')")</code>的判断结果相同，但不必在每次请求时执行SpEL表达式，
+ * 由{@link PermissionInterceptor}根据当事人的权限位图判断</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequirePermission {
+
+    /**
+     * 所需的权限值，例如：/ams/admin/read
+     */
+    String value();
+
+}
@@ -1,19 +1,18 @@
 package cn.tedu.csmall.passport.security;
 
 import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.mapper.AdminRoleMapper;
 import cn.tedu.csmall.passport.pojo.vo.AdminLoginInfoVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 
 @Slf4j
 @Service
@@ -21,13 +20,22 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
     private AdminMapper adminMapper;
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private RbacModel rbacModel;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private AdminLoginInfoCache adminLoginInfoCache;
 
     @Override
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
         log.debug("Spring Security调用了loadUserByUsername()方法，参数：{}", s);
 
-        AdminLoginInfoVO loginInfo = adminMapper.getLoginInfoByUsername(s);
-        log.debug("从数据库查询用户名【{}】匹配的信息，结果：{}", s, loginInfo);
+        // 优先使用缓存的登录信息，未缓存时从数据库查询管理员的基本信息和角色id
+        AdminLoginInfoVO loginInfo = adminLoginInfoCache.get(s, this::getLoginInfo);
+        log.debug("查询用户名【{}】匹配的信息，结果：{}", s, loginInfo);
 
         if (loginInfo == null) {
             return null; // 暂时
@@ -35,22 +43,31 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 
         // 创建权限列表
         // AdminDetails的构造方法要求是Collection<? extends GrantedAuthority>类型的
-        // 在Mapper查询结果中的权限是List<String>类型的，所以需要遍历再创建得到所需的权限列表
-        List<String> permissions = loginInfo.getPermissions();
-        Collection<GrantedAuthority> authorities = new ArrayList<>();
-        for (String permission : permissions) {
-            GrantedAuthority authority = new SimpleGrantedAuthority(permission);
-            authorities.add(authority);
-        }
+        // 根据管理员的角色，从内存中的RBAC模型得到权限，不必关联查询角色与权限
+        // 权限对象从AuthorityRegistry中获取，同一个权限值总是对应同一个权限对象
+        Collection<GrantedAuthority> authorities = rbacModel.getAuthorities(loginInfo.getRoleIds());
 
         // 创建AdminDetails类型的对象
         // 此类型是基于User类型扩展的，可以有自定义属性，例如id
+        // 密码的BCrypt强度与当前强度不同时，标记为需要重新编码，登录成功后将在后台重新编码
         AdminDetails adminDetails = new AdminDetails(
                 loginInfo.getId(), loginInfo.getUsername(), loginInfo.getPassword(),
-                loginInfo.getEnable() == 1, authorities);
+                loginInfo.getEnable() == 1, authorities,
+                passwordEncoder.upgradeEncoding(loginInfo.getPassword()));
 
         log.debug("即将向Spring Security返回UserDetails对象：{}", adminDetails);
         return adminDetails;
     }
 
+    /**
+     * 从数据库查询管理员的基本登录信息及角色id
+     */
+    private AdminLoginInfoVO getLoginInfo(String username) {
+        AdminLoginInfoVO loginInfo = adminMapper.getBasicLoginInfoByUsername(username);
+        if (loginInfo != null) {
+            loginInfo.setRoleIds(adminRoleMapper.listRoleIdsByAdminId(loginInfo.getId()));
+        }
+        return loginInfo;
+    }
+
 }
@@ -0,0 +1,40 @@
+package cn.tedu.csmall.passport.service;
+
+import cn.tedu.csmall.passport.pojo.vo.AdminImportResultVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminImportSummaryVO;
+
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * 批量导入管理员的业务接口
+ *
+ * <p>注意：导入时按批次分别开启事务，所以此接口不使用@Transactional注解</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+public interface IAdminImportService {
+
+    /**
+     * 导入数据的格式：CSV，第1行是列名
+     */
+    String FORMAT_CSV = "csv";
+    /**
+     * 导入数据的格式：JSON，由若干个对象组成的数组
+     */
+    String FORMAT_JSON = "json";
+
+    /**
+     * 批量导入管理员
+     *
+     * <p>读取或处理数据时发生异常，将中止导入（此前已处理的批次不受影响），汇总结果中包含中止的原因</p>
+     *
+     * @param reader   导入数据，由调用者负责关闭
+     * @param format   导入数据的格式，取值为{@link #FORMAT_CSV}或{@link #FORMAT_JSON}
+     * @param listener 每行数据的导入结果的监听器，每处理完1批数据，将按行号顺序通知这一批数据的导入结果
+     * @return 导入的汇总结果
+     */
+    AdminImportSummaryVO importAdmins(Reader reader, String format, Consumer<AdminImportResultVO> listener);
+
+}
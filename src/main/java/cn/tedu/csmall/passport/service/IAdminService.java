@@ -2,10 +2,17 @@ package cn.tedu.csmall.passport.service;
 
 import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
 import cn.tedu.csmall.passport.pojo.dto.AdminLoginDTO;
+import cn.tedu.csmall.passport.pojo.vo.AdminDeleteBatchResultVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminStandardVO;
+import cn.tedu.csmall.passport.pojo.vo.CursorPageVO;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 处理管理员数据的业务接口
@@ -16,13 +23,33 @@ import java.util.List;
 @Transactional
 public interface IAdminService {
 
+    /**
+     * 导出格式：CSV
+     */
+    String EXPORT_FORMAT_CSV = "csv";
+    /**
+     * 导出格式：JSON Lines，每行是1个管理员的JSON
+     */
+    String EXPORT_FORMAT_NDJSON = "ndjson";
+
     /**
      * 管理员登录
      *
      * @param adminLoginDTO 封装了登录参数的对象
+     * @param remoteAddr    客户端IP
+     * @return 管理员登录成功后将得到的JWT
+     */
+    String login(AdminLoginDTO adminLoginDTO, String remoteAddr);
+
+    /**
+     * 管理员登录，将在登录任务的执行器中验证密码，不占用当前线程
+     *
+     * @param adminLoginDTO 封装了登录参数的对象
+     * @param remoteAddr    客户端IP
      * @return 管理员登录成功后将得到的JWT
      */
-    String login(AdminLoginDTO adminLoginDTO);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    CompletableFuture<String> loginAsync(AdminLoginDTO adminLoginDTO, String remoteAddr);
 
     /**
      * 添加管理员
@@ -38,6 +65,14 @@ public interface IAdminService {
      */
     void delete(Long id);
 
+    /**
+     * 批量删除管理员，不存在的管理员（包括1号管理员）将被忽略
+     *
+     * @param ids 若干个管理员id
+     * @return 已删除的管理员id，以及不存在的管理员id
+     */
+    AdminDeleteBatchResultVO deleteBatch(Long[] ids);
+
     /**
      * 启用管理员
      *
@@ -52,11 +87,66 @@ public interface IAdminService {
      */
     void setDisable(Long id);
 
+    /**
+     * 批量启用管理员，不存在的、已经启用的管理员（包括1号管理员）将被忽略
+     *
+     * @param ids 若干个管理员id
+     * @return 状态实际发生变化的管理员的数量
+     */
+    int setEnableBatch(Long[] ids);
+
+    /**
+     * 批量禁用管理员，不存在的、已经禁用的管理员（包括1号管理员）将被忽略
+     *
+     * @param ids 若干个管理员id
+     * @return 状态实际发生变化的管理员的数量
+     */
+    int setDisableBatch(Long[] ids);
+
+    /**
+     * 根据id查询管理员详情
+     *
+     * @param id     管理员id
+     * @param fields 需要查询的属性，以逗号分隔，为空时查询所有属性，无论是否指定，都会查询id
+     * @return 管理员详情，未查询的属性为null
+     */
+    AdminStandardVO getStandardById(Long id, String fields);
+
     /**
      * 查询管理员列表
      *
-     * @return 管理员列表
+     * @param fields 需要查询的属性，以逗号分隔，为空时查询所有属性，无论是否指定，都会查询id
+     * @return 管理员列表，未查询的属性为null
+     */
+    List<AdminListItemVO> list(String fields);
+
+    /**
+     * 基于游标分页查询管理员列表，按id升序排列
+     *
+     * @param cursor 上一页返回的游标，查询第1页时为null
+     * @param size   每页的数量，为空时使用默认数量，超出上限时使用上限
+     * @param fields 需要查询的属性，以逗号分隔，为空时查询所有属性，无论是否指定，都会查询id
+     * @return 当前页的管理员列表，以及查询下一页时使用的游标
+     */
+    CursorPageVO<AdminListItemVO> listPage(String cursor, Integer size, String fields);
+
+    /**
+     * 在用户名、昵称、手机号码、电子邮箱中搜索管理员，不区分大小写
+     *
+     * @param keyword 关键字
+     * @param limit   最多返回的数量，为空时使用默认数量，超出上限时使用上限
+     * @return 匹配的管理员列表（仅包含id、用户名、昵称、手机号码、电子邮箱、启用状态），完全相等的在前，其次是以关键字开头的
+     */
+    List<AdminListItemVO> search(String keyword, Integer limit);
+
+    /**
+     * 导出所有管理员数据，逐行查询、逐行写出，内存占用与数据量无关
+     *
+     * @param format       格式，取值为{@link #EXPORT_FORMAT_CSV}或{@link #EXPORT_FORMAT_NDJSON}
+     * @param outputStream 写出数据的输出流，不会被关闭
+     * @throws IOException 写出数据失败
      */
-    List<AdminListItemVO> list();
+    @Transactional(readOnly = true)
+    void export(String format, OutputStream outputStream) throws IOException;
 
 }
@@ -1,5 +1,6 @@
 package cn.tedu.csmall.passport.service;
 
+import cn.tedu.csmall.passport.cache.RoleListCache;
 import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,4 +22,11 @@ public interface IRoleService {
      */
     List<RoleListItemVO> list();
 
+    /**
+     * 查询角色列表的快照，包含序列化后的响应结果（原始的和gzip压缩的）及其ETag
+     *
+     * @return 角色列表的快照
+     */
+    RoleListCache.Snapshot getListSnapshot();
+
 }
@@ -0,0 +1,331 @@
+package cn.tedu.csmall.passport.service.impl;
+
+import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
+import cn.tedu.csmall.passport.service.IAdminImportService;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONReader;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>批量导入管理员时，逐行读取导入数据的读取器</p>
+ *
+ * <p>每次只解析1行数据，不会将全部数据读入内存，支持2种格式：</p>
+ *
+ * <ul>
+ *     <li>CSV：第1行是列名（username, password, nickname, avatar, phone, email, description, enable, roleIds），
+ *     列的顺序不限，角色id之间使用竖线（|）分隔，字段中包含逗号、引号或换行时，应使用双引号包裹，引号使用2个双引号表示</li>
+ *     <li>JSON：由若干个对象组成的数组，每个对象的属性与添加管理员的参数相同</li>
+ * </ul>
+ *
+ * <p>某行数据有误时，此行的结果中包含错误信息，读取器可以继续读取下一行；
+ * 数据的结构有误导致无法继续读取时，返回包含错误信息的结果后结束</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+public abstract class AdminImportReader implements Closeable {
+
+    /**
+     * 格式：CSV
+     */
+    public static final String FORMAT_CSV = IAdminImportService.FORMAT_CSV;
+    /**
+     * 格式：JSON
+     */
+    public static final String FORMAT_JSON = IAdminImportService.FORMAT_JSON;
+
+    /**
+     * 当前行号，CSV不计列名所在的行，从1开始
+     */
+    protected int rowNumber;
+    /**
+     * 是否已经结束
+     */
+    protected boolean finished;
+
+    /**
+     * 创建读取器
+     *
+     * @param reader 导入数据
+     * @param format 格式，取值为{@link #FORMAT_CSV}或{@link #FORMAT_JSON}
+     * @return 读取器
+     */
+    public static AdminImportReader of(Reader reader, String format) {
+        if (FORMAT_CSV.equals(format)) {
+            return new Csv(reader);
+        }
+        if (FORMAT_JSON.equals(format)) {
+            return new Json(reader);
+        }
+        throw new IllegalArgumentException("不支持的导入格式：" + format);
+    }
+
+    /**
+     * 读取下一行数据
+     *
+     * @return 下一行数据，如果已经没有数据，则返回null
+     */
+    public Row next() {
+        if (finished) {
+            return null;
+        }
+        try {
+            return read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            finished = true;
+            return new Row(rowNumber + 1, null, "导入数据的格式有误，无法继续读取！");
+        }
+    }
+
+    /**
+     * 读取下一行数据
+     *
+     * @return 下一行数据，如果已经没有数据，则设置finished为true并返回null
+     */
+    protected abstract Row read() throws IOException;
+
+    /**
+     * 导入数据中的1行
+     */
+    public static final class Row {
+
+        private final int number;
+        private final AdminAddNewDTO admin;
+        private final String error;
+
+        Row(int number, AdminAddNewDTO admin, String error) {
+            this.number = number;
+            this.admin = admin;
+            this.error = error;
+        }
+
+        /**
+         * @return 行号，从1开始
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return 此行的管理员数据，如果此行数据有误，则返回null
+         */
+        public AdminAddNewDTO getAdmin() {
+            return admin;
+        }
+
+        /**
+         * @return 此行数据的错误信息，如果此行数据无误，则返回null
+         */
+        public String getError() {
+            return error;
+        }
+
+    }
+
+    /**
+     * CSV格式的读取器
+     */
+    private static final class Csv extends AdminImportReader {
+
+        private final BufferedReader reader;
+        private final List<String> fields = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private String[] header;
+
+        Csv(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        }
+
+        @Override
+        protected Row read() throws IOException {
+            if (header == null) {
+                if (!readRecord()) {
+                    finished = true;
+                    return null;
+                }
+                header = new String[fields.size()];
+                for (int i = 0; i < header.length; i++) {
+                    header[i] = fields.get(i).trim().toLowerCase(Locale.ROOT);
+                }
+            }
+            if (!readRecord()) {
+                finished = true;
+                return null;
+            }
+            rowNumber++;
+            if (fields.size() != header.length) {
+                return new Row(rowNumber, null, "导入数据有误，列的数量与列名的数量不一致！");
+            }
+            AdminAddNewDTO admin = new AdminAddNewDTO();
+            try {
+                for (int i = 0; i < header.length; i++) {
+                    set(admin, header[i], fields.get(i).trim());
+                }
+            } catch (NumberFormatException e) {
+                return new Row(rowNumber, null, "导入数据有误，启用状态或角色id不是有效的数值！");
+            }
+            return new Row(rowNumber, admin, null);
+        }
+
+        private static void set(AdminAddNewDTO admin, String column, String value) {
+            if (value.isEmpty()) {
+                return;
+            }
+            switch (column) {
+                case "username":
+                    admin.setUsername(value);
+                    break;
+                case "password":
+                    admin.setPassword(value);
+                    break;
+                case "nickname":
+                    admin.setNickname(value);
+                    break;
+                case "avatar":
+                    admin.setAvatar(value);
+                    break;
+                case "phone":
+                    admin.setPhone(value);
+                    break;
+                case "email":
+                    admin.setEmail(value);
+                    break;
+                case "description":
+                    admin.setDescription(value);
+                    break;
+                case "enable":
+                    admin.setEnable(Integer.valueOf(value));
+                    break;
+                case "roleids":
+                    String[] values = value.split("\\|");
+                    Long[] roleIds = new Long[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        roleIds[i] = Long.valueOf(values[i].trim());
+                    }
+                    admin.setRoleIds(roleIds);
+                    break;
+                default:
+                    // 忽略无法识别的列
+            }
+        }
+
+        /**
+         * 读取1条记录的所有字段，跳过空行
+         *
+         * @return 如果读取到记录，则返回true，如果已经没有数据，则返回false
+         */
+        private boolean readRecord() throws IOException {
+            fields.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean empty = true;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    empty = false;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    empty = false;
+                } else if (c == '\r') {
+                    // 忽略，以\n作为行尾
+                } else if (c == '\n') {
+                    if (empty && field.length() == 0) {
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return true;
+                } else {
+                    field.append((char) c);
+                    empty = false;
+                }
+            }
+            if (quoted) {
+                throw new IllegalStateException("引号未闭合");
+            }
+            if (empty && field.length() == 0) {
+                return false;
+            }
+            fields.add(field.toString());
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+
+    }
+
+    /**
+     * JSON格式的读取器
+     */
+    private static final class Json extends AdminImportReader {
+
+        private final JSONReader reader;
+        private boolean started;
+
+        Json(Reader reader) {
+            this.reader = new JSONReader(reader);
+        }
+
+        @Override
+        protected Row read() {
+            if (!started) {
+                reader.startArray();
+                started = true;
+            }
+            if (!reader.hasNext()) {
+                reader.endArray();
+                finished = true;
+                return null;
+            }
+            rowNumber++;
+            Map<String, Object> object = new HashMap<>();
+            reader.readObject(object);
+            try {
+                AdminAddNewDTO admin = new JSONObject(object).toJavaObject(AdminAddNewDTO.class);
+                return new Row(rowNumber, admin, null);
+            } catch (JSONException | NumberFormatException e) {
+                return new Row(rowNumber, null, "导入数据有误，启用状态或角色id不是有效的数值！");
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (JSONException e) {
+                // 数据未读取完时，关闭将抛出异常，但底层的输入流已经关闭，且读取时已返回错误
+            }
+        }
+
+    }
+
+}
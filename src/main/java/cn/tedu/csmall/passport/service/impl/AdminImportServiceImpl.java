@@ -0,0 +1,343 @@
+package cn.tedu.csmall.passport.service.impl;
+
+import cn.tedu.csmall.passport.cache.AdminSearchIndex;
+import cn.tedu.csmall.passport.cache.AdminUniqueIndex;
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.mapper.AdminRoleMapper;
+import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.entity.AdminRole;
+import cn.tedu.csmall.passport.pojo.vo.AdminImportResultVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminImportSummaryVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import cn.tedu.csmall.passport.security.AdminLoginInfoCache;
+import cn.tedu.csmall.passport.service.IAdminImportService;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * <p>批量导入管理员的业务实现类</p>
+ *
+ * <p>逐行读取导入数据，每凑满1批（数量可配置）处理1次，内存中最多只保存1批数据：</p>
+ *
+ * <ul>
+ *     <li>检查每行数据：必填项、角色，以及用户名、手机号码、电子邮箱是否与本批次中的其它行、已存在的数据冲突，
+ *     与已存在的数据是否冲突只需要1次查询，且唯一字段的索引中不存在的值无须查询</li>
+ *     <li>在ForkJoinPool中并行地将密码加密，BCrypt是CPU密集型的耗时操作，是导入的主要开销</li>
+ *     <li>每批数据使用1个事务，通过1条多行插入的SQL插入管理员，再通过1条多行插入的SQL插入管理员与角色的关联，
+ *     某批数据插入失败时，只有这一批数据导入失败，此前已提交的批次不受影响</li>
+ *     <li>每批数据处理完成后，立即通知这一批数据中每行的导入结果</li>
+ * </ul>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+@Service
+public class AdminImportServiceImpl implements IAdminImportService {
+
+    @Value("${csmall.admin.import.chunk-size}")
+    private int chunkSize;
+    @Value("${csmall.admin.import.hash-parallelism}")
+    private int hashParallelism;
+    @Autowired
+    private AdminMapper adminMapper;
+    @Autowired
+    private AdminRoleMapper adminRoleMapper;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private AdminUniqueIndex adminUniqueIndex;
+    @Autowired
+    private AdminSearchIndex adminSearchIndex;
+    @Autowired
+    private AdminLoginInfoCache adminLoginInfoCache;
+
+    private TransactionTemplate transactionTemplate;
+    private ForkJoinPool hashPool;
+
+    public AdminImportServiceImpl() {
+        log.debug("创建业务对象：AdminImportServiceImpl");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (hashParallelism <= 0) {
+            hashParallelism = Runtime.getRuntime().availableProcessors();
+        }
+        hashPool = new ForkJoinPool(hashParallelism);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        log.debug("批量导入管理员：每批数量：{}，加密密码的并行度：{}", chunkSize, hashParallelism);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        hashPool.shutdown();
+    }
+
+    @Override
+    public AdminImportSummaryVO importAdmins(Reader reader, String format, Consumer<AdminImportResultVO> listener) {
+        log.debug("开始处理【批量导入管理员】的业务，格式：{}", format);
+        AdminImportReader importReader = AdminImportReader.of(reader, format);
+        long start = System.currentTimeMillis();
+        int total = 0;
+        int succeeded = 0;
+        String message = null;
+        List<Item> chunk = new ArrayList<>(chunkSize);
+        AdminImportReader.Row row;
+        try {
+            do {
+                row = importReader.next();
+                if (row != null) {
+                    chunk.add(new Item(row));
+                    total++;
+                }
+                if (chunk.size() == chunkSize || (row == null && !chunk.isEmpty())) {
+                    succeeded += importChunk(chunk);
+                    for (Item item : chunk) {
+                        listener.accept(item.result);
+                    }
+                    chunk.clear();
+                }
+            } while (row != null);
+        } catch (RuntimeException e) {
+            // 例如读取请求体时网络中断，此时已导入的批次不受影响，但不再继续读取
+            log.warn("批量导入管理员时，读取或处理第{}行附近的数据失败，导入中止：{}", total, e.getMessage());
+            message = "导入中止，读取或处理导入数据失败，没有返回导入结果的行均未导入！";
+        }
+
+        AdminImportSummaryVO summary = new AdminImportSummaryVO();
+        summary.setTotal(total);
+        summary.setSucceeded(succeeded);
+        summary.setFailed(total - succeeded);
+        summary.setMessage(message);
+        summary.setDurationInMillis(System.currentTimeMillis() - start);
+        log.debug("批量导入管理员完成：{}", summary);
+        return summary;
+    }
+
+    /**
+     * 导入1批数据
+     *
+     * @return 导入成功的数量
+     */
+    private int importChunk(List<Item> chunk) {
+        List<Item> valid = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            if (item.result.getMessage() == null) {
+                valid.add(item);
+            }
+        }
+        checkConflicts(valid);
+        valid.removeIf(item -> item.result.getMessage() != null);
+        if (valid.isEmpty()) {
+            return 0;
+        }
+
+        encodePasswords(valid);
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(valid));
+        } catch (RuntimeException e) {
+            log.warn("批量导入管理员时，第{}~{}行插入失败：{}", valid.get(0).result.getRow(),
+                    valid.get(valid.size() - 1).result.getRow(), e.getMessage());
+            String message = e instanceof ServiceException
+                    ? e.getMessage() : "导入管理员失败，服务器忙，请稍后再尝试！";
+            for (Item item : valid) {
+                item.fail(ServiceCode.ERR_INSERT, message);
+            }
+            return 0;
+        }
+
+        for (Item item : valid) {
+            Admin admin = item.admin;
+            adminUniqueIndex.add(admin.getUsername(), admin.getPhone(), admin.getEmail());
+            adminSearchIndex.add(admin);
+            adminLoginInfoCache.invalidate(admin.getId());
+            item.result.setId(admin.getId());
+            item.result.setState(ServiceCode.OK.getValue());
+        }
+        return valid.size();
+    }
+
+    /**
+     * 检查用户名、手机号码、电子邮箱是否与本批次中此前的行冲突，或与已存在的数据冲突
+     */
+    private void checkConflicts(List<Item> items) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> phones = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Admin> mightConflict = new ArrayList<>();
+        for (Item item : items) {
+            Admin admin = item.admin;
+            if (!usernames.add(normalize(admin.getUsername()))) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的用户名已经被占用！");
+            } else if (admin.getPhone() != null && !phones.add(admin.getPhone().trim())) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的手机号码已经被占用！");
+            } else if (admin.getEmail() != null && !emails.add(normalize(admin.getEmail()))) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的电子邮箱已经被占用！");
+            } else if (adminUniqueIndex.mightConflict(admin.getUsername(), admin.getPhone(), admin.getEmail())) {
+                mightConflict.add(admin);
+            }
+        }
+        if (mightConflict.isEmpty()) {
+            return;
+        }
+
+        // 1次查询出与这些行冲突的所有已存在的数据
+        usernames.clear();
+        phones.clear();
+        emails.clear();
+        for (AdminUniqueFieldsVO existing : adminMapper.listConflicts(mightConflict)) {
+            usernames.add(normalize(existing.getUsername()));
+            if (existing.getPhone() != null) {
+                phones.add(existing.getPhone().trim());
+            }
+            if (existing.getEmail() != null) {
+                emails.add(normalize(existing.getEmail()));
+            }
+        }
+        for (Item item : items) {
+            Admin admin = item.admin;
+            if (item.result.getMessage() != null) {
+                continue;
+            }
+            if (usernames.contains(normalize(admin.getUsername()))) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的用户名已经被占用！");
+            } else if (admin.getPhone() != null && phones.contains(admin.getPhone().trim())) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的手机号码已经被占用！");
+            } else if (admin.getEmail() != null && emails.contains(normalize(admin.getEmail()))) {
+                item.fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，尝试使用的电子邮箱已经被占用！");
+            }
+        }
+    }
+
+    /**
+     * 在ForkJoinPool中并行地将密码加密
+     */
+    private void encodePasswords(List<Item> items) {
+        try {
+            hashPool.submit(() -> items.parallelStream().forEach(item ->
+                    item.admin.setPassword(passwordEncoder.encode(item.admin.getPassword())))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(ServiceCode.ERR_SERVICE_UNAVAILABLE, "导入管理员失败，服务器忙，请稍后再尝试！");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 在事务中插入1批管理员及其与角色的关联
+     */
+    private void insert(List<Item> items) {
+        List<Admin> adminList = new ArrayList<>(items.size());
+        int roleCount = 0;
+        for (Item item : items) {
+            adminList.add(item.admin);
+            roleCount += item.roleIds.length;
+        }
+        int rows = adminMapper.insertBatch(adminList);
+        if (rows != adminList.size()) {
+            throw new ServiceException(ServiceCode.ERR_INSERT, "导入管理员失败，服务器忙，请稍后再尝试！");
+        }
+
+        AdminRole[] adminRoleList = new AdminRole[roleCount];
+        int i = 0;
+        for (Item item : items) {
+            for (Long roleId : item.roleIds) {
+                AdminRole adminRole = new AdminRole();
+                adminRole.setAdminId(item.admin.getId());
+                adminRole.setRoleId(roleId);
+                adminRoleList[i++] = adminRole;
+            }
+        }
+        rows = adminRoleMapper.insertBatch(adminRoleList);
+        if (rows != roleCount) {
+            throw new ServiceException(ServiceCode.ERR_INSERT, "导入管理员失败，服务器忙，请稍后再尝试！");
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 导入过程中的1行数据
+     */
+    private static final class Item {
+
+        private final AdminImportResultVO result = new AdminImportResultVO();
+        private Admin admin;
+        private Long[] roleIds;
+
+        Item(AdminImportReader.Row row) {
+            result.setRow(row.getNumber());
+            if (row.getError() != null) {
+                fail(ServiceCode.ERR_BAD_REQUEST, row.getError());
+                return;
+            }
+            AdminAddNewDTO adminAddNewDTO = row.getAdmin();
+            result.setUsername(adminAddNewDTO.getUsername());
+            if (isBlank(adminAddNewDTO.getUsername())) {
+                fail(ServiceCode.ERR_BAD_REQUEST, "导入管理员失败，用户名不能为空！");
+                return;
+            }
+            if (isBlank(adminAddNewDTO.getPassword())) {
+                fail(ServiceCode.ERR_BAD_REQUEST, "导入管理员失败，密码不能为空！");
+                return;
+            }
+            roleIds = adminAddNewDTO.getRoleIds();
+            if (roleIds == null || roleIds.length == 0) {
+                fail(ServiceCode.ERR_BAD_REQUEST, "导入管理员失败，必须为管理员分配至少1个角色！");
+                return;
+            }
+            // 不允许新的管理员分配1号角色
+            for (Long roleId : roleIds) {
+                if (roleId == null) {
+                    fail(ServiceCode.ERR_BAD_REQUEST, "导入管理员失败，角色id不能为空！");
+                    return;
+                }
+                if (roleId == 1) {
+                    fail(ServiceCode.ERR_CONFLICT, "导入管理员失败，非法访问（不允许为管理员分配1号角色）！");
+                    return;
+                }
+            }
+            admin = new Admin();
+            BeanUtils.copyProperties(adminAddNewDTO, admin);
+            // 未指定启用状态时，默认为禁用
+            if (admin.getEnable() == null) {
+                admin.setEnable(0);
+            }
+            admin.setLoginCount(0);
+        }
+
+        void fail(ServiceCode serviceCode, String message) {
+            result.setState(serviceCode.getValue());
+            result.setMessage(message);
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.trim().isEmpty();
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package cn.tedu.csmall.passport.service.impl;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>查询管理员数据时允许客户端选择的字段</p>
+ *
+ * <p>客户端提交以逗号分隔的属性名，此类将其转换为数据表的列名，列名将被直接拼接到SQL语句中，
+ * 所以只能来自此类中的白名单，而不能来自客户端提交的字符串</p>
+ *
+ * @author java@tedu.cn
+ * @version 0.0.1
+ */
+@Slf4j
+final class AdminQueryFields {
+
+    /**
+     * 属性名与列名的对应关系
+     */
+    private static final Map<String, String> COLUMNS = new HashMap<>();
+
+    static {
+        COLUMNS.put("id", "id");
+        COLUMNS.put("username", "username");
+        COLUMNS.put("nickname", "nickname");
+        COLUMNS.put("avatar", "avatar");
+        COLUMNS.put("phone", "phone");
+        COLUMNS.put("email", "email");
+        COLUMNS.put("description", "description");
+        COLUMNS.put("enable", "enable");
+        COLUMNS.put("lastLoginIp", "last_login_ip");
+        COLUMNS.put("loginCount", "login_count");
+        COLUMNS.put("gmtLastLogin", "gmt_last_login");
+    }
+
+    private AdminQueryFields() {
+    }
+
+    /**
+     * 将客户端提交的属性名转换为需要查询的列名
+     *
+     * @param fields 以逗号分隔的属性名，例如：username,nickname,enable
+     * @return 需要查询的列名，总是包含id，不会是空列表，如果参数为空，则返回null，表示查询所有列
+     * @throws ServiceException 存在不支持的属性名
+     */
+    static List<String> toColumns(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return null;
+        }
+        // id用于分页游标、后续操作等，总是查询
+        Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        for (String field : fields.split(",")) {
+            field = field.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            String column = COLUMNS.get(field);
+            if (column == null) {
+                String message = "查询管理员数据失败，不支持的字段：" + field + "！";
+                log.warn(message);
+                throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+            }
+            columns.add(column);
+        }
+        return new ArrayList<>(columns);
+    }
+
+}
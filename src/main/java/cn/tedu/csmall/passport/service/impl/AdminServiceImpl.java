@@ -1,5 +1,7 @@
 package cn.tedu.csmall.passport.service.impl;
 
+import cn.tedu.csmall.passport.cache.AdminSearchIndex;
+import cn.tedu.csmall.passport.cache.AdminUniqueIndex;
 import cn.tedu.csmall.passport.ex.ServiceException;
 import cn.tedu.csmall.passport.mapper.AdminMapper;
 import cn.tedu.csmall.passport.mapper.AdminRoleMapper;
@@ -7,15 +9,30 @@ import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
 import cn.tedu.csmall.passport.pojo.dto.AdminLoginDTO;
 import cn.tedu.csmall.passport.pojo.entity.Admin;
 import cn.tedu.csmall.passport.pojo.entity.AdminRole;
+import cn.tedu.csmall.passport.pojo.vo.AdminConflictCountVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminDeleteBatchResultVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
 import cn.tedu.csmall.passport.pojo.vo.AdminStandardVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import cn.tedu.csmall.passport.pojo.vo.CursorPageVO;
+import cn.tedu.csmall.passport.schedule.LoginStatisticsSchedule;
 import cn.tedu.csmall.passport.security.AdminDetails;
+import cn.tedu.csmall.passport.security.AdminLoginInfoCache;
+import cn.tedu.csmall.passport.security.JwtRevocationList;
+import cn.tedu.csmall.passport.security.LoginExecutor;
+import cn.tedu.csmall.passport.security.LoginThrottle;
+import cn.tedu.csmall.passport.security.PasswordRehasher;
+import cn.tedu.csmall.passport.security.PermissionDictionary;
 import cn.tedu.csmall.passport.service.IAdminService;
 import cn.tedu.csmall.passport.web.ServiceCode;
 import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -26,7 +43,13 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 处理管理员数据的业务实现类
@@ -38,10 +61,38 @@ import java.util.*;
 @Service
 public class AdminServiceImpl implements IAdminService {
 
+    /**
+     * JWT中权限的格式：紧凑格式
+     */
+    private static final String AUTHORITY_FORMAT_COMPACT = "compact";
+    /**
+     * 分页游标的前缀，用于识别游标的格式
+     */
+    private static final String CURSOR_PREFIX = "id:";
+    /**
+     * 导出CSV时的列名
+     */
+    private static final String EXPORT_CSV_HEADER = "id,username,nickname,avatar,phone,"
+            + "email,description,enable,lastLoginIp,loginCount,gmtLastLogin\r\n";
+    /**
+     * 导出时，每写出多少行发出1次数据
+     */
+    private static final int EXPORT_FLUSH_ROWS = 1000;
+
     @Value("${csmall.jwt.secret-key}")
     private String secretKey;
     @Value("${csmall.jwt.duration-in-minute}")
     private long durationInMinute;
+    @Value("${csmall.jwt.authority-format}")
+    private String authorityFormat;
+    @Value("${csmall.admin.page.default-size}")
+    private int pageDefaultSize;
+    @Value("${csmall.admin.page.max-size}")
+    private int pageMaxSize;
+    @Value("${csmall.admin.search-index.default-limit}")
+    private int searchDefaultLimit;
+    @Value("${csmall.admin.search-index.max-limit}")
+    private int searchMaxLimit;
     @Autowired
     private AdminMapper adminMapper;
     @Autowired
@@ -50,14 +101,48 @@ public class AdminServiceImpl implements IAdminService {
     private PasswordEncoder passwordEncoder;
     @Autowired
     private AuthenticationManager authenticationManager;
+    @Autowired
+    private PermissionDictionary permissionDictionary;
+    @Autowired
+    private JwtRevocationList jwtRevocationList;
+    @Autowired
+    private LoginExecutor loginExecutor;
+    @Autowired
+    private PasswordRehasher passwordRehasher;
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private LoginStatisticsSchedule loginStatisticsSchedule;
+    @Autowired
+    private AdminLoginInfoCache adminLoginInfoCache;
+    @Autowired
+    private AdminUniqueIndex adminUniqueIndex;
+    @Autowired
+    private AdminSearchIndex adminSearchIndex;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     public AdminServiceImpl() {
         log.debug("创建业务对象：AdminServiceImpl");
     }
 
     @Override
-    public String login(AdminLoginDTO adminLoginDTO) {
-        log.debug("开始处理【管理员登录】的业务，参数：{}", adminLoginDTO);
+    public String login(AdminLoginDTO adminLoginDTO, String remoteAddr) {
+        log.debug("开始处理【管理员登录】的业务，参数：{}，客户端IP：{}", adminLoginDTO, remoteAddr);
+        // 尝试次数超出限制时直接拒绝，不再查询数据库和验证密码
+        loginThrottle.acquire(adminLoginDTO.getUsername(), remoteAddr);
+        return doLogin(adminLoginDTO, remoteAddr);
+    }
+
+    @Override
+    public CompletableFuture<String> loginAsync(AdminLoginDTO adminLoginDTO, String remoteAddr) {
+        log.debug("开始处理【管理员登录】的业务，将提交到登录任务的执行器，参数：{}，客户端IP：{}", adminLoginDTO, remoteAddr);
+        // 尝试次数超出限制时直接拒绝，不再占用登录任务的队列
+        loginThrottle.acquire(adminLoginDTO.getUsername(), remoteAddr);
+        return loginExecutor.submit(() -> doLogin(adminLoginDTO, remoteAddr));
+    }
+
+    private String doLogin(AdminLoginDTO adminLoginDTO, String remoteAddr) {
         // 执行认证
         Authentication authentication = new UsernamePasswordAuthenticationToken(
                 adminLoginDTO.getUsername(), adminLoginDTO.getPassword());
@@ -72,11 +157,18 @@ public class AdminServiceImpl implements IAdminService {
         Long id = adminDetails.getId();
         String username = adminDetails.getUsername();
         Collection<GrantedAuthority> authorities = adminDetails.getAuthorities();
-        String authoritiesJsonString = JSON.toJSONString(authorities);
         log.debug("认证结果中的当事人ID：{}", id);
         log.debug("认证结果中的当事人username：{}", username);
         log.debug("认证结果中的当事人authorities：{}", authorities);
-        log.debug("认证结果中的当事人authoritiesJsonString：{}", authoritiesJsonString);
+
+        // 记录登录统计，由计划任务批量写入数据库
+        loginStatisticsSchedule.record(id, remoteAddr);
+
+        // 密码的BCrypt强度与当前强度不同时，在后台重新编码
+        if (adminDetails.isPasswordUpgradeRequired()) {
+            log.debug("管理员【{}】的密码需要以当前强度重新编码", id);
+            passwordRehasher.rehash(id, adminLoginDTO.getPassword());
+        }
 
         // 将认证通过后得到的认证信息存入到SecurityContext中
         // 【注意】注释以下2行代码后，在未完成JWT验证流程之前，用户的登录将不可用
@@ -84,20 +176,35 @@ public class AdminServiceImpl implements IAdminService {
         // securityContext.setAuthentication(authenticateResult);
 
         // ===== 生成并返回JWT =====
-        // JWT的过期时间
-        Date date = new Date(System.currentTimeMillis() + durationInMinute * 60 * 1000);
+        // JWT的签发时间和过期时间
+        Date issuedAt = new Date();
+        Date date = new Date(issuedAt.getTime() + durationInMinute * 60 * 1000);
         // 你要存入到JWT中的数据
         Map<String, Object> claims = new HashMap<>();
         claims.put("id", id);
         claims.put("username", username);
-        claims.put("authorities", authoritiesJsonString);
+        claims.put(JwtRevocationList.CLAIM_ISSUED_AT, issuedAt.getTime());
+        // 权限：优先使用紧凑格式，存在无法编码的权限时，使用JSON格式
+        String permissions = null;
+        if (AUTHORITY_FORMAT_COMPACT.equals(authorityFormat)) {
+            permissions = permissionDictionary.encode(authorities);
+        }
+        if (permissions != null) {
+            log.debug("认证结果中的当事人authorities的紧凑格式：{}", permissions);
+            claims.put(PermissionDictionary.CLAIM_PERMISSIONS, permissions);
+        } else {
+            String authoritiesJsonString = JSON.toJSONString(authorities);
+            log.debug("认证结果中的当事人authoritiesJsonString：{}", authoritiesJsonString);
+            claims.put("authorities", authoritiesJsonString);
+        }
         String jwt = Jwts.builder() // 获取JwtBuilder，准备构建JWT数据
                 // 【1】Header：主要配置alg（algorithm：算法）和typ（type：类型）属性
                 .setHeaderParam("alg", "HS256")
                 .setHeaderParam("typ", "JWT")
                 // 【2】Payload：主要配置Claims，把你要存入的数据放进去
                 .setClaims(claims)
-                // 【3】Signature：主要配置JWT的过期时间、签名的算法和secretKey
+                // 【3】Signature：主要配置JWT的签发时间、过期时间、签名的算法和secretKey
+                .setIssuedAt(issuedAt)
                 .setExpiration(date)
                 .signWith(SignatureAlgorithm.HS256, secretKey)
                 // 完成
@@ -119,52 +226,32 @@ public class AdminServiceImpl implements IAdminService {
             }
         }
 
-        {
-            // 从参数对象中取出用户名
-            String username = adminAddNewDTO.getUsername();
-            // 调用adminMapper.countByUsername()执行统计
-            int count = adminMapper.countByUsername(username);
-            // 判断统计结果是否大于0
-            if (count > 0) {
-                // 是：抛出异常（ERR_CONFLICT）
+        // 创建Admin对象
+        Admin admin = new Admin();
+        // 复制参数DTO对象中的属性到实体对象中
+        BeanUtils.copyProperties(adminAddNewDTO, admin);
+
+        // 检查用户名、手机号码、电子邮箱是否已经被占用，索引中不存在这些值时，一定未被占用，无须查询
+        if (adminUniqueIndex.mightConflict(admin.getUsername(), admin.getPhone(), admin.getEmail())) {
+            // 调用adminMapper.countConflicts()，1次查询即可分别统计3个字段
+            AdminConflictCountVO conflictCount = adminMapper.countConflicts(admin);
+            if (conflictCount.getUsernameCount() > 0) {
                 String message = "添加管理员失败，尝试使用的用户名已经被占用！";
                 log.warn(message);
                 throw new ServiceException(ServiceCode.ERR_CONFLICT, message);
             }
-        }
-
-        {
-            // 从参数对象中取出手机号码
-            String phone = adminAddNewDTO.getPhone();
-            // 调用adminMapper.countByPhone()执行统计
-            int count = adminMapper.countByPhone(phone);
-            // 判断统计结果是否大于0
-            if (count > 0) {
-                // 是：抛出异常（ERR_CONFLICT）
+            if (conflictCount.getPhoneCount() > 0) {
                 String message = "添加管理员失败，尝试使用的手机号码已经被占用！";
                 log.warn(message);
                 throw new ServiceException(ServiceCode.ERR_CONFLICT, message);
             }
-        }
-
-        {
-            // 从参数对象中取出电子邮箱
-            String email = adminAddNewDTO.getEmail();
-            // 调用adminMapper.countByEmail()执行统计
-            int count = adminMapper.countByEmail(email);
-            // 判断统计结果是否大于0
-            if (count > 0) {
-                // 是：抛出异常（ERR_CONFLICT）
+            if (conflictCount.getEmailCount() > 0) {
                 String message = "添加管理员失败，尝试使用的电子邮箱已经被占用！";
                 log.warn(message);
                 throw new ServiceException(ServiceCode.ERR_CONFLICT, message);
             }
         }
 
-        // 创建Admin对象
-        Admin admin = new Admin();
-        // 复制参数DTO对象中的属性到实体对象中
-        BeanUtils.copyProperties(adminAddNewDTO, admin);
         // 将原密码加密
         String rawPassword = admin.getPassword();
         String encodedPassword = passwordEncoder.encode(rawPassword);
@@ -178,6 +265,8 @@ public class AdminServiceImpl implements IAdminService {
             log.warn(message);
             throw new ServiceException(ServiceCode.ERR_INSERT, message);
         }
+        // 将唯一字段加入索引，即使事务回滚，索引中多出的值也只会导致再次查询数据库
+        adminUniqueIndex.add(admin.getUsername(), admin.getPhone(), admin.getEmail());
 
         // 准备批量插入管理员与角色的关联数据
         Long adminId = admin.getId();
@@ -194,6 +283,10 @@ public class AdminServiceImpl implements IAdminService {
             log.warn(message);
             throw new ServiceException(ServiceCode.ERR_INSERT, message);
         }
+
+        // 分配角色后，使登录信息的缓存失效，事务提交后加入搜索索引
+        adminLoginInfoCache.invalidate(adminId);
+        adminSearchIndex.add(admin);
     }
 
     @Override
@@ -207,7 +300,7 @@ public class AdminServiceImpl implements IAdminService {
         }
 
         // 检查尝试删除的数据是否存在
-        Object queryResult = adminMapper.getStandardById(id);
+        AdminStandardVO queryResult = adminMapper.getStandardById(id);
         if (queryResult == null) {
             String message = "删除管理员失败，尝试访问的数据不存在！";
             log.warn(message);
@@ -230,6 +323,81 @@ public class AdminServiceImpl implements IAdminService {
             log.warn(message);
             throw new ServiceException(ServiceCode.ERR_DELETE, message);
         }
+
+        // 从唯一字段的索引中移除，使登录信息的缓存失效，并吊销此管理员已持有的JWT
+        adminUniqueIndex.remove(queryResult.getUsername(), queryResult.getPhone(), queryResult.getEmail());
+        adminSearchIndex.removeAll(Collections.singletonList(id));
+        adminLoginInfoCache.invalidate(id);
+        jwtRevocationList.revoke(id);
+    }
+
+    @Override
+    public AdminDeleteBatchResultVO deleteBatch(Long[] ids) {
+        log.debug("开始处理【批量删除管理员】的业务，参数：{}", Arrays.toString(ids));
+        if (ids == null || ids.length == 0) {
+            String message = "批量删除管理员失败，请指定需要删除的管理员！";
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+
+        // 去除重复的id，不允许删除1号管理员，视为不存在
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null) {
+                requestedIds.add(id);
+            }
+        }
+        Long[] candidateIds = requestedIds.stream().filter(id -> id != 1).toArray(Long[]::new);
+
+        // 查询并锁定存在的数据，无论数量多少，总共只执行3条SQL语句
+        List<AdminUniqueFieldsVO> existingList = candidateIds.length == 0
+                ? Collections.emptyList() : adminMapper.listUniqueFieldsByIdsForUpdate(candidateIds);
+        Set<Long> existingIds = new HashSet<>();
+        for (AdminUniqueFieldsVO existing : existingList) {
+            existingIds.add(existing.getId());
+        }
+        List<Long> deletedIds = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            if (existingIds.contains(id)) {
+                deletedIds.add(id);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        if (!deletedIds.isEmpty()) {
+            Long[] deleteIds = deletedIds.toArray(new Long[0]);
+            // 执行删除--管理员表
+            log.debug("即将执行批量删除数据，参数：{}", deletedIds);
+            int rows = adminMapper.deleteByIds(deleteIds);
+            if (rows != deleteIds.length) {
+                String message = "批量删除管理员失败，服务器忙，请稍后再尝试！";
+                log.warn(message);
+                throw new ServiceException(ServiceCode.ERR_DELETE, message);
+            }
+            // 执行删除--管理员与角色的关联表
+            rows = adminRoleMapper.deleteByAdminIds(deleteIds);
+            if (rows < deleteIds.length) {
+                String message = "批量删除管理员失败，服务器忙，请稍后再尝试！";
+                log.warn(message);
+                throw new ServiceException(ServiceCode.ERR_DELETE, message);
+            }
+
+            // 从唯一字段的索引中移除，使登录信息的缓存失效，并吊销这些管理员已持有的JWT
+            for (AdminUniqueFieldsVO existing : existingList) {
+                adminUniqueIndex.remove(existing.getUsername(), existing.getPhone(), existing.getEmail());
+                adminLoginInfoCache.invalidate(existing.getId());
+            }
+            adminSearchIndex.removeAll(deletedIds);
+            jwtRevocationList.revokeAll(deletedIds);
+        }
+
+        AdminDeleteBatchResultVO result = new AdminDeleteBatchResultVO();
+        result.setDeletedIds(deletedIds);
+        result.setMissingIds(missingIds);
+        log.debug("批量删除管理员完成，结果：{}", result);
+        return result;
     }
 
     @Override
@@ -243,19 +411,184 @@ public class AdminServiceImpl implements IAdminService {
     }
 
     @Override
-    public List<AdminListItemVO> list() {
-        log.debug("开始处理【查询管理员列表】的业务，参数：无");
-        List<AdminListItemVO> list = adminMapper.list();
-        Iterator<AdminListItemVO> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            AdminListItemVO roleListItemVO = iterator.next();
-            if (roleListItemVO.getId() == 1) {
-                iterator.remove();
-            }
+    public int setEnableBatch(Long[] ids) {
+        return updateEnableByIds(ids, 1);
+    }
+
+    @Override
+    public int setDisableBatch(Long[] ids) {
+        return updateEnableByIds(ids, 0);
+    }
+
+    @Override
+    public AdminStandardVO getStandardById(Long id, String fields) {
+        log.debug("开始处理【根据id查询管理员详情】的业务，参数：{}，字段：{}", id, fields);
+        List<String> columns = AdminQueryFields.toColumns(fields);
+        // 与列表一致，不允许查询1号管理员
+        AdminStandardVO queryResult = id == 1 ? null : adminMapper.getStandardByIdWithColumns(id, columns);
+        if (queryResult == null) {
+            String message = "查询管理员详情失败，尝试访问的数据不存在！";
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_NOT_FOUND, message);
+        }
+        return queryResult;
+    }
+
+    @Override
+    public List<AdminListItemVO> list(String fields) {
+        log.debug("开始处理【查询管理员列表】的业务，字段：{}", fields);
+        List<String> columns = AdminQueryFields.toColumns(fields);
+        // 查询结果中不包含1号管理员
+        return adminMapper.list(columns);
+    }
+
+    @Override
+    public CursorPageVO<AdminListItemVO> listPage(String cursor, Integer size, String fields) {
+        log.debug("开始处理【分页查询管理员列表】的业务，游标：{}，每页数量：{}，字段：{}", cursor, size, fields);
+        List<String> columns = AdminQueryFields.toColumns(fields);
+        long afterId = decodeCursor(cursor);
+        if (size == null || size <= 0) {
+            size = pageDefaultSize;
+        }
+        size = Math.min(size, pageMaxSize);
+
+        // 多查询1条，用于判断是否存在下一页
+        List<AdminListItemVO> list = adminMapper.listAfterId(afterId, size + 1, columns);
+        CursorPageVO<AdminListItemVO> page = new CursorPageVO<>();
+        if (list.size() > size) {
+            list = list.subList(0, size);
+            page.setNextCursor(encodeCursor(list.get(size - 1).getId()));
+        }
+        page.setList(list);
+        return page;
+    }
+
+    @Override
+    public List<AdminListItemVO> search(String keyword, Integer limit) {
+        log.debug("开始处理【搜索管理员】的业务，关键字：{}，数量：{}", keyword, limit);
+        if (keyword == null || keyword.trim().isEmpty()) {
+            String message = "搜索管理员失败，请提交搜索关键字！";
+            log.warn(message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+        keyword = keyword.trim();
+        if (limit == null || limit <= 0) {
+            limit = searchDefaultLimit;
+        }
+        limit = Math.min(limit, searchMaxLimit);
+
+        // 优先使用内存中的搜索索引，索引尚未就绪时查询数据库
+        List<AdminListItemVO> list = adminSearchIndex.search(keyword, limit);
+        if (list == null) {
+            log.debug("管理员搜索索引尚未就绪，将查询数据库");
+            String pattern = keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            list = adminMapper.search(keyword, pattern, limit);
         }
         return list;
     }
 
+    @Override
+    public void export(String format, OutputStream outputStream) throws IOException {
+        log.debug("开始处理【导出管理员数据】的业务，格式：{}", format);
+        boolean csv = EXPORT_FORMAT_CSV.equals(format);
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        // 写出JSON后不关闭writer
+        ObjectWriter jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (csv) {
+            // 写出BOM，使电子表格软件能识别UTF-8编码，写出列名后立即发出，使客户端尽快收到响应
+            writer.write('\uFEFF');
+            writer.write(EXPORT_CSV_HEADER);
+            writer.flush();
+        }
+        int count = 0;
+        try (Cursor<AdminListItemVO> cursor = adminMapper.listCursor()) {
+            for (AdminListItemVO item : cursor) {
+                if (csv) {
+                    writeCsvRow(writer, item);
+                } else {
+                    jsonWriter.writeValue(writer, item);
+                    writer.write('\n');
+                }
+                count++;
+                // 第1行立即发出，此后每隔若干行发出1次，OutputStreamWriter自带的缓冲区（8KB）写满时也会发出
+                if (count == 1 || count % EXPORT_FLUSH_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.debug("导出管理员数据完成，数量：{}", count);
+    }
+
+    private static void writeCsvRow(Writer writer, AdminListItemVO item) throws IOException {
+        Object[] values = {
+                item.getId(), item.getUsername(), item.getNickname(), item.getAvatar(), item.getPhone(),
+                item.getEmail(), item.getDescription(), item.getEnable(), item.getLastLoginIp(), item.getLoginCount(),
+                item.getGmtLastLogin()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * 写出CSV字段，包含逗号、引号或换行时，使用双引号包裹，引号使用2个双引号表示
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    /**
+     * 将上一页最后一条数据的id编码为游标，游标对客户端是不透明的，客户端不应该解析或拼接游标
+     */
+    private static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，得到上一页最后一条数据的id，游标为空时表示查询第1页
+     */
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (value.startsWith(CURSOR_PREFIX)) {
+                long lastId = Long.parseLong(value.substring(CURSOR_PREFIX.length()));
+                if (lastId >= 0) {
+                    return lastId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 与格式错误一并处理
+        }
+        String message = "查询管理员列表失败，分页游标无效！";
+        log.warn(message);
+        throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+    }
+
     private void updateEnableById(Long id, Integer enable) {
         String[] enableText = {"禁用", "启用"};
         log.debug("开始处理【{}管理员】的业务，ID：{}，目标状态：{}", enableText[enable], id, enable);
@@ -266,33 +599,66 @@ public class AdminServiceImpl implements IAdminService {
             throw new ServiceException(ServiceCode.ERR_NOT_FOUND, message);
         }
 
-        // 检查数据是否存在
-        AdminStandardVO queryResult = adminMapper.getStandardById(id);
-        if (queryResult == null) {
-            String message = enableText[enable] + "管理员失败，尝试访问的数据不存在！";
-            log.warn(message);
-            throw new ServiceException(ServiceCode.ERR_NOT_FOUND, message);
-        }
-
-        // 检查当前状态是否与参数表示的状态相同
-        if (queryResult.getEnable().equals(enable)) {
+        // 执行有条件的更新：仅当原状态与目标状态不同时才修改
+        Admin admin = new Admin();
+        admin.setId(id);
+        admin.setEnable(enable);
+        log.debug("即将修改数据，参数：{}", admin);
+        int rows = adminMapper.updateEnableById(admin);
+        if (rows == 0) {
+            // 未修改任何数据，此时才需要查询，以区分数据不存在、已经处于目标状态
+            AdminStandardVO queryResult = adminMapper.getStandardById(id);
+            if (queryResult == null) {
+                String message = enableText[enable] + "管理员失败，尝试访问的数据不存在！";
+                log.warn(message);
+                throw new ServiceException(ServiceCode.ERR_NOT_FOUND, message);
+            }
             String message = enableText[enable] + "管理员失败，当前管理员已经处于"
                     + enableText[enable] + "状态！";
             log.warn(message);
             throw new ServiceException(ServiceCode.ERR_CONFLICT, message);
         }
 
-        // 准备执行更新
-        Admin admin = new Admin();
-        admin.setId(id);
-        admin.setEnable(enable);
-        log.debug("即将修改数据，参数：{}", admin);
-        int rows = adminMapper.update(admin);
-        if (rows != 1) {
-            String message = enableText[enable] + "管理员失败，服务器忙，请稍后再次尝试！";
+        // 使登录信息的缓存失效，修改搜索索引中的启用状态，禁用管理员时，吊销此管理员已持有的JWT
+        adminLoginInfoCache.invalidate(id);
+        adminSearchIndex.setEnableAll(Collections.singletonList(id), enable);
+        if (enable == 0) {
+            jwtRevocationList.revoke(id);
+        }
+    }
+
+    private int updateEnableByIds(Long[] ids, Integer enable) {
+        String[] enableText = {"禁用", "启用"};
+        log.debug("开始处理【批量{}管理员】的业务，ID：{}，目标状态：{}",
+                enableText[enable], Arrays.toString(ids), enable);
+        // 去除重复的id，不允许调整1号管理员的启用状态，将被忽略
+        Set<Long> idSet = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null && id != 1) {
+                    idSet.add(id);
+                }
+            }
+        }
+        if (idSet.isEmpty()) {
+            String message = "批量" + enableText[enable] + "管理员失败，请指定需要" + enableText[enable] + "的管理员！";
             log.warn(message);
-            throw new ServiceException(ServiceCode.ERR_UPDATE, message);
+            throw new ServiceException(ServiceCode.ERR_BAD_REQUEST, message);
+        }
+
+        // 1条SQL语句修改所有管理员，已经处于目标状态的、不存在的管理员不会被修改
+        int rows = adminMapper.updateEnableByIds(idSet.toArray(new Long[0]), enable);
+        log.debug("批量{}管理员完成，状态发生变化的管理员数量：{}", enableText[enable], rows);
+
+        // 无法得知哪些管理员的状态发生了变化，所以处理所有管理员：使登录信息的缓存失效，禁用时吊销这些管理员已持有的JWT
+        for (Long id : idSet) {
+            adminLoginInfoCache.invalidate(id);
+        }
+        adminSearchIndex.setEnableAll(idSet, enable);
+        if (enable == 0) {
+            jwtRevocationList.revokeAll(idSet);
         }
+        return rows;
     }
 
 }
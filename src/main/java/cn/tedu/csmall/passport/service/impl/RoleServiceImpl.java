@@ -1,13 +1,13 @@
 package cn.tedu.csmall.passport.service.impl;
 
-import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.cache.RoleListCache;
 import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
 import cn.tedu.csmall.passport.service.IRoleService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,20 +21,19 @@ import java.util.List;
 public class RoleServiceImpl implements IRoleService {
 
     @Autowired
-    private RoleMapper roleMapper;
+    private RoleListCache roleListCache;
 
     @Override
     public List<RoleListItemVO> list() {
         log.debug("开始处理【查询角色列表】的业务，无参数");
-        List<RoleListItemVO> list = roleMapper.list();
-        Iterator<RoleListItemVO> iterator = list.iterator();
-        while (iterator.hasNext()) {
-            RoleListItemVO roleListItemVO = iterator.next();
-            if (roleListItemVO.getId() == 1) {
-                iterator.remove();
-            }
-        }
-        return list;
+        // 缓存中的列表不包含1号角色
+        return new ArrayList<>(roleListCache.get().getList());
+    }
+
+    @Override
+    public RoleListCache.Snapshot getListSnapshot() {
+        log.debug("开始处理【查询角色列表的快照】的业务，无参数");
+        return roleListCache.get();
     }
 
 }
@@ -36,6 +36,10 @@ public enum ServiceCode {
      * 错误：数据冲突
      */
     ERR_CONFLICT(40900),
+    /**
+     * 错误：请求过于频繁
+     */
+    ERR_TOO_MANY_REQUESTS(42900),
     /**
      * 错误：插入数据错误
      */
@@ -52,6 +56,10 @@ public enum ServiceCode {
      * 错误：查询数据错误
      */
     ERR_SELECT(50030),
+    /**
+     * 错误：服务器忙，暂时无法处理请求
+     */
+    ERR_SERVICE_UNAVAILABLE(50300),
     /**
      * 错误：JWT过期
      */
@@ -64,6 +72,10 @@ public enum ServiceCode {
      * 错误：JWT格式错误
      */
     ERR_JWT_MALFORMED(60300),
+    /**
+     * 错误：JWT已被吊销
+     */
+    ERR_JWT_REVOKED(60400),
     /**
      * 错误：未知错误
      */
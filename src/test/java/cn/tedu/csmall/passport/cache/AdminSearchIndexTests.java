@@ -0,0 +1,177 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AdminSearchIndexTests {
+
+    AdminMapper adminMapper;
+    AdminSearchIndex adminSearchIndex;
+    List<AdminListItemVO> admins = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        admins.add(admin(2L, "wangkejing", "王克晶", "13900139001", "wangkejing@baidu.com"));
+        admins.add(admin(3L, "wang", "王老师", "13900139002", "wang@tedu.cn"));
+        admins.add(admin(4L, "liucangsong", "刘苍松", "13900139003", "liucs@tedu.cn"));
+        admins.add(admin(5L, "fanchuanqi", "范传奇", "13900139004", null));
+        adminMapper = Mockito.mock(AdminMapper.class);
+        Mockito.when(adminMapper.list(ArgumentMatchers.any())).thenAnswer(invocation -> new ArrayList<>(admins));
+        adminSearchIndex = new AdminSearchIndex();
+        ReflectionTestUtils.setField(adminSearchIndex, "enabled", true);
+        ReflectionTestUtils.setField(adminSearchIndex, "adminMapper", adminMapper);
+    }
+
+    AdminListItemVO admin(Long id, String username, String nickname, String phone, String email) {
+        AdminListItemVO admin = new AdminListItemVO();
+        admin.setId(id);
+        admin.setUsername(username);
+        admin.setNickname(nickname);
+        admin.setPhone(phone);
+        admin.setEmail(email);
+        admin.setEnable(1);
+        return admin;
+    }
+
+    List<Long> ids(String keyword) {
+        return adminSearchIndex.search(keyword, 10).stream()
+                .map(AdminListItemVO::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void search() {
+        Assertions.assertNull(adminSearchIndex.search("wang", 10));
+        adminSearchIndex.reload();
+
+        // 完全相等的在前，其次是以关键字开头的，最后是包含关键字的
+        Assertions.assertEquals(Arrays.asList(3L, 2L), ids(" WANG "));
+        Assertions.assertEquals(Arrays.asList(2L, 3L), ids("王"));
+        Assertions.assertEquals(Collections.singletonList(4L), ids("苍松"));
+        Assertions.assertEquals(Arrays.asList(2L, 3L, 4L, 5L), ids("1390013900"));
+        Assertions.assertEquals(Arrays.asList(3L, 4L), ids("tedu.cn"));
+        Assertions.assertEquals(Collections.emptyList(), ids("wangx"));
+        Assertions.assertEquals(Collections.singletonList(2L), adminSearchIndex.search("139", 1).stream()
+                .map(AdminListItemVO::getId).collect(Collectors.toList()));
+
+        AdminListItemVO item = adminSearchIndex.search("fanchuanqi", 10).get(0);
+        Assertions.assertEquals("范传奇", item.getNickname());
+        Assertions.assertEquals(1, item.getEnable());
+    }
+
+    @Test
+    void incrementalChanges() {
+        adminSearchIndex.reload();
+        Admin admin = new Admin();
+        admin.setId(6L);
+        admin.setUsername("wanglaoshi");
+        admin.setNickname("王老师");
+        admin.setEnable(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adminSearchIndex.add(admin);
+            adminSearchIndex.removeAll(Collections.singletonList(2L));
+            adminSearchIndex.setEnableAll(Arrays.asList(3L, 9527L), 0);
+            // 事务提交前，索引不变
+            Assertions.assertEquals(Arrays.asList(3L, 2L), ids("wang"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertEquals(Arrays.asList(3L, 6L), ids("wang"));
+        Assertions.assertEquals(0, adminSearchIndex.search("wang", 1).get(0).getEnable());
+        Assertions.assertEquals(4, adminSearchIndex.size());
+    }
+
+    @Test
+    void addInCommitOrder() {
+        adminSearchIndex.reload();
+        // 2个事务先后获得id，但id较大的事务先提交
+        for (long id : new long[]{8, 6, 7}) {
+            Admin admin = new Admin();
+            admin.setId(id);
+            admin.setUsername("wang" + id);
+            admin.setEnable(1);
+            adminSearchIndex.add(admin);
+        }
+
+        Assertions.assertEquals(Arrays.asList(3L, 2L, 6L, 7L, 8L), ids("wang"));
+        // 关键字只有1个字符时，检查所有数据
+        Assertions.assertEquals(Arrays.asList(2L, 3L, 4L, 6L, 7L, 8L), ids("g"));
+    }
+
+    @Test
+    void changesDuringReload() {
+        adminSearchIndex.reload();
+        Mockito.when(adminMapper.list(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            // 重建期间删除了管理员，查询结果中仍包含此管理员
+            adminSearchIndex.removeAll(Collections.singletonList(4L));
+            return new ArrayList<>(admins);
+        });
+
+        adminSearchIndex.reload();
+
+        Assertions.assertEquals(Collections.emptyList(), ids("liucangsong"));
+        Assertions.assertEquals(3, adminSearchIndex.size());
+    }
+
+    @Test
+    void performance() {
+        admins.clear();
+        int count = 100000;
+        String[] surnames = {"王", "李", "张", "刘", "陈", "杨", "赵", "黄", "周", "吴"};
+        String[] names = {"伟", "芳", "娜", "敏", "静", "丽", "强", "磊", "军", "洋", "勇", "艳", "杰", "娟", "涛"};
+        for (long id = 2; id < count + 2; id++) {
+            String nickname = surnames[(int) (id % surnames.length)] + names[(int) (id / 10 % names.length)]
+                    + names[(int) (id / 150 % names.length)];
+            admins.add(admin(id, "admin" + id, nickname, "138" + (10000000 + id * 37 % 90000000),
+                    "admin" + id + "@tedu.cn"));
+        }
+        long start = System.nanoTime();
+        adminSearchIndex.reload();
+        long loadMillis = (System.nanoTime() - start) / 1000000;
+        System.out.println("管理员数量：" + count + "，加载索引耗时（毫秒）：" + loadMillis);
+
+        String[] keywords = {"admin54321", "1381000", "王芳", "tedu", "a"};
+        for (String keyword : keywords) {
+            int times = 200;
+            // 预热
+            for (int i = 0; i < times; i++) {
+                adminSearchIndex.search(keyword, 10);
+            }
+            start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < times; i++) {
+                found = adminSearchIndex.search(keyword, 10).size();
+            }
+            long micros = (System.nanoTime() - start) / times / 1000;
+            System.out.println("搜索【" + keyword + "】返回" + found + "条，耗时（微秒）：" + micros);
+        }
+    }
+
+    // 管理员数量：100000，加载索引耗时（毫秒）：3121
+    // 搜索【admin54321】返回1条，耗时（微秒）：372
+    // 搜索【1381000】返回10条，耗时（微秒）：3
+    // 搜索【王芳】返回10条，耗时（微秒）：6
+    // 搜索【tedu】返回10条，耗时（微秒）：23
+    // 搜索【a】返回10条，耗时（微秒）：2
+
+}
@@ -0,0 +1,103 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AdminUniqueIndexTests {
+
+    AdminMapper adminMapper;
+    AdminUniqueIndex adminUniqueIndex;
+    List<AdminUniqueFieldsVO> admins = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        admins.add(admin(1L, "root", "13900139000", "root@baidu.com"));
+        admins.add(admin(2L, "WangKeJing", "13900139001", null));
+        adminMapper = Mockito.mock(AdminMapper.class);
+        Mockito.when(adminMapper.listUniqueFields()).thenAnswer(invocation -> new ArrayList<>(admins));
+        adminUniqueIndex = new AdminUniqueIndex();
+        ReflectionTestUtils.setField(adminUniqueIndex, "enabled", true);
+        ReflectionTestUtils.setField(adminUniqueIndex, "adminMapper", adminMapper);
+    }
+
+    AdminUniqueFieldsVO admin(Long id, String username, String phone, String email) {
+        AdminUniqueFieldsVO admin = new AdminUniqueFieldsVO();
+        admin.setId(id);
+        admin.setUsername(username);
+        admin.setPhone(phone);
+        admin.setEmail(email);
+        return admin;
+    }
+
+    @Test
+    void mightConflict() {
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("ROOT", "13800138000", "new@baidu.com"));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", " 13900139001 ", "new@baidu.com"));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", "13800138000", "Root@Baidu.com"));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("wangkejing", null, null));
+        Assertions.assertFalse(adminUniqueIndex.mightConflict("new", "13800138000", "new@baidu.com"));
+        Assertions.assertFalse(adminUniqueIndex.mightConflict("new", null, null));
+        // 只在首次使用时加载
+        Mockito.verify(adminMapper, Mockito.times(1)).listUniqueFields();
+    }
+
+    @Test
+    void addAndRemove() {
+        Assertions.assertFalse(adminUniqueIndex.mightConflict("new", null, null));
+        adminUniqueIndex.add("New", "13800138000", "new@baidu.com");
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", null, null));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict(null, "13800138000", null));
+
+        adminUniqueIndex.remove("New", "13800138000", "new@baidu.com");
+        Assertions.assertFalse(adminUniqueIndex.mightConflict("new", "13800138000", "new@baidu.com"));
+        Assertions.assertEquals(2, adminUniqueIndex.size());
+    }
+
+    @Test
+    void reloadBeforeCommit() {
+        Assertions.assertFalse(adminUniqueIndex.mightConflict("new", null, null));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adminUniqueIndex.add("New", "13800138000", "new@baidu.com");
+            Assertions.assertTrue(adminUniqueIndex.mightConflict("new", null, null));
+            // 事务提交前开始全量刷新，查询结果中不包含尚未提交的管理员
+            adminUniqueIndex.reload();
+            Assertions.assertFalse(adminUniqueIndex.mightConflict("new", null, null));
+            // 事务提交后，以上管理员成为数据库中的数据
+            admins.add(admin(3L, "New", "13800138000", "new@baidu.com"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", null, null));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict(null, "13800138000", null));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict(null, null, "NEW@baidu.com"));
+    }
+
+    @Test
+    void unavailable() {
+        // 加载失败时，总是需要查询数据库
+        Mockito.when(adminMapper.listUniqueFields()).thenThrow(new RuntimeException("数据库不可用"));
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", null, null));
+        Assertions.assertEquals(0, adminUniqueIndex.size());
+
+        // 未启用时，不加载索引
+        ReflectionTestUtils.setField(adminUniqueIndex, "enabled", false);
+        Assertions.assertTrue(adminUniqueIndex.mightConflict("new", null, null));
+        Mockito.verify(adminMapper, Mockito.times(1)).listUniqueFields();
+    }
+
+}
@@ -0,0 +1,147 @@
+package cn.tedu.csmall.passport.cache;
+
+import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
+import cn.tedu.csmall.passport.web.JsonResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class RoleListCacheTests {
+
+    RoleMapper roleMapper;
+    TableVersions tableVersions;
+    ObjectMapper objectMapper;
+    RoleListCache roleListCache;
+    List<RoleListItemVO> roles;
+
+    @BeforeEach
+    void setUp() {
+        roleMapper = Mockito.mock(RoleMapper.class);
+        tableVersions = new TableVersions();
+        // 与application.yml中的spring.jackson.default-property-inclusion一致
+        objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        roleListCache = new RoleListCache();
+        ReflectionTestUtils.setField(roleListCache, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(roleListCache, "tableVersions", tableVersions);
+        ReflectionTestUtils.setField(roleListCache, "objectMapper", objectMapper);
+        roles = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            roles.add(role(id));
+        }
+        // 与Mapper一致，每次查询都返回新的列表
+        Mockito.when(roleMapper.list()).thenAnswer(invocation -> new ArrayList<>(roles));
+    }
+
+    RoleListItemVO role(long id) {
+        RoleListItemVO role = new RoleListItemVO();
+        role.setId(id);
+        role.setName("角色" + id);
+        role.setDescription("拥有商品、订单等模块的部分管理权限的角色" + id);
+        role.setSort((int) (100 - id));
+        return role;
+    }
+
+    @Test
+    void get() throws Exception {
+        RoleListCache.Snapshot snapshot = roleListCache.get();
+
+        Assertions.assertEquals(19, snapshot.getList().size());
+        Assertions.assertEquals(2L, snapshot.getList().get(0).getId());
+        byte[] expected = objectMapper.writeValueAsBytes(JsonResult.ok(roles.subList(1, roles.size())));
+        Assertions.assertArrayEquals(expected, snapshot.getJson());
+        byte[] unzipped = StreamUtils.copyToByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(snapshot.getGzipJson())));
+        Assertions.assertArrayEquals(expected, unzipped);
+        Assertions.assertEquals(tableVersions.getETag(null, RoleListCache.TABLE), snapshot.getETag());
+        Assertions.assertEquals(tableVersions.getETag("gzip", RoleListCache.TABLE), snapshot.getGzipETag());
+        Assertions.assertSame(snapshot, roleListCache.get());
+        Mockito.verify(roleMapper, Mockito.times(1)).list();
+    }
+
+    @Test
+    void invalidate() {
+        RoleListCache.Snapshot snapshot = roleListCache.get();
+
+        // 通过MyBatis修改角色数据后，版本发生变化
+        tableVersions.changed(RoleListCache.TABLE);
+        RoleListCache.Snapshot changed = roleListCache.get();
+        Assertions.assertNotSame(snapshot, changed);
+        Assertions.assertNotEquals(snapshot.getETag(), changed.getETag());
+
+        roleListCache.invalidate();
+        Assertions.assertNotSame(changed, roleListCache.get());
+        Mockito.verify(roleMapper, Mockito.times(3)).list();
+    }
+
+    @Test
+    void scheduledReload() {
+        // 尚未加载时不刷新
+        roleListCache.scheduledReload();
+        Mockito.verify(roleMapper, Mockito.never()).list();
+
+        RoleListCache.Snapshot snapshot = roleListCache.get();
+        roleListCache.scheduledReload();
+        Assertions.assertEquals(0, tableVersions.getVersion(RoleListCache.TABLE));
+
+        // 其它途径修改了角色数据
+        roles.get(1).setName("新的角色名称");
+        roleListCache.scheduledReload();
+        Assertions.assertEquals(1, tableVersions.getVersion(RoleListCache.TABLE));
+        Assertions.assertNotSame(snapshot, roleListCache.get());
+        // 刷新后的快照的ETag与新的版本对应
+        Assertions.assertEquals(tableVersions.getETag(null, RoleListCache.TABLE), roleListCache.get().getETag());
+        Assertions.assertEquals("新的角色名称", roleListCache.get().getList().get(0).getName());
+        Mockito.verify(roleMapper, Mockito.times(3)).list();
+    }
+
+    @Test
+    void performance() throws Exception {
+        int times = 100000;
+        long sink = 0;
+        // 预热
+        for (int i = 0; i < times; i++) {
+            sink += serialize().length + roleListCache.get().getJson().length;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink += serialize().length;
+        }
+        long serializeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink += roleListCache.get().getJson().length;
+        }
+        long cachedNanos = System.nanoTime() - start;
+
+        RoleListCache.Snapshot snapshot = roleListCache.get();
+        System.out.println("每次过滤并序列化角色列表耗时（纳秒，不含查询数据库）：" + serializeNanos / times);
+        System.out.println("每次从缓存获取已序列化的角色列表耗时（纳秒）：" + cachedNanos / times);
+        System.out.println("响应结果（字节）：" + snapshot.getJson().length + "，gzip：" + snapshot.getGzipJson().length);
+        Assertions.assertTrue(sink > 0);
+        Assertions.assertTrue(cachedNanos < serializeNanos);
+    }
+
+    // 每次过滤并序列化角色列表耗时（纳秒，不含查询数据库）：36144
+    // 每次从缓存获取已序列化的角色列表耗时（纳秒）：107
+    // 响应结果（字节）：2223，gzip：354
+
+    private byte[] serialize() throws Exception {
+        List<RoleListItemVO> list = new ArrayList<>(roleMapper.list());
+        list.removeIf(role -> role.getId() == 1);
+        return objectMapper.writeValueAsBytes(JsonResult.ok(list));
+    }
+
+}
@@ -0,0 +1,77 @@
+package cn.tedu.csmall.passport.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+public class TableVersionsTests {
+
+    @Test
+    void changed() {
+        TableVersions tableVersions = new TableVersions();
+        String etag = tableVersions.getETag(null, "ams_admin");
+
+        tableVersions.changed("ams_admin");
+
+        Assertions.assertEquals(1, tableVersions.getVersion("ams_admin"));
+        Assertions.assertEquals(0, tableVersions.getVersion("ams_role"));
+        Assertions.assertNotEquals(etag, tableVersions.getETag(null, "ams_admin"));
+        Assertions.assertNotEquals(tableVersions.getETag("fields=id", "ams_admin"),
+                tableVersions.getETag("fields=username", "ams_admin"));
+    }
+
+    @Test
+    void changedInTransaction() {
+        TableVersions tableVersions = new TableVersions();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tableVersions.changed("ams_admin");
+            tableVersions.changed("ams_admin");
+
+            // 事务结束前，其它请求仍然只能查询到修改前的数据，所以版本不变
+            Assertions.assertEquals(0, tableVersions.getVersion("ams_admin"));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertEquals(2, tableVersions.getVersion("ams_admin"));
+    }
+
+    @Test
+    void checkNotModified() {
+        TableVersions tableVersions = new TableVersions();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admins");
+
+        Assertions.assertFalse(tableVersions.checkNotModified(new ServletWebRequest(request, response), null, "ams_admin"));
+        String etag = response.getHeader("ETag");
+        Assertions.assertNotNull(etag);
+        Assertions.assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+        Assertions.assertNull(response.getHeader("Last-Modified"));
+
+        // 只携带If-Modified-Since的，不能确定数据没有变化
+        request = new MockHttpServletRequest("GET", "/admins");
+        request.addHeader("If-Modified-Since", System.currentTimeMillis());
+        response = new MockHttpServletResponse();
+        Assertions.assertFalse(tableVersions.checkNotModified(new ServletWebRequest(request, response), null, "ams_admin"));
+        Assertions.assertEquals(200, response.getStatus());
+
+        request = new MockHttpServletRequest("GET", "/admins");
+        request.addHeader("If-None-Match", etag);
+        response = new MockHttpServletResponse();
+        Assertions.assertTrue(tableVersions.checkNotModified(new ServletWebRequest(request, response), null, "ams_admin"));
+        Assertions.assertEquals(304, response.getStatus());
+
+        tableVersions.changed("ams_admin");
+        response = new MockHttpServletResponse();
+        Assertions.assertFalse(tableVersions.checkNotModified(new ServletWebRequest(request, response), null, "ams_admin"));
+        Assertions.assertEquals(200, response.getStatus());
+    }
+
+}
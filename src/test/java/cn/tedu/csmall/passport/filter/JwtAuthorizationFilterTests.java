@@ -0,0 +1,114 @@
+package cn.tedu.csmall.passport.filter;
+
+import cn.tedu.csmall.passport.security.JwtCache;
+import cn.tedu.csmall.passport.web.JsonResult;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import com.alibaba.fastjson.JSON;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class JwtAuthorizationFilterTests {
+
+    String secretKey = "fdsFOj4tp9Dgvfd9t45rDkFSLKgfR8ou";
+
+    JwtAuthorizationFilter newFilter() {
+        JwtCache jwtCache = new JwtCache();
+        ReflectionTestUtils.setField(jwtCache, "maxSize", 100);
+        JwtAuthorizationFilter filter = new JwtAuthorizationFilter();
+        ReflectionTestUtils.setField(filter, "secretKey", secretKey);
+        ReflectionTestUtils.setField(filter, "durationInMinute", 10080L);
+        ReflectionTestUtils.setField(filter, "jwtCache", jwtCache);
+        return filter;
+    }
+
+    String generate(String secretKey, long expiration) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("id", 9527L);
+        claims.put("username", "root");
+        claims.put("authorities", "[]");
+        return Jwts.builder()
+                .setHeaderParam("alg", "HS256")
+                .setHeaderParam("typ", "JWT")
+                .setClaims(claims)
+                .setExpiration(new Date(expiration))
+                .signWith(SignatureAlgorithm.HS256, secretKey)
+                .compact();
+    }
+
+    MockHttpServletResponse doFilter(String jwt) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admins");
+        request.addHeader("Authorization", jwt);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        newFilter().doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void expired() throws Exception {
+        MockHttpServletResponse response = doFilter(generate(secretKey, System.currentTimeMillis() - 1000));
+
+        JsonResult jsonResult = JSON.parseObject(response.getContentAsString(StandardCharsets.UTF_8), JsonResult.class);
+        Assertions.assertEquals(ServiceCode.ERR_JWT_EXPIRED.getValue(), jsonResult.getState());
+        Assertions.assertEquals("您的登录信息已过期，请重新登录！", jsonResult.getMessage());
+        Assertions.assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+        Assertions.assertEquals("application/json;charset=utf-8", response.getContentType());
+    }
+
+    @Test
+    void forged() throws Exception {
+        String jwt = generate("thisIsNotTheSecretKeyOfServer", System.currentTimeMillis() + 60 * 1000);
+        MockHttpServletResponse response = doFilter(jwt);
+
+        JsonResult jsonResult = JSON.parseObject(response.getContentAsString(StandardCharsets.UTF_8), JsonResult.class);
+        Assertions.assertEquals(ServiceCode.ERR_JWT_SIGNATURE.getValue(), jsonResult.getState());
+        Assertions.assertEquals(response.getContentAsByteArray().length, response.getContentLength());
+    }
+
+    @Test
+    void allocation() {
+        int times = 100000;
+        byte[] body = JwtAuthorizationFilter.encode(ServiceCode.ERR_JWT_EXPIRED, "您的登录信息已过期，请重新登录！");
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            JSON.toJSONString(JsonResult.fail(ServiceCode.ERR_JWT_EXPIRED, "您的登录信息已过期，请重新登录！"));
+        }
+
+        long start = allocatedBytes();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            JSON.toJSONString(JsonResult.fail(ServiceCode.ERR_JWT_EXPIRED, "您的登录信息已过期，请重新登录！"));
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes() - start;
+
+        System.out.println("每次序列化失败结果耗时（纳秒）：" + nanos / times);
+        System.out.println("每次序列化失败结果分配的内存（字节）：" + bytes / times);
+        System.out.println("预先编码的响应正文长度（字节）：" + body.length);
+        Assertions.assertEquals(JSON.toJSONString(JsonResult.fail(ServiceCode.ERR_JWT_EXPIRED,
+                "您的登录信息已过期，请重新登录！")), new String(body, StandardCharsets.UTF_8));
+    }
+
+    // 每次序列化失败结果耗时（纳秒）：904
+    // 每次序列化失败结果分配的内存（字节）：736
+    // 预先编码的响应正文长度（字节）：76
+
+    private long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -6,7 +6,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
@@ -67,6 +69,22 @@ public class AdminMapperTests {
         log.debug("更新完成，受影响的行数：{}", rows);
     }
 
+    @Test
+    void updateLoginStatisticsBatch() {
+        List<Admin> admins = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            Admin admin = new Admin();
+            admin.setId(i);
+            admin.setLoginCount((int) i);
+            admin.setLastLoginIp("127.0.0." + i);
+            admin.setGmtLastLogin(LocalDateTime.now());
+            admins.add(admin);
+        }
+
+        int rows = mapper.updateLoginStatisticsBatch(admins);
+        log.debug("批量更新登录统计完成，受影响的行数：{}", rows);
+    }
+
     @Test
     void count() {
         int count = mapper.count();
@@ -94,6 +112,30 @@ public class AdminMapperTests {
         log.debug("根据电子邮箱【{}】统计管理员账号的数量：{}", email, count);
     }
 
+    @Test
+    void countConflicts() {
+        Admin admin = new Admin();
+        admin.setUsername("wangkejing");
+        admin.setPhone("13900139001");
+        admin.setEmail("wangkejing@baidu.com");
+        Object queryResult = mapper.countConflicts(admin);
+        log.debug("统计与【{}】冲突的管理员账号的数量：{}", admin, queryResult);
+    }
+
+    @Test
+    void listConflicts() {
+        List<Admin> adminList = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Admin admin = new Admin();
+            admin.setUsername("test-admin-" + i);
+            admin.setPhone("1380013800" + i);
+            admin.setEmail("test-admin-" + i + "@baidu.com");
+            adminList.add(admin);
+        }
+        List<?> list = mapper.listConflicts(adminList);
+        log.debug("查询冲突的管理员账号完成，列表中的数据的数量：{}", list.size());
+    }
+
     @Test
     void getStandardById() {
         Long id = 1L;
@@ -101,6 +143,13 @@ public class AdminMapperTests {
         log.debug("根据id【{}】查询数据详情完成，查询结果：{}", id, queryResult);
     }
 
+    @Test
+    void getStandardByIdWithColumns() {
+        Long id = 1L;
+        Object queryResult = mapper.getStandardByIdWithColumns(id, Arrays.asList("id", "username", "nickname"));
+        log.debug("根据id【{}】查询数据详情完成，查询结果：{}", id, queryResult);
+    }
+
     @Test
     void getLoginInfoByUsername() {
         String username = "root";
@@ -108,13 +157,67 @@ public class AdminMapperTests {
         log.debug("根据用户名【{}】查询数据详情完成，查询结果：{}", username, queryResult);
     }
 
+    @Test
+    void getBasicLoginInfoByUsername() {
+        String username = "root";
+        Object queryResult = mapper.getBasicLoginInfoByUsername(username);
+        log.debug("根据用户名【{}】查询基本登录信息完成，查询结果：{}", username, queryResult);
+    }
+
     @Test
     void list() {
-        List<?> list = mapper.list();
+        List<?> list = mapper.list(null);
         log.debug("查询列表完成，列表中的数据的数量：{}", list.size());
         for (Object item : list) {
             log.debug("{}", item);
         }
     }
 
+    @Test
+    void updateEnableById() {
+        Admin admin = new Admin();
+        admin.setId(2L);
+        admin.setEnable(0);
+        int rows = mapper.updateEnableById(admin);
+        log.debug("修改启用状态完成，受影响的行数：{}", rows);
+    }
+
+    @Test
+    void updateEnableByIds() {
+        Long[] ids = {2L, 3L, 9527L};
+        int rows = mapper.updateEnableByIds(ids, 1);
+        log.debug("批量修改启用状态完成，受影响的行数：{}", rows);
+    }
+
+    @Test
+    void listWithColumns() {
+        List<?> list = mapper.list(Arrays.asList("id", "username", "enable"));
+        log.debug("查询列表完成，列表中的数据的数量：{}", list.size());
+        for (Object item : list) {
+            log.debug("{}", item);
+        }
+    }
+
+    @Test
+    void listAfterId() {
+        List<?> list = mapper.listAfterId(0L, 10, null);
+        log.debug("查询第1页完成，列表中的数据的数量：{}", list.size());
+        for (Object item : list) {
+            log.debug("{}", item);
+        }
+    }
+
+    @Test
+    void listUniqueFieldsByIdsForUpdate() {
+        Long[] ids = {1L, 2L, 9527L};
+        List<?> list = mapper.listUniqueFieldsByIdsForUpdate(ids);
+        log.debug("根据id查询唯一字段完成，结果：{}", list);
+    }
+
+    @Test
+    void listUniqueFields() {
+        List<?> list = mapper.listUniqueFields();
+        log.debug("查询唯一字段列表完成，列表中的数据的数量：{}", list.size());
+    }
+
 }
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.List;
+
 @Slf4j
 @SpringBootTest
 public class AdminRoleMapperTests {
@@ -34,4 +36,18 @@ public class AdminRoleMapperTests {
         log.debug("删除完成，受影响的行数：{}", rows);
     }
 
+    @Test
+    void deleteByAdminIds() {
+        Long[] adminIds = {6L, 7L};
+        int rows = mapper.deleteByAdminIds(adminIds);
+        log.debug("批量删除完成，受影响的行数：{}", rows);
+    }
+
+    @Test
+    void listRoleIdsByAdminId() {
+        Long adminId = 1L;
+        List<Long> roleIds = mapper.listRoleIdsByAdminId(adminId);
+        log.debug("根据管理员id【{}】查询角色id完成，结果：{}", adminId, roleIds);
+    }
+
 }
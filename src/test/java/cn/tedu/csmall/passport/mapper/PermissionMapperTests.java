@@ -0,0 +1,26 @@
+package cn.tedu.csmall.passport.mapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+@Slf4j
+@SpringBootTest
+public class PermissionMapperTests {
+
+    @Autowired
+    PermissionMapper mapper;
+
+    @Test
+    void list() {
+        List<?> list = mapper.list();
+        log.debug("查询列表完成，列表中的数据的数量：{}", list.size());
+        for (Object item : list) {
+            log.debug("{}", item);
+        }
+    }
+
+}
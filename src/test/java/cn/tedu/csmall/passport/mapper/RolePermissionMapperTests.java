@@ -0,0 +1,33 @@
+package cn.tedu.csmall.passport.mapper;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+@Slf4j
+@SpringBootTest
+public class RolePermissionMapperTests {
+
+    @Autowired
+    RolePermissionMapper mapper;
+
+    @Test
+    void list() {
+        List<?> list = mapper.list();
+        log.debug("查询列表完成，列表中的数据的数量：{}", list.size());
+        for (Object item : list) {
+            log.debug("{}", item);
+        }
+    }
+
+    @Test
+    void listPermissionIdsByRoleId() {
+        Long roleId = 1L;
+        List<Long> permissionIds = mapper.listPermissionIdsByRoleId(roleId);
+        log.debug("根据角色id【{}】查询权限id完成，结果：{}", roleId, permissionIds);
+    }
+
+}
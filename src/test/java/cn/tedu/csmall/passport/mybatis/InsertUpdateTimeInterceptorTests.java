@@ -0,0 +1,217 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class InsertUpdateTimeInterceptorTests {
+
+    static final String SELECT = "\n        SELECT\n            id, username, nickname, avatar, phone,\n"
+            + "            email, description, enable, last_login_ip, login_count,\n"
+            + "            gmt_last_login, gmt_create, gmt_modified\n        FROM\n            ams_admin\n"
+            + "        WHERE\n            id>?\n        ORDER BY\n            id\n        LIMIT ?\n    ";
+    static final String UPDATE = "\n        UPDATE ams_admin SET enable=? WHERE id=? AND enable<>?\n    ";
+    static final String INSERT = "\n        INSERT INTO ams_admin (\n"
+            + "            username, password, nickname, avatar, phone,\n"
+            + "            email, description, enable, last_login_ip, login_count,\n"
+            + "            gmt_last_login\n        ) VALUES (\n"
+            + "            ?, ?, ?, ?, ?,\n            ?, ?, ?, ?, ?,\n            ?\n        )\n    ";
+
+    Configuration configuration = new Configuration();
+    InsertUpdateTimeInterceptor interceptor = new InsertUpdateTimeInterceptor(configuration);
+
+    List<ParameterMapping> parameterMappings(String... properties) {
+        List<ParameterMapping> parameterMappings = new ArrayList<>();
+        for (String property : properties) {
+            parameterMappings.add(new ParameterMapping.Builder(configuration, property, Object.class).build());
+        }
+        // 与StaticSqlSource一致，同一条SQL语句的所有BoundSql共享参数映射列表
+        return Collections.unmodifiableList(parameterMappings);
+    }
+
+    BoundSql intercept(String sql, List<ParameterMapping> parameterMappings) throws Throwable {
+        StubStatementHandler statementHandler = new StubStatementHandler(
+                new BoundSql(configuration, sql, parameterMappings, null));
+        interceptor.intercept(new Invocation(statementHandler, PREPARE, new Object[]{null, null}));
+        return statementHandler.boundSql;
+    }
+
+    BoundSql intercept(String sql, String... properties) throws Throwable {
+        return intercept(sql, parameterMappings(properties));
+    }
+
+    List<String> properties(BoundSql boundSql) {
+        return boundSql.getParameterMappings().stream()
+                .map(ParameterMapping::getProperty).collect(Collectors.toList());
+    }
+
+    @Test
+    void intercept() throws Throwable {
+        Assertions.assertSame(SELECT, intercept(SELECT, "afterId", "limit").getSql());
+
+        BoundSql update = intercept(UPDATE, "enable", "id", "enable");
+        Assertions.assertEquals("update ams_admin set enable=?, gmt_modified=? where id=? and enable<>?", update.getSql());
+        Assertions.assertEquals(Arrays.asList("enable", "__insertUpdateTime", "id", "enable"), properties(update));
+        Assertions.assertTrue(update.getAdditionalParameter("__insertUpdateTime") instanceof LocalDateTime);
+
+        BoundSql insert = intercept(INSERT, "username", "password", "nickname", "avatar", "phone",
+                "email", "description", "enable", "lastLoginIp", "loginCount", "gmtLastLogin");
+        Assertions.assertTrue(insert.getSql().matches("insert into ams_admin \\( .* gmt_last_login , gmt_create, gmt_modified\\) "
+                + "values \\( \\?, .* \\? , \\?, \\?\\)"), insert.getSql());
+        Assertions.assertEquals(13, insert.getParameterMappings().size());
+        Assertions.assertEquals("gmtLastLogin", insert.getParameterMappings().get(10).getProperty());
+        Assertions.assertEquals("__insertUpdateTime", insert.getParameterMappings().get(12).getProperty());
+
+        // 批量插入时，每组参数值之后都添加时间参数，字符串中的问号不是占位符
+        BoundSql insertBatch = intercept("INSERT INTO ams_admin (username, password, description) "
+                + "VALUES (?, ?, 'why?'), (?, ?, 'why?')", "admin1.username", "admin1.password", "admin2.username", "admin2.password");
+        Assertions.assertEquals("insert into ams_admin (username, password, description, gmt_create, gmt_modified) "
+                + "values (?, ?, 'why?', ?, ?), (?, ?, 'why?', ?, ?)", insertBatch.getSql());
+        Assertions.assertEquals(Arrays.asList("admin1.username", "admin1.password", "__insertUpdateTime", "__insertUpdateTime",
+                "admin2.username", "admin2.password", "__insertUpdateTime", "__insertUpdateTime"), properties(insertBatch));
+
+        // 已经包含时间字段的，不再添加
+        String updateWithModified = "UPDATE ams_admin SET login_count=?, gmt_modified=gmt_modified WHERE id=?";
+        Assertions.assertSame(updateWithModified, intercept(updateWithModified, "loginCount", "id").getSql());
+        // 占位符数量与参数数量不一致的，不再添加
+        Assertions.assertSame(UPDATE, intercept(UPDATE, "enable", "id").getSql());
+    }
+
+    @Test
+    void sameSqlForEachExecution() throws Throwable {
+        // 原参数映射列表是不可修改的，拦截器应该使用新的列表
+        List<ParameterMapping> parameterMappings = parameterMappings("enable", "id", "enable");
+        Set<String> sqlSet = new HashSet<>();
+        int times = 1000;
+        for (int i = 0; i < times; i++) {
+            sqlSet.add(intercept(UPDATE, parameterMappings).getSql());
+        }
+        System.out.println("执行" + times + "次UPDATE语句，不同的SQL文本数量：" + sqlSet.size());
+        Assertions.assertEquals(1, sqlSet.size());
+    }
+
+    // 时间值写在SQL语句中时：执行1000次UPDATE语句，不同的SQL文本数量：1000
+    // 时间值使用占位符时：执行1000次UPDATE语句，不同的SQL文本数量：1
+
+    @Test
+    void performance() throws Throwable {
+        // 只测试处理SQL语句的耗时，不输出DEBUG日志
+        Logger logger = (Logger) LoggerFactory.getLogger(InsertUpdateTimeInterceptor.class);
+        logger.setLevel(Level.INFO);
+        int times = 500000;
+        Map<String, List<ParameterMapping>> statements = new LinkedHashMap<>();
+        statements.put(SELECT, parameterMappings("afterId", "limit"));
+        statements.put(UPDATE, parameterMappings("enable", "id", "enable"));
+        statements.put(INSERT, parameterMappings("username", "password", "nickname", "avatar", "phone",
+                "email", "description", "enable", "lastLoginIp", "loginCount", "gmtLastLogin"));
+        for (Map.Entry<String, List<ParameterMapping>> statement : statements.entrySet()) {
+            String sql = statement.getKey();
+            List<ParameterMapping> parameterMappings = statement.getValue();
+            // 预热
+            long sink = 0;
+            for (int i = 0; i < times; i++) {
+                sink += intercept(sql, parameterMappings).getSql().length();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < times; i++) {
+                sink += intercept(sql, parameterMappings).getSql().length();
+            }
+            long nanos = (System.nanoTime() - start) / times;
+            System.out.println("拦截【" + sql.trim().substring(0, 6) + "】语句，每次耗时（纳秒）：" + nanos);
+            Assertions.assertTrue(sink > 0);
+        }
+        logger.setLevel(null);
+    }
+
+    // 优化前（每次都转换小写、去除空白、编译正则表达式并查找插入位置）：
+    // 拦截【SELECT】语句，每次耗时（纳秒）：3279
+    // 拦截【UPDATE】语句，每次耗时（纳秒）：4835
+    // 拦截【INSERT】语句，每次耗时（纳秒）：10030
+    // 优化后（SELECT只检查开头的单词，INSERT、UPDATE使用缓存的SQL模板）：
+    // 拦截【SELECT】语句，每次耗时（纳秒）：135
+    // 拦截【UPDATE】语句，每次耗时（纳秒）：1452
+    // 拦截【INSERT】语句，每次耗时（纳秒）：733
+    // 时间值改为占位符，添加参数映射后：
+    // 拦截【SELECT】语句，每次耗时（纳秒）：189
+    // 拦截【UPDATE】语句，每次耗时（纳秒）：1017
+    // 拦截【INSERT】语句，每次耗时（纳秒）：878
+
+    static final Method PREPARE;
+
+    static {
+        try {
+            PREPARE = StatementHandler.class.getMethod("prepare", Connection.class, Integer.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 仅用于提供BoundSql的StatementHandler，避免Mockito的开销影响测试结果
+     */
+    static class StubStatementHandler implements StatementHandler {
+
+        final BoundSql boundSql;
+
+        StubStatementHandler(BoundSql boundSql) {
+            this.boundSql = boundSql;
+        }
+
+        @Override
+        public Statement prepare(Connection connection, Integer transactionTimeout) {
+            return null;
+        }
+
+        @Override
+        public void parameterize(Statement statement) {
+        }
+
+        @Override
+        public void batch(Statement statement) {
+        }
+
+        @Override
+        public int update(Statement statement) {
+            return 0;
+        }
+
+        @Override
+        public <E> List<E> query(Statement statement, ResultHandler resultHandler) {
+            return null;
+        }
+
+        @Override
+        public <E> Cursor<E> queryCursor(Statement statement) {
+            return null;
+        }
+
+        @Override
+        public BoundSql getBoundSql() {
+            return boundSql;
+        }
+
+        @Override
+        public ParameterHandler getParameterHandler() {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,184 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.vo.SqlStatementStatsVO;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SqlStatsInterceptorTests {
+
+    Configuration configuration = new Configuration();
+    SqlStats sqlStats;
+
+    @BeforeEach
+    void setUp() {
+        sqlStats = new SqlStats();
+        ReflectionTestUtils.setField(sqlStats, "slowThresholdInMillis", 500L);
+        ReflectionTestUtils.setField(sqlStats, "parameterSampleInterval", 2);
+    }
+
+    MappedStatement mappedStatement(String id, String sql, SqlCommandType sqlCommandType, String... properties) {
+        ParameterMapping[] parameterMappings = new ParameterMapping[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            parameterMappings[i] = new ParameterMapping.Builder(configuration, properties[i], String.class).build();
+        }
+        return new MappedStatement.Builder(configuration, "cn.tedu.csmall.passport.mapper." + id,
+                new StaticSqlSource(configuration, sql, Arrays.asList(parameterMappings)), sqlCommandType).build();
+    }
+
+    SqlStatementStatsVO stats(String id) {
+        return sqlStats.getStatementStats().stream()
+                .filter(vo -> vo.getStatementId().endsWith(id)).findFirst().orElse(null);
+    }
+
+    @Test
+    void intercept() throws Exception {
+        Executor executor = Mockito.mock(Executor.class);
+        Mockito.when(executor.query(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Arrays.asList(1, 2, 3));
+        Mockito.when(executor.update(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(2)
+                .thenThrow(new SQLException("Duplicate entry"));
+        Executor wrapped = (Executor) new SqlStatsInterceptor(sqlStats).plugin(executor);
+        MappedStatement list = mappedStatement("RoleMapper.list", "SELECT id, name FROM ams_role", SqlCommandType.SELECT);
+        MappedStatement update = mappedStatement("AdminMapper.updateEnableByIds",
+                "UPDATE ams_admin SET enable=? WHERE id IN (?, ?)", SqlCommandType.UPDATE);
+
+        wrapped.query(list, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        wrapped.query(list, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        wrapped.update(update, null);
+        Assertions.assertThrows(SQLException.class, () -> wrapped.update(update, null));
+
+        SqlStatementStatsVO listStats = stats("RoleMapper.list");
+        Assertions.assertEquals(2, listStats.getCount());
+        Assertions.assertEquals(6, listStats.getRows());
+        Assertions.assertEquals(0, listStats.getErrors());
+        SqlStatementStatsVO updateStats = stats("AdminMapper.updateEnableByIds");
+        Assertions.assertEquals(2, updateStats.getCount());
+        Assertions.assertEquals(2, updateStats.getRows());
+        Assertions.assertEquals(1, updateStats.getErrors());
+        Assertions.assertTrue(updateStats.getMaxMillis() > 0);
+    }
+
+    @Test
+    void percentiles() {
+        MappedStatement mappedStatement = mappedStatement("AdminMapper.list", "SELECT id FROM ams_admin", SqlCommandType.SELECT);
+        for (int i = 0; i < 98; i++) {
+            sqlStats.record(mappedStatement, null, TimeUnit.MILLISECONDS.toNanos(2), 1, false);
+        }
+        sqlStats.record(mappedStatement, null, TimeUnit.MILLISECONDS.toNanos(100), 1, false);
+        sqlStats.record(mappedStatement, null, TimeUnit.MILLISECONDS.toNanos(300), 1, false);
+
+        SqlStatementStatsVO stats = stats("AdminMapper.list");
+        Assertions.assertEquals(100, stats.getCount());
+        Assertions.assertEquals(596, stats.getTotalMillis(), 0.001);
+        Assertions.assertEquals(5.96, stats.getAverageMillis(), 0.001);
+        Assertions.assertEquals(300, stats.getMaxMillis(), 0.001);
+        // 百分位耗时是所在区间的上限，误差不超过25%
+        Assertions.assertTrue(stats.getP50Millis() >= 2 && stats.getP50Millis() <= 2.5, "p50=" + stats.getP50Millis());
+        Assertions.assertTrue(stats.getP95Millis() >= 2 && stats.getP95Millis() <= 2.5, "p95=" + stats.getP95Millis());
+        Assertions.assertTrue(stats.getP99Millis() >= 100 && stats.getP99Millis() <= 125, "p99=" + stats.getP99Millis());
+    }
+
+    @Test
+    void buckets() {
+        for (long micros = 0; micros < 100_000_000L; micros = micros * 3 / 2 + 1) {
+            int bucket = SqlStats.StatementStats.bucketOf(micros);
+            long upper = SqlStats.StatementStats.bucketUpperMicros(bucket);
+            Assertions.assertTrue(upper > micros && (micros < 4 || upper <= micros * 1.25 + 1),
+                    micros + "微秒的区间上限是" + upper);
+            if (bucket > 0) {
+                Assertions.assertTrue(SqlStats.StatementStats.bucketUpperMicros(bucket - 1) <= micros);
+            }
+        }
+    }
+
+    @Test
+    void slowStatementLog() {
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        Logger logger = (Logger) LoggerFactory.getLogger(SqlStats.class);
+        logger.addAppender(appender);
+        try {
+            MappedStatement insert = mappedStatement("AdminMapper.insert",
+                    "INSERT INTO ams_admin (\n  username, password\n) VALUES (?, ?)", SqlCommandType.INSERT,
+                    "username", "password");
+            Admin admin = new Admin();
+            admin.setUsername("wangkejing");
+            admin.setPassword("$2a$10$N.ZOn9G6/YLFixAOPMg/h.z7pCu6v2XyFDtC4q.jeeGm/TEZyj15C");
+
+            sqlStats.record(insert, admin, TimeUnit.MILLISECONDS.toNanos(499), 1, false);
+            for (int i = 0; i < 3; i++) {
+                sqlStats.record(insert, admin, TimeUnit.MILLISECONDS.toNanos(800), 1, false);
+            }
+
+            Assertions.assertEquals(3, stats("AdminMapper.insert").getSlow());
+            List<ILoggingEvent> events = appender.list;
+            Assertions.assertEquals(3, events.size());
+            Assertions.assertEquals(Level.WARN, events.get(0).getLevel());
+            // 第1次及此后每隔2次输出参数值，不输出密码
+            Assertions.assertEquals("慢SQL：cn.tedu.csmall.passport.mapper.AdminMapper.insert，耗时800.0毫秒，行数：1，"
+                            + "SQL语句：INSERT INTO ams_admin ( username, password ) VALUES (?, ?)，参数：[username=wangkejing, password=******]",
+                    events.get(0).getFormattedMessage());
+            Assertions.assertFalse(events.get(1).getFormattedMessage().contains("参数"));
+            Assertions.assertTrue(events.get(2).getFormattedMessage().contains("参数"));
+        } finally {
+            logger.detachAppender(appender);
+        }
+    }
+
+    @Test
+    void performance() throws Exception {
+        // 不使用Mockito，避免其开销（每次调用数十微秒）影响测试结果
+        Executor executor = (Executor) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Executor.class}, (proxy, method, args) -> 1);
+        Executor wrapped = (Executor) new SqlStatsInterceptor(sqlStats).plugin(executor);
+        MappedStatement update = mappedStatement("AdminMapper.updateEnableById",
+                "UPDATE ams_admin SET enable=? WHERE id=?", SqlCommandType.UPDATE);
+
+        int times = 2000000;
+        long sink = 0;
+        // 预热
+        for (int i = 0; i < times; i++) {
+            sink += executor.update(update, null) + wrapped.update(update, null);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink += executor.update(update, null);
+        }
+        long directNanos = (System.nanoTime() - start) / times;
+        start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink += wrapped.update(update, null);
+        }
+        long wrappedNanos = (System.nanoTime() - start) / times;
+        System.out.println("直接调用Executor每次耗时（纳秒）：" + directNanos + "，经过拦截器并统计每次耗时（纳秒）：" + wrappedNanos);
+        Assertions.assertTrue(sink > 0);
+    }
+
+    // 直接调用Executor每次耗时（纳秒）：23，经过拦截器并统计每次耗时（纳秒）：409
+    // 以上差值包括MyBatis插件机制本身的开销（动态代理、反射调用），远小于执行1次SQL语句的网络往返耗时
+
+}
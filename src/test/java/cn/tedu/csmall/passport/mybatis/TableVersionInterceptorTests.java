@@ -0,0 +1,49 @@
+package cn.tedu.csmall.passport.mybatis;
+
+import cn.tedu.csmall.passport.cache.TableVersions;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class TableVersionInterceptorTests {
+
+    @Test
+    void parseTable() {
+        Assertions.assertEquals("ams_admin", TableVersionInterceptor.parseTable(
+                "\n        INSERT INTO ams_admin (\n username, password ) VALUES (?, ?)"));
+        Assertions.assertEquals("ams_admin_role", TableVersionInterceptor.parseTable(
+                "insert ignore into `ams_admin_role` (admin_id, role_id) values (?, ?)"));
+        Assertions.assertEquals("ams_admin", TableVersionInterceptor.parseTable(
+                "UPDATE ams_admin SET enable=? WHERE id=? AND enable<>?"));
+        Assertions.assertEquals("ams_admin_role", TableVersionInterceptor.parseTable(
+                "DELETE FROM ams_admin_role WHERE admin_id IN (?, ?)"));
+        Assertions.assertEquals("", TableVersionInterceptor.parseTable("TRUNCATE ams_admin"));
+    }
+
+    @Test
+    void intercept() throws Exception {
+        TableVersions tableVersions = new TableVersions();
+        Executor executor = Mockito.mock(Executor.class);
+        Mockito.when(executor.update(ArgumentMatchers.any(), ArgumentMatchers.any())).thenReturn(1, 0);
+        Executor wrapped = (Executor) new TableVersionInterceptor(tableVersions).plugin(executor);
+        Configuration configuration = new Configuration();
+        SqlSource sqlSource = new StaticSqlSource(configuration, "UPDATE ams_admin SET enable=? WHERE id=?");
+        MappedStatement mappedStatement = new MappedStatement.Builder(configuration,
+                "cn.tedu.csmall.passport.mapper.AdminMapper.updateEnableById", sqlSource, SqlCommandType.UPDATE).build();
+
+        wrapped.update(mappedStatement, null);
+        Assertions.assertEquals(1, tableVersions.getVersion("ams_admin"));
+
+        // 没有修改任何数据时，版本不变
+        wrapped.update(mappedStatement, null);
+        Assertions.assertEquals(1, tableVersions.getVersion("ams_admin"));
+    }
+
+}
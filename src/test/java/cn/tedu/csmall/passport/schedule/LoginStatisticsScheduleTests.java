@@ -0,0 +1,73 @@
+package cn.tedu.csmall.passport.schedule;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class LoginStatisticsScheduleTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush() {
+        AdminMapper adminMapper = Mockito.mock(AdminMapper.class);
+        List<Admin> flushed = new ArrayList<>();
+        Mockito.when(adminMapper.updateLoginStatisticsBatch(Mockito.anyList())).thenAnswer(invocation -> {
+            flushed.addAll(invocation.getArgument(0));
+            return flushed.size();
+        });
+        LoginStatisticsSchedule schedule = newSchedule(adminMapper);
+
+        schedule.record(1L, "127.0.0.1");
+        schedule.record(1L, "127.0.0.2");
+        schedule.record(2L, "127.0.0.3");
+        schedule.flush();
+
+        Mockito.verify(adminMapper, Mockito.times(1)).updateLoginStatisticsBatch(Mockito.anyList());
+        flushed.sort(Comparator.comparing(Admin::getId));
+        Assertions.assertEquals(2, flushed.size());
+        Assertions.assertEquals(2, flushed.get(0).getLoginCount());
+        Assertions.assertEquals("127.0.0.2", flushed.get(0).getLastLoginIp());
+        Assertions.assertEquals(1, flushed.get(1).getLoginCount());
+        Assertions.assertEquals(0, schedule.getPendingSize());
+
+        // 没有新的登录时，不访问数据库
+        schedule.flush();
+        Mockito.verify(adminMapper, Mockito.times(1)).updateLoginStatisticsBatch(Mockito.anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void restoreWhenFailed() {
+        AdminMapper adminMapper = Mockito.mock(AdminMapper.class);
+        Mockito.when(adminMapper.updateLoginStatisticsBatch(Mockito.anyList()))
+                .thenThrow(new IllegalStateException("数据库不可用"))
+                .thenReturn(1);
+        LoginStatisticsSchedule schedule = newSchedule(adminMapper);
+
+        schedule.record(1L, "127.0.0.1");
+        schedule.flush();
+        schedule.record(1L, "127.0.0.2");
+        schedule.destroy();
+
+        ArgumentCaptor<List<Admin>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(adminMapper, Mockito.times(2)).updateLoginStatisticsBatch(captor.capture());
+        Admin admin = captor.getValue().get(0);
+        Assertions.assertEquals(2, admin.getLoginCount());
+        Assertions.assertEquals("127.0.0.2", admin.getLastLoginIp());
+    }
+
+    private LoginStatisticsSchedule newSchedule(AdminMapper adminMapper) {
+        LoginStatisticsSchedule schedule = new LoginStatisticsSchedule();
+        ReflectionTestUtils.setField(schedule, "adminMapper", adminMapper);
+        return schedule;
+    }
+
+}
@@ -0,0 +1,59 @@
+package cn.tedu.csmall.passport.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveBCryptPasswordEncoderTests {
+
+    @Test
+    void upgradeEncoding() {
+        AdaptiveBCryptPasswordEncoder passwordEncoder = new AdaptiveBCryptPasswordEncoder(11);
+        String encodedPassword = passwordEncoder.encode("123456");
+
+        Assertions.assertEquals(11, AdaptiveBCryptPasswordEncoder.getStrength(encodedPassword));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding(encodedPassword));
+        Assertions.assertTrue(passwordEncoder.upgradeEncoding("$2a$10$cs4HLJCvqD8PmHYqcANiiuRpXZMy4Pf3ubbG3EIaOZ.TqyDr5iLuu"));
+        Assertions.assertTrue(passwordEncoder.upgradeEncoding("$2a$12$cs4HLJCvqD8PmHYqcANiiuRpXZMy4Pf3ubbG3EIaOZ.TqyDr5iLuu"));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding("123456"));
+        Assertions.assertFalse(passwordEncoder.upgradeEncoding(null));
+        // 不同强度的密文都可以被验证
+        Assertions.assertTrue(passwordEncoder.matches("123456", "$2a$10$cs4HLJCvqD8PmHYqcANiiuRpXZMy4Pf3ubbG3EIaOZ.TqyDr5iLuu"));
+    }
+
+    @Test
+    void calibrate() {
+        int strength = AdaptiveBCryptPasswordEncoder.calibrate(100, 10, 14);
+        System.out.println("耗时预算为100毫秒时的强度：" + strength);
+        Assertions.assertTrue(strength >= 10 && strength <= 14);
+
+        // 耗时预算过低时，使用最小强度
+        Assertions.assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(0, 6, 14));
+        // 耗时预算很高时，不超过最大强度
+        Assertions.assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(60 * 1000, 4, 6));
+    }
+
+    @Test
+    void keepsCurrentStrength() {
+        // 耗时在预算内，且强度加1后将超出预算的80%，保持不变
+        Assertions.assertTrue(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(60, 100, 10, 14));
+        Assertions.assertTrue(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(100, 100, 10, 14));
+        Assertions.assertTrue(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(41, 100, 10, 14));
+        // 已是最大强度时，耗时在预算内即保持不变
+        Assertions.assertTrue(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(10, 100, 14, 14));
+        // 超出预算时，重新校准
+        Assertions.assertFalse(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(101, 100, 10, 14));
+        // 强度加1后的耗时仍明显低于预算时，重新校准以提高强度
+        Assertions.assertFalse(AdaptiveBCryptPasswordEncoder.keepsCurrentStrength(40, 100, 10, 14));
+    }
+
+    @Test
+    void calibrateWithCurrentStrength() {
+        // 当前强度超出预算时，重新校准
+        Assertions.assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(0, 6, 14, 10));
+        // 当前强度不在允许的范围内时，重新校准
+        Assertions.assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(60 * 1000, 4, 6, 20));
+        // 强度加1后的耗时仍明显低于预算时，提高强度
+        Assertions.assertEquals(6, AdaptiveBCryptPasswordEncoder.calibrate(60 * 1000, 4, 6, 4));
+    }
+
+}
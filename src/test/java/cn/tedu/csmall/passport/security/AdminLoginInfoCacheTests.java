@@ -0,0 +1,102 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.pojo.vo.AdminLoginInfoVO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class AdminLoginInfoCacheTests {
+
+    AdminLoginInfoCache newCache(long ttlInSeconds, int maxSize) {
+        AdminLoginInfoCache adminLoginInfoCache = new AdminLoginInfoCache();
+        ReflectionTestUtils.setField(adminLoginInfoCache, "ttlInSeconds", ttlInSeconds);
+        ReflectionTestUtils.setField(adminLoginInfoCache, "maxSize", maxSize);
+        return adminLoginInfoCache;
+    }
+
+    AdminLoginInfoVO loginInfo(long id, String username) {
+        AdminLoginInfoVO loginInfo = new AdminLoginInfoVO();
+        loginInfo.setId(id);
+        loginInfo.setUsername(username);
+        loginInfo.setPassword("$2a$10$cs4HLJCvqD8PmHYqcANiiuRpXZMy4Pf3ubbG3EIaOZ.TqyDr5iLuu");
+        loginInfo.setEnable(1);
+        loginInfo.setPermissions(Arrays.asList("/ams/admin/read", "/ams/admin/update"));
+        return loginInfo;
+    }
+
+    @Test
+    void hitAndInvalidate() {
+        AdminLoginInfoCache adminLoginInfoCache = newCache(300, 100);
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, AdminLoginInfoVO> loader = username -> {
+            loads.incrementAndGet();
+            return loginInfo(2, "root");
+        };
+
+        adminLoginInfoCache.get("root", loader);
+        adminLoginInfoCache.get("root", loader);
+        adminLoginInfoCache.get("ROOT", loader);
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(2, adminLoginInfoCache.getHits());
+
+        adminLoginInfoCache.invalidate(2L);
+        adminLoginInfoCache.get("root", loader);
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void sameResultForHitAndMiss() {
+        // 与数据库一致，只能精确匹配用户名
+        Function<String, AdminLoginInfoVO> loader = username -> "root".equals(username) ? loginInfo(2, "root") : null;
+
+        // 未命中缓存时，使用与缓存Key相同的用户名查询
+        AdminLoginInfoVO cold = newCache(300, 100).get(" ROOT", loader);
+        AdminLoginInfoCache adminLoginInfoCache = newCache(300, 100);
+        adminLoginInfoCache.get("root", loader);
+        AdminLoginInfoVO warm = adminLoginInfoCache.get(" ROOT", loader);
+
+        Assertions.assertNotNull(cold);
+        Assertions.assertEquals(cold.getId(), warm.getId());
+        // 不缓存时也使用相同的用户名查询
+        Assertions.assertNotNull(newCache(300, 0).get(" ROOT", loader));
+    }
+
+    @Test
+    void invalidateWhileLoading() {
+        AdminLoginInfoCache adminLoginInfoCache = newCache(300, 100);
+        // 模拟查询数据库期间，其它线程修改了此管理员的数据
+        adminLoginInfoCache.get("root", username -> {
+            adminLoginInfoCache.invalidate(2L);
+            return loginInfo(2, "root");
+        });
+
+        Assertions.assertEquals(0, adminLoginInfoCache.size());
+    }
+
+    @Test
+    void expireAndBounded() throws Exception {
+        AdminLoginInfoCache adminLoginInfoCache = newCache(0, 100);
+        AtomicInteger loads = new AtomicInteger();
+        adminLoginInfoCache.get("root", username -> {
+            loads.incrementAndGet();
+            return loginInfo(2, "root");
+        });
+        Thread.sleep(5);
+        adminLoginInfoCache.get("root", username -> {
+            loads.incrementAndGet();
+            return loginInfo(2, "root");
+        });
+        Assertions.assertEquals(2, loads.get());
+
+        AdminLoginInfoCache bounded = newCache(300, 100);
+        for (int i = 0; i < 1000; i++) {
+            bounded.get("admin" + i, username -> loginInfo(username.hashCode(), username));
+        }
+        Assertions.assertTrue(bounded.size() <= 100);
+    }
+
+}
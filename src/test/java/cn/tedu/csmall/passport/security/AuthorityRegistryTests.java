@@ -0,0 +1,80 @@
+package cn.tedu.csmall.passport.security;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AuthorityRegistryTests {
+
+    String[] values = {
+            "/ams/admin/read",
+            "/ams/admin/add-new",
+            "/ams/admin/delete",
+            "/ams/admin/update"
+    };
+
+    @Test
+    void of() {
+        // 模拟从数据库或JWT中得到的、内容相同但不是同一个对象的字符串
+        String value = new String("/ams/admin/read");
+        GrantedAuthority authority = AuthorityRegistry.of(value);
+
+        Assertions.assertSame(authority, AuthorityRegistry.of(new String("/ams/admin/read")));
+        Assertions.assertSame(authority.getAuthority(), AuthorityRegistry.of("/ams/admin/read").getAuthority());
+        Assertions.assertEquals(new SimpleGrantedAuthority("/ams/admin/read"), authority);
+    }
+
+    @Test
+    void allocation() {
+        int times = 100000;
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String value : values) {
+            authorities.add(AuthorityRegistry.of(value));
+        }
+        String authoritiesJsonString = JSON.toJSONString(authorities);
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            JSON.parseArray(authoritiesJsonString, SimpleGrantedAuthority.class);
+            lookup();
+        }
+
+        long start = allocatedBytes();
+        for (int i = 0; i < times; i++) {
+            JSON.parseArray(authoritiesJsonString, SimpleGrantedAuthority.class);
+        }
+        long parseBytes = allocatedBytes() - start;
+
+        start = allocatedBytes();
+        for (int i = 0; i < times; i++) {
+            lookup();
+        }
+        long lookupBytes = allocatedBytes() - start;
+
+        System.out.println("每次解析权限JSON分配的内存（字节）：" + parseBytes / times);
+        System.out.println("每次从注册表获取权限分配的内存（字节）：" + lookupBytes / times);
+        Assertions.assertTrue(lookupBytes / times < 8);
+    }
+
+    // 每次解析权限JSON分配的内存（字节）：1512
+    // 每次从注册表获取权限分配的内存（字节）：0
+
+    private void lookup() {
+        for (String value : values) {
+            AuthorityRegistry.of(value);
+        }
+    }
+
+    private long allocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
@@ -0,0 +1,135 @@
+package cn.tedu.csmall.passport.security;
+
+import com.alibaba.fastjson.JSON;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+public class JwtCacheTests {
+
+    String secretKey = "fdsFOj4tp9Dgvfd9t45rDkFSLKgfR8ou";
+
+    JwtCache newCache(int maxSize) {
+        JwtCache jwtCache = new JwtCache();
+        ReflectionTestUtils.setField(jwtCache, "maxSize", maxSize);
+        return jwtCache;
+    }
+
+    String generate(long id, long expiration) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("/ams/admin/read"));
+        authorities.add(new SimpleGrantedAuthority("/ams/admin/add-new"));
+        authorities.add(new SimpleGrantedAuthority("/ams/admin/delete"));
+        authorities.add(new SimpleGrantedAuthority("/ams/admin/update"));
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("id", id);
+        claims.put("username", "root");
+        claims.put("authorities", JSON.toJSONString(authorities));
+        return Jwts.builder()
+                .setHeaderParam("alg", "HS256")
+                .setHeaderParam("typ", "JWT")
+                .setClaims(claims)
+                .setExpiration(new Date(expiration))
+                .signWith(SignatureAlgorithm.HS256, secretKey)
+                .compact();
+    }
+
+    LoginPrincipal principal(long id) {
+        LoginPrincipal loginPrincipal = new LoginPrincipal();
+        loginPrincipal.setId(id);
+        loginPrincipal.setUsername("root");
+        return loginPrincipal;
+    }
+
+    @Test
+    void hitAndMiss() {
+        JwtCache jwtCache = newCache(100);
+        String jwt = generate(1, System.currentTimeMillis() + 60 * 1000);
+
+        Assertions.assertNull(jwtCache.get(jwt));
+        jwtCache.put(jwt, principal(1), Collections.emptyList(), 0, System.currentTimeMillis() + 60 * 1000);
+        JwtCache.Entry entry = jwtCache.get(jwt);
+
+        Assertions.assertNotNull(entry);
+        Assertions.assertEquals(1L, entry.getLoginPrincipal().getId());
+        Assertions.assertEquals(1, jwtCache.getHits());
+        Assertions.assertEquals(1, jwtCache.getMisses());
+    }
+
+    @Test
+    void expired() {
+        JwtCache jwtCache = newCache(100);
+        String jwt = generate(1, System.currentTimeMillis() + 60 * 1000);
+
+        jwtCache.put(jwt, principal(1), Collections.emptyList(), 0, System.currentTimeMillis() - 1);
+
+        Assertions.assertNull(jwtCache.get(jwt));
+        Assertions.assertEquals(0, jwtCache.size());
+    }
+
+    @Test
+    void bounded() {
+        int maxSize = 100;
+        JwtCache jwtCache = newCache(maxSize);
+        long expiration = System.currentTimeMillis() + 60 * 1000;
+        for (int i = 0; i < 1000; i++) {
+            jwtCache.put(generate(i, expiration), principal(i), Collections.emptyList(), 0, expiration);
+        }
+
+        Assertions.assertTrue(jwtCache.size() <= maxSize);
+        Assertions.assertTrue(jwtCache.getEvictions() > 0);
+    }
+
+    @Test
+    void benchmark() {
+        int times = 20000;
+        long expiration = System.currentTimeMillis() + 60 * 1000;
+        String jwt = generate(1, expiration);
+        JwtCache jwtCache = newCache(100);
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            parse(jwt);
+            jwtCache.get(jwt);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            parse(jwt);
+        }
+        long parseNanos = System.nanoTime() - start;
+
+        jwtCache.put(jwt, principal(1), parse(jwt), 0, expiration);
+        start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            jwtCache.get(jwt);
+        }
+        long cacheNanos = System.nanoTime() - start;
+
+        System.out.println("JWT长度：" + jwt.length());
+        System.out.println("每次解析JWT耗时（纳秒）：" + parseNanos / times);
+        System.out.println("每次命中缓存耗时（纳秒）：" + cacheNanos / times);
+        Assertions.assertTrue(cacheNanos < parseNanos);
+    }
+
+    List<SimpleGrantedAuthority> parse(String jwt) {
+        Claims claims = Jwts.parser()
+                .setSigningKey(secretKey)
+                .parseClaimsJws(jwt)
+                .getBody();
+        String authoritiesJsonString = claims.get("authorities", String.class);
+        return JSON.parseArray(authoritiesJsonString, SimpleGrantedAuthority.class);
+    }
+
+    // JWT长度：364
+    // 每次解析JWT耗时（纳秒）：49822
+    // 每次命中缓存耗时（纳秒）：2650
+
+}
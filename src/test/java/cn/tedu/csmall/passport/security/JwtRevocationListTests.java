@@ -0,0 +1,169 @@
+package cn.tedu.csmall.passport.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class JwtRevocationListTests {
+
+    @TempDir
+    Path tempDir;
+
+    JwtRevocationList newRevocationList() {
+        JwtRevocationList jwtRevocationList = new JwtRevocationList();
+        ReflectionTestUtils.setField(jwtRevocationList, "durationInMinute", 10080L);
+        ReflectionTestUtils.setField(jwtRevocationList, "snapshotPath",
+                tempDir.resolve("jwt-revocation.dat").toString());
+        jwtRevocationList.load();
+        return jwtRevocationList;
+    }
+
+    @Test
+    void revoke() {
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        long now = System.currentTimeMillis();
+
+        jwtRevocationList.revoke(9527L);
+
+        Assertions.assertTrue(jwtRevocationList.isRevoked(9527, now - 60000));
+        Assertions.assertTrue(jwtRevocationList.isRevoked(9527, now));
+        Assertions.assertFalse(jwtRevocationList.isRevoked(9527, now + 60000));
+        Assertions.assertFalse(jwtRevocationList.isRevoked(9528, now - 60000));
+    }
+
+    @Test
+    void revokeAll() {
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        long now = System.currentTimeMillis();
+
+        jwtRevocationList.revokeAll(Arrays.asList(9527L, 9528L, null, 0L));
+
+        Assertions.assertEquals(2, jwtRevocationList.size());
+        Assertions.assertTrue(jwtRevocationList.isRevoked(9527, now - 60000));
+        Assertions.assertTrue(jwtRevocationList.isRevoked(9528, now - 60000));
+        Assertions.assertEquals(2, newRevocationList().size());
+    }
+
+    @Test
+    void snapshot() {
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        long now = System.currentTimeMillis();
+        for (long i = 1; i <= 1000; i++) {
+            jwtRevocationList.revoke(i);
+        }
+
+        Assertions.assertTrue(Files.exists(tempDir.resolve("jwt-revocation.dat")));
+        JwtRevocationList restored = newRevocationList();
+        Assertions.assertEquals(1000, restored.size());
+        Assertions.assertTrue(restored.isRevoked(500, now - 60000));
+        Assertions.assertFalse(restored.isRevoked(1001, now - 60000));
+    }
+
+    @Test
+    void revokeInTransaction() throws InterruptedException {
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        long before = System.currentTimeMillis() - 1;
+        long loginBeforeCommit;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            jwtRevocationList.revoke(9527L);
+            Assertions.assertTrue(jwtRevocationList.isRevoked(9527, before));
+            // 事务提交前登录，仍能查询到修改前的启用状态
+            Thread.sleep(5);
+            loginBeforeCommit = System.currentTimeMillis();
+            Assertions.assertFalse(jwtRevocationList.isRevoked(9527, loginBeforeCommit));
+            Thread.sleep(5);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assertions.assertTrue(jwtRevocationList.isRevoked(9527, loginBeforeCommit));
+    }
+
+    @Test
+    void issuedInSameSecond() throws InterruptedException {
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        jwtRevocationList.revoke(9527L);
+        // 禁用后很快又被启用，此后登录得到的JWT不应被吊销
+        Thread.sleep(2);
+        Assertions.assertFalse(jwtRevocationList.isRevoked(9527, System.currentTimeMillis()));
+    }
+
+    @Test
+    void corruptSnapshot() throws IOException {
+        Path path = tempDir.resolve("jwt-revocation.dat");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(0x4A52564C);
+            out.writeInt(2);
+            out.writeInt(Integer.MAX_VALUE);
+            out.writeLong(9527);
+            out.writeLong(System.currentTimeMillis());
+        }
+
+        Assertions.assertEquals(0, newRevocationList().size());
+    }
+
+    @Test
+    void snapshotInSeconds() throws IOException {
+        long now = System.currentTimeMillis();
+        Path path = tempDir.resolve("jwt-revocation.dat");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+            out.writeInt(0x4A52564C);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeLong(9527);
+            out.writeLong(now / 1000);
+        }
+
+        JwtRevocationList restored = newRevocationList();
+        Assertions.assertEquals(1, restored.size());
+        Assertions.assertTrue(restored.isRevoked(9527, now / 1000 * 1000 + 999));
+        Assertions.assertFalse(restored.isRevoked(9527, now / 1000 * 1000 + 1000));
+    }
+
+    @Test
+    void allocation() {
+        int times = 100000;
+        JwtRevocationList jwtRevocationList = newRevocationList();
+        for (long i = 1; i <= 100; i++) {
+            jwtRevocationList.revoke(i);
+        }
+        long issuedAt = System.currentTimeMillis() + 60000;
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            jwtRevocationList.isRevoked(i % 200, issuedAt);
+        }
+
+        com.sun.management.ThreadMXBean threadMXBean
+                = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            jwtRevocationList.isRevoked(i % 200, issuedAt);
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        System.out.println("每次检查JWT是否吊销耗时（纳秒）：" + nanos / times);
+        System.out.println("每次检查JWT是否吊销分配的内存（字节）：" + bytes / times);
+        Assertions.assertEquals(0, bytes / times);
+    }
+
+    // 每次检查JWT是否吊销耗时（纳秒）：103
+    // 每次检查JWT是否吊销分配的内存（字节）：0
+
+}
@@ -0,0 +1,123 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class LoginExecutorTests {
+
+    LoginExecutor newExecutor(int poolSize, int queueCapacity, long maxWaitInMillis) {
+        LoginExecutor loginExecutor = new LoginExecutor();
+        ReflectionTestUtils.setField(loginExecutor, "poolSize", poolSize);
+        ReflectionTestUtils.setField(loginExecutor, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(loginExecutor, "maxWaitInMillis", maxWaitInMillis);
+        loginExecutor.init();
+        return loginExecutor;
+    }
+
+    @Test
+    void submit() throws Exception {
+        LoginExecutor loginExecutor = newExecutor(2, 10, 0);
+        try {
+            Assertions.assertEquals("jwt", loginExecutor.submit(() -> "jwt").get(1, TimeUnit.SECONDS));
+
+            CompletableFuture<String> future = loginExecutor.submit(() -> {
+                throw new IllegalStateException("登录失败");
+            });
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+            Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+        } finally {
+            loginExecutor.destroy();
+        }
+    }
+
+    @Test
+    void rejectWhenQueueIsFull() throws Exception {
+        LoginExecutor loginExecutor = newExecutor(1, 1, 0);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<String> first = loginExecutor.submit(() -> {
+                running.countDown();
+                await(release);
+                return "first";
+            });
+            running.await();
+            CompletableFuture<String> second = loginExecutor.submit(() -> "second");
+
+            ServiceException e = Assertions.assertThrows(ServiceException.class,
+                    () -> loginExecutor.submit(() -> "third"));
+            Assertions.assertEquals(ServiceCode.ERR_SERVICE_UNAVAILABLE, e.getServiceCode());
+            Assertions.assertEquals(1, loginExecutor.getQueueSize());
+            Assertions.assertEquals(1, loginExecutor.getRejected());
+
+            int times = 10000;
+            // 预热
+            rejectMore(loginExecutor, times);
+            long start = System.nanoTime();
+            rejectMore(loginExecutor, times);
+            long nanos = System.nanoTime() - start;
+            System.out.println("队列已满时每次拒绝登录耗时（纳秒）：" + nanos / times);
+            Assertions.assertEquals(1 + times * 2, loginExecutor.getRejected());
+
+            release.countDown();
+            Assertions.assertEquals("first", first.get(1, TimeUnit.SECONDS));
+            Assertions.assertEquals("second", second.get(1, TimeUnit.SECONDS));
+            Assertions.assertEquals(2, loginExecutor.getSubmitted());
+        } finally {
+            release.countDown();
+            loginExecutor.destroy();
+        }
+    }
+
+    @Test
+    void rejectWhenWaitTooLong() throws Exception {
+        LoginExecutor loginExecutor = newExecutor(1, 10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            loginExecutor.submit(() -> {
+                await(release);
+                return "first";
+            });
+            CompletableFuture<String> second = loginExecutor.submit(() -> "second");
+            Thread.sleep(100);
+            release.countDown();
+
+            ExecutionException e = Assertions.assertThrows(ExecutionException.class,
+                    () -> second.get(1, TimeUnit.SECONDS));
+            Assertions.assertTrue(e.getCause() instanceof ServiceException);
+            Assertions.assertEquals(1, loginExecutor.getExpired());
+            Assertions.assertTrue(loginExecutor.getMaxWaitMillis() >= 50);
+        } finally {
+            release.countDown();
+            loginExecutor.destroy();
+        }
+    }
+
+    // 队列已满时每次拒绝登录耗时（纳秒）：18207
+
+    private static void rejectMore(LoginExecutor loginExecutor, int times) {
+        for (int i = 0; i < times; i++) {
+            try {
+                loginExecutor.submit(() -> "more");
+            } catch (ServiceException ignored) {
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+
+public class LoginThrottleTests {
+
+    LoginThrottle newThrottle(int maxAttemptsPerUsername, int maxAttemptsPerIp, int maxKeys) {
+        LoginThrottle loginThrottle = new LoginThrottle();
+        ReflectionTestUtils.setField(loginThrottle, "windowInSeconds", 60L);
+        ReflectionTestUtils.setField(loginThrottle, "maxAttemptsPerUsername", maxAttemptsPerUsername);
+        ReflectionTestUtils.setField(loginThrottle, "maxAttemptsPerIp", maxAttemptsPerIp);
+        ReflectionTestUtils.setField(loginThrottle, "maxKeys", maxKeys);
+        return loginThrottle;
+    }
+
+    @Test
+    void limitByUsername() {
+        LoginThrottle loginThrottle = newThrottle(3, 0, 100);
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire("root", "127.0.0.1");
+        }
+
+        // 用户名不区分大小写
+        ServiceException e = Assertions.assertThrows(ServiceException.class,
+                () -> loginThrottle.acquire(" ROOT", "127.0.0.2"));
+        Assertions.assertEquals(ServiceCode.ERR_TOO_MANY_REQUESTS, e.getServiceCode());
+        Assertions.assertEquals(1, loginThrottle.getRejectedByUsername());
+        // 其它用户名不受影响
+        loginThrottle.acquire("super_admin", "127.0.0.1");
+    }
+
+    @Test
+    void limitByIp() {
+        LoginThrottle loginThrottle = newThrottle(0, 5, 100);
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire("admin" + i, "127.0.0.1");
+        }
+
+        Assertions.assertThrows(ServiceException.class, () -> loginThrottle.acquire("admin9", "127.0.0.1"));
+        Assertions.assertEquals(1, loginThrottle.getRejectedByIp());
+        loginThrottle.acquire("admin9", "127.0.0.2");
+    }
+
+    @Test
+    void boundedKeys() {
+        LoginThrottle loginThrottle = newThrottle(10, 0, 1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 9; i++) {
+            loginThrottle.acquire("root", null, now);
+        }
+        // 攻击者使用大量随机的用户名，不能淘汰正在被限制的计数器
+        int rejected = 0;
+        for (int i = 0; i < 100000; i++) {
+            try {
+                loginThrottle.acquire("admin" + i, null, now);
+            } catch (ServiceException e) {
+                rejected++;
+            }
+        }
+
+        Assertions.assertEquals(1000, loginThrottle.getUsernameKeys());
+        Assertions.assertEquals(100000 - 999, rejected);
+        Assertions.assertEquals(0, loginThrottle.getEvictions());
+        loginThrottle.acquire("root", null, now);
+        Assertions.assertThrows(ServiceException.class, () -> loginThrottle.acquire("root", null, now));
+    }
+
+    @Test
+    void evictIdleKeys() {
+        LoginThrottle loginThrottle = newThrottle(10, 0, 1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            loginThrottle.acquire("admin" + i, null, now);
+        }
+
+        // 2个窗口内没有尝试的计数器被淘汰，此后在1个窗口内有尝试的计数器被保留
+        loginThrottle.acquire("admin0", null, now + 60 * 1000);
+        loginThrottle.acquire("root", null, now + 120 * 1000 + 1);
+
+        Assertions.assertEquals(999, loginThrottle.getEvictions());
+        Assertions.assertEquals(2, loginThrottle.getUsernameKeys());
+    }
+
+    @Test
+    void contention() throws Exception {
+        int threads = 8;
+        int times = 200000;
+        LoginThrottle loginThrottle = newThrottle(Integer.MAX_VALUE, Integer.MAX_VALUE, 100000);
+        String[] usernames = new String[1000];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = "admin" + i;
+        }
+
+        // 预热
+        run(threads, times, loginThrottle, usernames, 1);
+
+        long nanos = run(threads, times, loginThrottle, usernames, 1);
+        System.out.println(threads + "个线程竞争同一个用户名和IP，吞吐量（次/秒）：" + (long) threads * times * 1_000_000_000L / nanos);
+        nanos = run(threads, times, loginThrottle, usernames, usernames.length);
+        System.out.println(threads + "个线程分散在1000个用户名和IP上，吞吐量（次/秒）：" + (long) threads * times * 1_000_000_000L / nanos);
+    }
+
+    // 8个线程竞争同一个用户名和IP，吞吐量（次/秒）：5147456
+    // 8个线程分散在1000个用户名和IP上，吞吐量（次/秒）：4895776
+
+    private long run(int threads, int times, LoginThrottle loginThrottle, String[] usernames, int keys)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < times; i++) {
+                        String key = usernames[(i + offset) % keys];
+                        loginThrottle.acquire(key, key);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - begin;
+    }
+
+}
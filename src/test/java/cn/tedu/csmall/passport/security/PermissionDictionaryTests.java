@@ -0,0 +1,159 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import com.alibaba.fastjson.JSON;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.*;
+
+public class PermissionDictionaryTests {
+
+    String secretKey = "fdsFOj4tp9Dgvfd9t45rDkFSLKgfR8ou";
+
+    PermissionDictionary newDictionary(int count) {
+        List<PermissionListItemVO> permissions = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            PermissionListItemVO permission = new PermissionListItemVO();
+            permission.setId((long) i);
+            permission.setValue("/ams/permission-" + i + "/read");
+            permissions.add(permission);
+        }
+        PermissionDictionary permissionDictionary = new PermissionDictionary();
+        permissionDictionary.load(permissions);
+        return permissionDictionary;
+    }
+
+    List<GrantedAuthority> authorities(int... ids) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (int id : ids) {
+            authorities.add(new SimpleGrantedAuthority("/ams/permission-" + id + "/read"));
+        }
+        return authorities;
+    }
+
+    @Test
+    void encodeAndDecode() {
+        PermissionDictionary permissionDictionary = newDictionary(200);
+
+        // 连续的权限id，位图更短
+        List<GrantedAuthority> dense = authorities(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        String encoded = permissionDictionary.encode(dense);
+        Assertions.assertEquals(PermissionDictionary.FORMAT_BITSET, Base64.getUrlDecoder().decode(encoded)[0]);
+        Assertions.assertEquals(dense, permissionDictionary.decode(encoded));
+
+        // 稀疏的权限id，varint列表更短
+        List<GrantedAuthority> sparse = authorities(3, 150, 199);
+        encoded = permissionDictionary.encode(sparse);
+        Assertions.assertEquals(PermissionDictionary.FORMAT_VARINT, Base64.getUrlDecoder().decode(encoded)[0]);
+        Assertions.assertEquals(sparse, permissionDictionary.decode(encoded));
+
+        // 空的权限列表
+        encoded = permissionDictionary.encode(Collections.emptyList());
+        Assertions.assertTrue(permissionDictionary.decode(encoded).isEmpty());
+    }
+
+    @Test
+    void encodeUnknown() {
+        PermissionDictionary permissionDictionary = newDictionary(10);
+        Assertions.assertNull(permissionDictionary.encode(authorities(1, 11)));
+    }
+
+    @Test
+    void decodeUnknown() {
+        PermissionDictionary permissionDictionary = newDictionary(200);
+        String encoded = permissionDictionary.encode(authorities(1, 2, 199));
+
+        // 字典中已删除199号权限
+        PermissionDictionary reloaded = newDictionary(198);
+        Assertions.assertEquals(authorities(1, 2), reloaded.decode(encoded));
+    }
+
+    @Test
+    void decodeInterned() {
+        PermissionDictionary permissionDictionary = newDictionary(10);
+        String encoded = permissionDictionary.encode(authorities(1, 2));
+        Assertions.assertSame(permissionDictionary.decode(encoded).get(0), permissionDictionary.decode(encoded).get(0));
+    }
+
+    @Test
+    void measure() {
+        int times = 20000;
+        PermissionDictionary permissionDictionary = newDictionary(60);
+        int[] ids = new int[40];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i + 1;
+        }
+        List<GrantedAuthority> authorities = authorities(ids);
+
+        Map<String, Object> jsonClaims = new HashMap<>();
+        jsonClaims.put("id", 1L);
+        jsonClaims.put("username", "root");
+        jsonClaims.put("authorities", JSON.toJSONString(authorities));
+        String jsonJwt = generate(jsonClaims);
+
+        Map<String, Object> compactClaims = new HashMap<>();
+        compactClaims.put("id", 1L);
+        compactClaims.put("username", "root");
+        compactClaims.put(PermissionDictionary.CLAIM_PERMISSIONS, permissionDictionary.encode(authorities));
+        String compactJwt = generate(compactClaims);
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            parseJson(jsonJwt);
+            parseCompact(permissionDictionary, compactJwt);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            parseJson(jsonJwt);
+        }
+        long jsonNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            parseCompact(permissionDictionary, compactJwt);
+        }
+        long compactNanos = System.nanoTime() - start;
+
+        Assertions.assertEquals(authorities, parseCompact(permissionDictionary, compactJwt));
+        System.out.println("权限数量：" + authorities.size());
+        System.out.println("JSON格式的JWT长度：" + jsonJwt.length());
+        System.out.println("紧凑格式的JWT长度：" + compactJwt.length());
+        System.out.println("每次解析JSON格式的JWT耗时（纳秒）：" + jsonNanos / times);
+        System.out.println("每次解析紧凑格式的JWT耗时（纳秒）：" + compactNanos / times);
+        Assertions.assertTrue(compactJwt.length() < jsonJwt.length());
+    }
+
+    // 权限数量：40
+    // JSON格式的JWT长度：2497
+    // 紧凑格式的JWT长度：161
+    // 每次解析JSON格式的JWT耗时（纳秒）：57944
+    // 每次解析紧凑格式的JWT耗时（纳秒）：11198
+
+    String generate(Map<String, Object> claims) {
+        return Jwts.builder()
+                .setHeaderParam("alg", "HS256")
+                .setHeaderParam("typ", "JWT")
+                .setClaims(claims)
+                .setExpiration(new Date(System.currentTimeMillis() + 60 * 1000))
+                .signWith(SignatureAlgorithm.HS256, secretKey)
+                .compact();
+    }
+
+    List<? extends GrantedAuthority> parseJson(String jwt) {
+        Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(jwt).getBody();
+        return JSON.parseArray(claims.get("authorities", String.class), SimpleGrantedAuthority.class);
+    }
+
+    List<? extends GrantedAuthority> parseCompact(PermissionDictionary permissionDictionary, String jwt) {
+        Claims claims = Jwts.parser().setSigningKey(secretKey).parseClaimsJws(jwt).getBody();
+        return permissionDictionary.decode(claims.get(PermissionDictionary.CLAIM_PERMISSIONS, String.class));
+    }
+
+}
@@ -0,0 +1,208 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.mapper.PermissionMapper;
+import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.mapper.RolePermissionMapper;
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PermissionInterceptorTests {
+
+    RbacModel rbacModel;
+    PermissionInterceptor interceptor;
+    List<PermissionListItemVO> permissions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 100个权限，使位图跨越多个long
+        for (long i = 1; i <= 100; i++) {
+            PermissionListItemVO permission = new PermissionListItemVO();
+            permission.setId(i);
+            permission.setValue("/ams/permission/" + i);
+            permissions.add(permission);
+        }
+        PermissionMapper permissionMapper = Mockito.mock(PermissionMapper.class);
+        RolePermissionMapper rolePermissionMapper = Mockito.mock(RolePermissionMapper.class);
+        Mockito.when(permissionMapper.list()).thenAnswer(invocation -> new ArrayList<>(permissions));
+        Mockito.when(rolePermissionMapper.list()).thenReturn(Collections.emptyList());
+        rbacModel = new RbacModel();
+        ReflectionTestUtils.setField(rbacModel, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(rbacModel, "rolePermissionMapper", rolePermissionMapper);
+        ReflectionTestUtils.setField(rbacModel, "roleMapper", Mockito.mock(RoleMapper.class));
+        interceptor = new PermissionInterceptor();
+        ReflectionTestUtils.setField(interceptor, "rbacModel", rbacModel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    Authentication authentication(String... values) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String value : values) {
+            authorities.add(AuthorityRegistry.of(value));
+        }
+        LoginPrincipal loginPrincipal = new LoginPrincipal();
+        loginPrincipal.setId(1L);
+        loginPrincipal.setUsername("root");
+        loginPrincipal.setPermissionBits(rbacModel.toPermissionBits(authorities));
+        return new UsernamePasswordAuthenticationToken(loginPrincipal, null, authorities);
+    }
+
+    @RequirePermission("/ams/permission/70")
+    public void required() {
+    }
+
+    public void notRequired() {
+    }
+
+    @Test
+    void preHandle() throws Exception {
+        rbacModel.reload();
+        HandlerMethod required = new HandlerMethod(this, "required");
+        HandlerMethod notRequired = new HandlerMethod(this, "notRequired");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        SecurityContextHolder.getContext().setAuthentication(authentication("/ams/permission/70"));
+        Assertions.assertTrue(interceptor.preHandle(request, response, required));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication("/ams/permission/69"));
+        Assertions.assertThrows(AccessDeniedException.class,
+                () -> interceptor.preHandle(request, response, required));
+        Assertions.assertTrue(interceptor.preHandle(request, response, notRequired));
+
+        SecurityContextHolder.clearContext();
+        Assertions.assertThrows(AccessDeniedException.class,
+                () -> interceptor.preHandle(request, response, required));
+    }
+
+    @Test
+    void indexCachedAfterLoaded() throws Exception {
+        HandlerMethod required = new HandlerMethod(this, "required");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        SecurityContextHolder.getContext().setAuthentication(authentication("/ams/permission/70"));
+        RbacModel spy = Mockito.spy(rbacModel);
+        rbacModel = spy;
+        ReflectionTestUtils.setField(interceptor, "rbacModel", spy);
+
+        // RBAC模型尚未加载时，每次都查找下标，并逐个比较权限值
+        Assertions.assertTrue(interceptor.preHandle(request, response, required));
+        Assertions.assertTrue(interceptor.preHandle(request, response, required));
+        Mockito.verify(spy, Mockito.times(2)).indexOf("/ams/permission/70");
+
+        // 加载后，找到下标1次，此后只检查位图
+        spy.reload();
+        Mockito.clearInvocations(spy);
+        SecurityContextHolder.getContext().setAuthentication(authentication("/ams/permission/70"));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(interceptor.preHandle(request, response, required));
+        }
+        Mockito.verify(spy, Mockito.times(1)).indexOf("/ams/permission/70");
+        SecurityContextHolder.getContext().setAuthentication(authentication("/ams/permission/69"));
+        Assertions.assertThrows(AccessDeniedException.class,
+                () -> interceptor.preHandle(request, response, required));
+    }
+
+    @Test
+    void sameAsPreAuthorize() throws Exception {
+        rbacModel.reload();
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        MethodInvocation invocation = new SimpleMethodInvocation(this, getClass().getMethod("required"));
+        String[][] cases = {
+                {},
+                {"/ams/permission/1"},
+                {"/ams/permission/70"},
+                {"/ams/permission/1", "/ams/permission/64", "/ams/permission/100"},
+                // RBAC模型中不存在的权限，没有权限位图，将逐个比较权限值
+                {"/ams/permission/70", "/ams/unknown"}
+        };
+        for (int i = 1; i <= 101; i++) {
+            String value = "/ams/permission/" + i;
+            Expression expression = handler.getExpressionParser().parseExpression("hasAuthority('" + value + "')");
+            int index = rbacModel.indexOf(value);
+            for (String[] values : cases) {
+                Authentication authentication = authentication(values);
+                EvaluationContext context = handler.createEvaluationContext(authentication, invocation);
+                Assertions.assertEquals(ExpressionUtils.evaluateAsBoolean(expression, context),
+                        PermissionInterceptor.hasPermission(authentication, value, index), value);
+            }
+        }
+    }
+
+    @Test
+    void notLoaded() {
+        // RBAC模型尚未加载时，仍可以根据权限值判断
+        Authentication authentication = authentication("/ams/permission/70");
+        Assertions.assertNull(((LoginPrincipal) authentication.getPrincipal()).getPermissionBits());
+        Assertions.assertEquals(-1, rbacModel.indexOf("/ams/permission/70"));
+        Assertions.assertTrue(PermissionInterceptor.hasPermission(authentication, "/ams/permission/70", -1));
+        Assertions.assertFalse(PermissionInterceptor.hasPermission(authentication, "/ams/permission/69", -1));
+    }
+
+    @Test
+    void performance() throws Exception {
+        int times = 200000;
+        rbacModel.reload();
+        String[] values = new String[40];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "/ams/permission/" + (i * 2 + 1);
+        }
+        Authentication authentication = authentication(values);
+        String value = "/ams/permission/79";
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        MethodInvocation invocation = new SimpleMethodInvocation(this, getClass().getMethod("required"));
+        Expression expression = handler.getExpressionParser().parseExpression("hasAuthority('" + value + "')");
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            ExpressionUtils.evaluateAsBoolean(expression, handler.createEvaluationContext(authentication, invocation));
+            PermissionInterceptor.hasPermission(authentication, value, rbacModel.indexOf(value));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            ExpressionUtils.evaluateAsBoolean(expression, handler.createEvaluationContext(authentication, invocation));
+        }
+        long spelNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            PermissionInterceptor.hasPermission(authentication, value, rbacModel.indexOf(value));
+        }
+        long bitsNanos = System.nanoTime() - start;
+
+        System.out.println("每次使用SpEL检查权限耗时（纳秒）：" + spelNanos / times);
+        System.out.println("每次使用权限位图检查权限耗时（纳秒）：" + bitsNanos / times);
+        Assertions.assertTrue(bitsNanos < spelNanos);
+    }
+
+    // 每次使用SpEL检查权限耗时（纳秒）：4215
+    // 每次使用权限位图检查权限耗时（纳秒）：85
+
+}
@@ -0,0 +1,158 @@
+package cn.tedu.csmall.passport.security;
+
+import cn.tedu.csmall.passport.mapper.PermissionMapper;
+import cn.tedu.csmall.passport.mapper.RoleMapper;
+import cn.tedu.csmall.passport.mapper.RolePermissionMapper;
+import cn.tedu.csmall.passport.pojo.entity.RolePermission;
+import cn.tedu.csmall.passport.pojo.vo.PermissionListItemVO;
+import cn.tedu.csmall.passport.pojo.vo.RoleListItemVO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RbacModelTests {
+
+    PermissionMapper permissionMapper;
+    RolePermissionMapper rolePermissionMapper;
+    RoleMapper roleMapper;
+    RbacModel rbacModel;
+    List<PermissionListItemVO> permissions = new ArrayList<>();
+    List<RolePermission> rolePermissions = new ArrayList<>();
+    List<RoleListItemVO> roles = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // 100个权限，使位图跨越多个long
+        for (long i = 1; i <= 100; i++) {
+            permissions.add(permission(i));
+        }
+        // 1号角色拥有所有权限，2号角色拥有奇数id的权限，3号角色拥有第70号权限
+        for (long i = 1; i <= 100; i++) {
+            rolePermissions.add(rolePermission(1, i));
+            if (i % 2 == 1) {
+                rolePermissions.add(rolePermission(2, i));
+            }
+        }
+        rolePermissions.add(rolePermission(3, 70));
+        // 5号角色没有权限
+        for (long i : new long[]{1, 2, 3, 5}) {
+            RoleListItemVO role = new RoleListItemVO();
+            role.setId(i);
+            roles.add(role);
+        }
+
+        permissionMapper = Mockito.mock(PermissionMapper.class);
+        rolePermissionMapper = Mockito.mock(RolePermissionMapper.class);
+        Mockito.when(permissionMapper.list()).thenAnswer(invocation -> new ArrayList<>(permissions));
+        Mockito.when(rolePermissionMapper.list()).thenAnswer(invocation -> new ArrayList<>(rolePermissions));
+        roleMapper = Mockito.mock(RoleMapper.class);
+        Mockito.when(roleMapper.list()).thenAnswer(invocation -> new ArrayList<>(roles));
+        rbacModel = new RbacModel();
+        ReflectionTestUtils.setField(rbacModel, "permissionMapper", permissionMapper);
+        ReflectionTestUtils.setField(rbacModel, "rolePermissionMapper", rolePermissionMapper);
+        ReflectionTestUtils.setField(rbacModel, "roleMapper", roleMapper);
+    }
+
+    PermissionListItemVO permission(long id) {
+        PermissionListItemVO permission = new PermissionListItemVO();
+        permission.setId(id);
+        permission.setValue("/ams/permission/" + id);
+        return permission;
+    }
+
+    RolePermission rolePermission(long roleId, long permissionId) {
+        RolePermission rolePermission = new RolePermission();
+        rolePermission.setRoleId(roleId);
+        rolePermission.setPermissionId(permissionId);
+        return rolePermission;
+    }
+
+    @Test
+    void getAuthorities() {
+        Assertions.assertEquals(100, rbacModel.getAuthorities(Arrays.asList(1L)).size());
+        Assertions.assertEquals(50, rbacModel.getAuthorities(Arrays.asList(2L)).size());
+
+        List<GrantedAuthority> authorities = rbacModel.getAuthorities(Arrays.asList(2L, 3L));
+        Assertions.assertEquals(51, authorities.size());
+        Assertions.assertTrue(authorities.contains(AuthorityRegistry.of("/ams/permission/70")));
+        Assertions.assertSame(AuthorityRegistry.of("/ams/permission/70"),
+                authorities.get(authorities.indexOf(AuthorityRegistry.of("/ams/permission/70"))));
+        Assertions.assertTrue(rbacModel.getAuthorities(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    void refreshRole() {
+        rbacModel.reload();
+        int index = rbacModel.indexOf("/ams/permission/70");
+
+        // 新增权限，并分配给新增的4号角色
+        permissions.add(permission(101));
+        Mockito.when(rolePermissionMapper.listPermissionIdsByRoleId(4L)).thenReturn(Arrays.asList(101L, 1L));
+        List<GrantedAuthority> authorities = rbacModel.getAuthorities(Arrays.asList(4L));
+
+        Assertions.assertEquals(2, authorities.size());
+        Assertions.assertTrue(authorities.contains(AuthorityRegistry.of("/ams/permission/101")));
+        // 已有权限的下标保持不变
+        Assertions.assertEquals(index, rbacModel.indexOf("/ams/permission/70"));
+        // 未知的角色只刷新1次
+        rbacModel.getAuthorities(Arrays.asList(4L));
+        Mockito.verify(rolePermissionMapper, Mockito.times(1)).listPermissionIdsByRoleId(4L);
+    }
+
+    @Test
+    void deletedPermission() {
+        rbacModel.reload();
+        int index = rbacModel.indexOf("/ams/permission/71");
+
+        // 删除第70号权限，角色与权限的关联仍然存在
+        permissions.removeIf(permission -> permission.getId() == 70);
+        rbacModel.reload();
+
+        Assertions.assertTrue(rbacModel.getAuthorities(Arrays.asList(3L)).isEmpty());
+        Assertions.assertFalse(rbacModel.getAuthorities(Arrays.asList(1L)).contains(AuthorityRegistry.of("/ams/permission/70")));
+        Assertions.assertEquals(99, rbacModel.getAuthorities(Arrays.asList(1L)).size());
+        Assertions.assertEquals(-1, rbacModel.indexOf("/ams/permission/70"));
+        // 其它权限的下标保持不变
+        Assertions.assertEquals(index, rbacModel.indexOf("/ams/permission/71"));
+    }
+
+    @Test
+    void roleWithoutPermissions() {
+        rbacModel.reload();
+
+        // 没有权限的角色在全量加载时已记录，登录时无须再刷新
+        Assertions.assertTrue(rbacModel.getAuthorities(Arrays.asList(5L)).isEmpty());
+        rbacModel.reload();
+        Assertions.assertTrue(rbacModel.getAuthorities(Arrays.asList(5L)).isEmpty());
+        Mockito.verify(rolePermissionMapper, Mockito.never()).listPermissionIdsByRoleId(5L);
+    }
+
+    @Test
+    void performance() {
+        int times = 100000;
+        rbacModel.reload();
+        List<Long> roleIds = Arrays.asList(2L, 3L);
+
+        // 预热
+        for (int i = 0; i < times; i++) {
+            rbacModel.getAuthorities(roleIds);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            rbacModel.getAuthorities(roleIds);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.println("每次合并2个角色的权限（共51个）耗时（纳秒）：" + nanos / times);
+    }
+
+    // 每次合并2个角色的权限（共51个）耗时（纳秒）：667
+
+}
@@ -0,0 +1,195 @@
+package cn.tedu.csmall.passport.service;
+
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import cn.tedu.csmall.passport.service.impl.AdminServiceImpl;
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongFunction;
+
+public class AdminExportTests {
+
+    AdminMapper adminMapper;
+    AdminServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        adminMapper = Mockito.mock(AdminMapper.class);
+        service = new AdminServiceImpl();
+        ReflectionTestUtils.setField(service, "adminMapper", adminMapper);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+    }
+
+    AdminListItemVO admin(long id) {
+        AdminListItemVO admin = new AdminListItemVO();
+        admin.setId(id);
+        admin.setUsername("admin" + id);
+        admin.setNickname("管理员" + id);
+        admin.setPhone("138" + (10000000 + id));
+        admin.setEmail("admin" + id + "@baidu.com");
+        admin.setEnable(1);
+        admin.setLoginCount(0);
+        admin.setGmtLastLogin(LocalDateTime.of(2022, 10, 1, 8, 30));
+        return admin;
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        AdminListItemVO admin = admin(2);
+        admin.setDescription("逗号,和\"引号\"\n换行");
+        Mockito.when(adminMapper.listCursor()).thenReturn(new GeneratedCursor(1, id -> admin));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(IAdminService.EXPORT_FORMAT_CSV, out);
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assertions.assertEquals("﻿id,username,nickname,avatar,phone,"
+                + "email,description,enable,lastLoginIp,loginCount,gmtLastLogin\r\n"
+                + "2,admin2,管理员2,,13810000002,admin2@baidu.com,\"逗号,和\"\"引号\"\"\n换行\",1,,0,2022-10-01T08:30\r\n", csv);
+    }
+
+    @Test
+    void exportNdjson() throws Exception {
+        Mockito.when(adminMapper.listCursor()).thenReturn(new GeneratedCursor(3, this::admin));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(IAdminService.EXPORT_FORMAT_NDJSON, out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            Assertions.assertEquals(i + 1L, JSON.parseObject(lines[i]).getLongValue("id"));
+        }
+    }
+
+    @Test
+    void constantMemory() throws Exception {
+        int rows = 500000;
+        CountingOutputStream out = new CountingOutputStream();
+        Mockito.when(adminMapper.listCursor()).thenReturn(new GeneratedCursor(20000, this::admin));
+        // 预热
+        service.export(IAdminService.EXPORT_FORMAT_NDJSON, out);
+
+        // 导出到一半时，测量堆内存的使用量
+        long[] middle = new long[1];
+        Mockito.when(adminMapper.listCursor()).thenReturn(new GeneratedCursor(rows, id -> {
+            if (id == rows / 2) {
+                middle[0] = usedHeap();
+            }
+            return admin(id);
+        }));
+        out = new CountingOutputStream();
+        long before = usedHeap();
+        long start = System.nanoTime();
+        out.start = start;
+        service.export(IAdminService.EXPORT_FORMAT_NDJSON, out);
+        long nanos = System.nanoTime() - start;
+
+        System.out.println("导出管理员数据每秒写出的行数：" + rows * 1_000_000_000L / nanos);
+        System.out.println("导出管理员数据发出第1个字节的耗时（微秒）：" + out.firstByteNanos / 1000);
+        System.out.println("导出" + rows + "行数据，共" + out.bytes / 1024 / 1024 + "MB，"
+                + "导出到一半时堆内存的增长（KB）：" + (middle[0] - before) / 1024);
+        Assertions.assertTrue(middle[0] - before < 16 * 1024 * 1024);
+    }
+
+    // 导出管理员数据每秒写出的行数：258546
+    // 导出管理员数据发出第1个字节的耗时（微秒）：892
+    // 导出500000行数据，共110MB，导出到一半时堆内存的增长（KB）：-93
+
+    long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 逐行生成数据的游标，不在内存中保存任何已生成的数据
+     */
+    static class GeneratedCursor implements Cursor<AdminListItemVO> {
+
+        final int rows;
+        final LongFunction<AdminListItemVO> generator;
+        int index;
+
+        GeneratedCursor(int rows, LongFunction<AdminListItemVO> generator) {
+            this.rows = rows;
+            this.generator = generator;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return index < rows;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return index >= rows;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public Iterator<AdminListItemVO> iterator() {
+            return new Iterator<AdminListItemVO>() {
+                @Override
+                public boolean hasNext() {
+                    return index < rows;
+                }
+
+                @Override
+                public AdminListItemVO next() {
+                    if (index >= rows) {
+                        throw new NoSuchElementException();
+                    }
+                    return generator.apply(++index);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    /**
+     * 只统计字节数的输出流
+     */
+    static class CountingOutputStream extends OutputStream {
+
+        long start;
+        long firstByteNanos = -1;
+        long bytes;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (firstByteNanos < 0 && start > 0) {
+                firstByteNanos = System.nanoTime() - start;
+            }
+            bytes += len;
+        }
+
+    }
+
+}
@@ -0,0 +1,325 @@
+package cn.tedu.csmall.passport.service;
+
+import cn.tedu.csmall.passport.cache.AdminSearchIndex;
+import cn.tedu.csmall.passport.cache.AdminUniqueIndex;
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.mapper.AdminRoleMapper;
+import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
+import cn.tedu.csmall.passport.pojo.entity.Admin;
+import cn.tedu.csmall.passport.pojo.entity.AdminRole;
+import cn.tedu.csmall.passport.pojo.vo.AdminImportResultVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminImportSummaryVO;
+import cn.tedu.csmall.passport.pojo.vo.AdminUniqueFieldsVO;
+import cn.tedu.csmall.passport.security.AdminLoginInfoCache;
+import cn.tedu.csmall.passport.service.impl.AdminImportReader;
+import cn.tedu.csmall.passport.service.impl.AdminImportServiceImpl;
+import cn.tedu.csmall.passport.web.ServiceCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdminImportServiceTests {
+
+    AdminMapper adminMapper;
+    AdminRoleMapper adminRoleMapper;
+    AdminImportServiceImpl service;
+    AtomicLong nextId = new AtomicLong(100);
+    List<AdminUniqueFieldsVO> existing = new ArrayList<>();
+    List<AdminImportResultVO> results = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        existing.add(existing("root", "13900139000", "root@baidu.com"));
+        adminMapper = Mockito.mock(AdminMapper.class);
+        adminRoleMapper = Mockito.mock(AdminRoleMapper.class);
+        Mockito.when(adminMapper.listUniqueFields()).thenAnswer(invocation -> new ArrayList<>(existing));
+        Mockito.when(adminMapper.listConflicts(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> new ArrayList<>(existing));
+        Mockito.when(adminMapper.insertBatch(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<Admin> adminList = invocation.getArgument(0);
+            for (Admin admin : adminList) {
+                admin.setId(nextId.getAndIncrement());
+                existing.add(existing(admin.getUsername(), admin.getPhone(), admin.getEmail()));
+            }
+            return adminList.size();
+        });
+        Mockito.when(adminRoleMapper.insertBatch(ArgumentMatchers.any()))
+                .thenAnswer(invocation -> ((AdminRole[]) invocation.getArgument(0)).length);
+
+        AdminUniqueIndex adminUniqueIndex = new AdminUniqueIndex();
+        ReflectionTestUtils.setField(adminUniqueIndex, "enabled", true);
+        ReflectionTestUtils.setField(adminUniqueIndex, "adminMapper", adminMapper);
+        AdminLoginInfoCache adminLoginInfoCache = new AdminLoginInfoCache();
+        ReflectionTestUtils.setField(adminLoginInfoCache, "maxSize", 100);
+
+        service = new AdminImportServiceImpl();
+        ReflectionTestUtils.setField(service, "chunkSize", 3);
+        ReflectionTestUtils.setField(service, "hashParallelism", 0);
+        ReflectionTestUtils.setField(service, "adminMapper", adminMapper);
+        ReflectionTestUtils.setField(service, "adminRoleMapper", adminRoleMapper);
+        ReflectionTestUtils.setField(service, "passwordEncoder", new BCryptPasswordEncoder(4));
+        ReflectionTestUtils.setField(service, "transactionManager", Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "adminUniqueIndex", adminUniqueIndex);
+        ReflectionTestUtils.setField(service, "adminSearchIndex", new AdminSearchIndex());
+        ReflectionTestUtils.setField(service, "adminLoginInfoCache", adminLoginInfoCache);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    AdminUniqueFieldsVO existing(String username, String phone, String email) {
+        AdminUniqueFieldsVO admin = new AdminUniqueFieldsVO();
+        admin.setId(1L);
+        admin.setUsername(username);
+        admin.setPhone(phone);
+        admin.setEmail(email);
+        return admin;
+    }
+
+    @Test
+    void readCsv() throws Exception {
+        String csv = "Username,password,description,roleIds,enable\r\n"
+                + "admin1,123456,\"逗号,和\"\"引号\"\"\",2|3,1\r\n"
+                + "\r\n"
+                + "admin2,123456,\"多行\n说明\",2,\n"
+                + "admin3,123456,,x,1\n"
+                + "admin4,123456\n";
+        try (AdminImportReader reader = AdminImportReader.of(new StringReader(csv), AdminImportReader.FORMAT_CSV)) {
+            AdminImportReader.Row row = reader.next();
+            AdminAddNewDTO admin = row.getAdmin();
+            Assertions.assertEquals(1, row.getNumber());
+            Assertions.assertEquals("admin1", admin.getUsername());
+            Assertions.assertEquals("逗号,和\"引号\"", admin.getDescription());
+            Assertions.assertArrayEquals(new Long[]{2L, 3L}, admin.getRoleIds());
+            Assertions.assertEquals(1, admin.getEnable());
+
+            row = reader.next();
+            Assertions.assertEquals(2, row.getNumber());
+            Assertions.assertEquals("多行\n说明", row.getAdmin().getDescription());
+            Assertions.assertNull(row.getAdmin().getEnable());
+
+            row = reader.next();
+            Assertions.assertNull(row.getAdmin());
+            Assertions.assertNotNull(row.getError());
+            row = reader.next();
+            Assertions.assertEquals(4, row.getNumber());
+            Assertions.assertNotNull(row.getError());
+            Assertions.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void readJson() throws Exception {
+        String json = "[{\"username\":\"admin1\",\"password\":\"123456\",\"roleIds\":[2,3]},"
+                + "{\"username\":\"admin2\",\"roleIds\":[\"x\"]},"
+                + "{\"username\":\"admin3\"";
+        try (AdminImportReader reader = AdminImportReader.of(new StringReader(json), AdminImportReader.FORMAT_JSON)) {
+            AdminImportReader.Row row = reader.next();
+            Assertions.assertEquals("admin1", row.getAdmin().getUsername());
+            Assertions.assertArrayEquals(new Long[]{2L, 3L}, row.getAdmin().getRoleIds());
+            row = reader.next();
+            Assertions.assertEquals(2, row.getNumber());
+            Assertions.assertNotNull(row.getError());
+            // 数据不完整，返回错误后结束
+            row = reader.next();
+            Assertions.assertNotNull(row.getError());
+            Assertions.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void importAdmins() {
+        String csv = "username,password,phone,email,roleIds\n"
+                + "admin1,123456,13800138001,admin1@baidu.com,2\n"
+                + "ROOT,123456,13800138002,admin2@baidu.com,2\n"
+                + "admin3,123456,13900139000,admin3@baidu.com,2\n"
+                + "Admin1,123456,13800138004,admin4@baidu.com,2\n"
+                + "admin5,,13800138005,admin5@baidu.com,2\n"
+                + "admin6,123456,13800138006,admin6@baidu.com,1|2\n"
+                + "admin7,123456,13800138007,admin7@baidu.com,\n"
+                + "admin8,123456,13800138008,admin8@baidu.com,2|3\n";
+
+        AdminImportSummaryVO summary = importCsv(csv);
+
+        Assertions.assertEquals(8, summary.getTotal());
+        Assertions.assertEquals(2, summary.getSucceeded());
+        Assertions.assertEquals(6, summary.getFailed());
+        Assertions.assertEquals(8, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(i + 1, results.get(i).getRow());
+        }
+        Assertions.assertEquals(ServiceCode.OK.getValue(), results.get(0).getState());
+        Assertions.assertNotNull(results.get(0).getId());
+        Assertions.assertEquals("导入管理员失败，尝试使用的用户名已经被占用！", results.get(1).getMessage());
+        Assertions.assertEquals("导入管理员失败，尝试使用的手机号码已经被占用！", results.get(2).getMessage());
+        // 与此前的批次中已导入的数据冲突
+        Assertions.assertEquals("导入管理员失败，尝试使用的用户名已经被占用！", results.get(3).getMessage());
+        Assertions.assertEquals("导入管理员失败，密码不能为空！", results.get(4).getMessage());
+        Assertions.assertEquals(ServiceCode.ERR_CONFLICT.getValue(), results.get(5).getState());
+        Assertions.assertEquals("导入管理员失败，必须为管理员分配至少1个角色！", results.get(6).getMessage());
+        Assertions.assertEquals(ServiceCode.OK.getValue(), results.get(7).getState());
+
+        // 每批数据1次多行插入
+        Mockito.verify(adminMapper, Mockito.times(2)).insertBatch(ArgumentMatchers.anyList());
+        Mockito.verify(adminRoleMapper, Mockito.times(2)).insertBatch(ArgumentMatchers.any());
+    }
+
+    @Test
+    void chunkFailure() {
+        Mockito.when(adminMapper.insertBatch(ArgumentMatchers.anyList()))
+                .thenThrow(new RuntimeException("Duplicate entry"))
+                .thenAnswer(invocation -> {
+                    List<Admin> adminList = invocation.getArgument(0);
+                    adminList.forEach(admin -> admin.setId(nextId.getAndIncrement()));
+                    return adminList.size();
+                });
+        StringBuilder csv = new StringBuilder("username,password,roleIds\n");
+        for (int i = 1; i <= 6; i++) {
+            csv.append("admin").append(i).append(",123456,2\n");
+        }
+
+        AdminImportSummaryVO summary = importCsv(csv.toString());
+
+        // 第1批插入失败，不影响第2批
+        Assertions.assertEquals(3, summary.getSucceeded());
+        Assertions.assertEquals(ServiceCode.ERR_INSERT.getValue(), results.get(0).getState());
+        Assertions.assertEquals(ServiceCode.OK.getValue(), results.get(5).getState());
+    }
+
+    @Test
+    void readFailure() {
+        // 读取完表头和4行数据后，连接中断
+        String csv = "username,password,roleIds\n"
+                + "admin1,123456,2\nadmin2,123456,2\nadmin3,123456,2\nadmin4,123456,2\n";
+        Reader reader = new Reader() {
+            boolean read;
+
+            @Override
+            public int read(char[] buffer, int off, int len) throws IOException {
+                if (read) {
+                    throw new IOException("Connection reset");
+                }
+                read = true;
+                csv.getChars(0, csv.length(), buffer, off);
+                return csv.length();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        AdminImportSummaryVO summary = service.importAdmins(reader, IAdminImportService.FORMAT_CSV, results::add);
+
+        // 已处理的第1批不受影响，中止时尚未处理的第4行不导入
+        Assertions.assertEquals(4, summary.getTotal());
+        Assertions.assertEquals(3, summary.getSucceeded());
+        Assertions.assertEquals(1, summary.getFailed());
+        Assertions.assertNotNull(summary.getMessage());
+        Assertions.assertEquals(3, results.size());
+        Mockito.verify(adminMapper, Mockito.times(1)).insertBatch(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    void throughput() {
+        ReflectionTestUtils.setField(service, "chunkSize", 500);
+        Mockito.when(adminMapper.listUniqueFields()).thenReturn(Collections.emptyList());
+        // 不加密密码，只测量读取、检查、组织批量插入的开销
+        ReflectionTestUtils.setField(service, "passwordEncoder", new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        });
+        int rows = 100000;
+        // 预热
+        importGenerated(20000, 0);
+
+        long start = System.nanoTime();
+        AdminImportSummaryVO summary = importGenerated(rows, 20000);
+        long nanos = System.nanoTime() - start;
+        Assertions.assertEquals(rows, summary.getSucceeded());
+        System.out.println("批量导入管理员（不加密密码）每秒导入的行数：" + rows * 1_000_000_000L / nanos);
+
+        // 密码加密的耗时占绝大部分，强度4和强度10时的吞吐量
+        ReflectionTestUtils.setField(service, "passwordEncoder", new BCryptPasswordEncoder(4));
+        rows = 2000;
+        start = System.nanoTime();
+        summary = importGenerated(rows, 200000);
+        nanos = System.nanoTime() - start;
+        Assertions.assertEquals(rows, summary.getSucceeded());
+        System.out.println("批量导入管理员（BCrypt强度4）每秒导入的行数：" + rows * 1_000_000_000L / nanos);
+
+        ReflectionTestUtils.setField(service, "passwordEncoder", new BCryptPasswordEncoder(10));
+        rows = 30;
+        start = System.nanoTime();
+        summary = importGenerated(rows, 300000);
+        nanos = System.nanoTime() - start;
+        Assertions.assertEquals(rows, summary.getSucceeded());
+        System.out.println("批量导入管理员（BCrypt强度10）每秒导入的行数：" + rows * 1_000_000_000L / nanos);
+        System.out.println("CPU核数：" + Runtime.getRuntime().availableProcessors());
+    }
+
+    AdminImportSummaryVO importCsv(String csv) {
+        return service.importAdmins(new StringReader(csv), IAdminImportService.FORMAT_CSV, results::add);
+    }
+
+    /**
+     * 逐行生成导入数据，不在内存中保存完整的数据
+     */
+    AdminImportSummaryVO importGenerated(int rows, int offset) {
+        Reader csv = new Reader() {
+            int row = -1;
+            String line = "";
+            int position;
+
+            @Override
+            public int read(char[] buffer, int off, int len) {
+                if (position == line.length()) {
+                    if (row == rows) {
+                        return -1;
+                    }
+                    row++;
+                    int i = offset + row;
+                    line = row == 0 ? "username,password,nickname,phone,email,roleIds\n"
+                            : "admin" + i + ",123456,管理员" + i + ",138" + (10000000 + i) + ",admin" + i + "@baidu.com,2|3\n";
+                    position = 0;
+                }
+                int n = Math.min(len, line.length() - position);
+                line.getChars(position, position + n, buffer, off);
+                position += n;
+                return n;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        return service.importAdmins(csv, IAdminImportService.FORMAT_CSV, result -> {
+        });
+    }
+
+}
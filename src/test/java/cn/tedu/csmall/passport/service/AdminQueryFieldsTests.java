@@ -0,0 +1,206 @@
+package cn.tedu.csmall.passport.service;
+
+import cn.tedu.csmall.passport.ex.ServiceException;
+import cn.tedu.csmall.passport.mapper.AdminMapper;
+import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import cn.tedu.csmall.passport.service.impl.AdminServiceImpl;
+import cn.tedu.csmall.passport.web.JsonResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AdminQueryFieldsTests {
+
+    static final String[] ALL_COLUMNS = {
+            "id", "username", "nickname", "avatar", "phone",
+            "email", "description", "enable", "last_login_ip", "login_count",
+            "gmt_last_login"
+    };
+
+    AdminMapper adminMapper;
+    AdminServiceImpl service;
+    ObjectMapper objectMapper;
+    List<AdminListItemVO> table;
+
+    @BeforeEach
+    void setUp() {
+        adminMapper = Mockito.mock(AdminMapper.class);
+        service = new AdminServiceImpl();
+        ReflectionTestUtils.setField(service, "adminMapper", adminMapper);
+        ReflectionTestUtils.setField(service, "pageDefaultSize", 20);
+        ReflectionTestUtils.setField(service, "pageMaxSize", 100);
+        // 与application.yml中的spring.jackson.default-property-inclusion一致
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        table = new ArrayList<>();
+        // 模拟SQL语句的投影：只填充查询的列
+        Mockito.when(adminMapper.list(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            List<String> columns = invocation.getArgument(0);
+            List<AdminListItemVO> list = new ArrayList<>(table.size());
+            for (AdminListItemVO admin : table) {
+                list.add(project(admin, columns == null ? Arrays.asList(ALL_COLUMNS) : columns));
+            }
+            return list;
+        });
+    }
+
+    AdminListItemVO admin(long id) {
+        AdminListItemVO admin = new AdminListItemVO();
+        admin.setId(id);
+        admin.setUsername("admin" + id);
+        admin.setNickname("管理员" + id);
+        admin.setAvatar("https://csmall-passport.oss-cn-beijing.aliyuncs.com/avatar/2022/10/" + id + ".png");
+        admin.setPhone("138" + (10000000 + id));
+        admin.setEmail("admin" + id + "@baidu.com");
+        admin.setDescription("负责商品、订单与售后模块的日常运营管理，编号" + id);
+        admin.setEnable(1);
+        admin.setLastLoginIp("192.168." + (id / 256 % 256) + "." + (id % 256));
+        admin.setLoginCount((int) (id % 1000));
+        admin.setGmtLastLogin(LocalDateTime.of(2022, 10, 1, 8, 30).plusMinutes(id));
+        return admin;
+    }
+
+    AdminListItemVO project(AdminListItemVO admin, List<String> columns) {
+        AdminListItemVO result = new AdminListItemVO();
+        for (String column : columns) {
+            switch (column) {
+                case "id": result.setId(admin.getId()); break;
+                case "username": result.setUsername(admin.getUsername()); break;
+                case "nickname": result.setNickname(admin.getNickname()); break;
+                case "avatar": result.setAvatar(admin.getAvatar()); break;
+                case "phone": result.setPhone(admin.getPhone()); break;
+                case "email": result.setEmail(admin.getEmail()); break;
+                case "description": result.setDescription(admin.getDescription()); break;
+                case "enable": result.setEnable(admin.getEnable()); break;
+                case "last_login_ip": result.setLastLoginIp(admin.getLastLoginIp()); break;
+                case "login_count": result.setLoginCount(admin.getLoginCount()); break;
+                case "gmt_last_login": result.setGmtLastLogin(admin.getGmtLastLogin()); break;
+                default: throw new IllegalArgumentException(column);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 估算MySQL文本协议下结果集的数据行的字节数：每行有4字节的包头，每个值是带长度前缀的字符串
+     */
+    long resultSetBytes(List<AdminListItemVO> list, List<String> columns) {
+        long bytes = 0;
+        for (AdminListItemVO admin : list) {
+            bytes += 4;
+            AdminListItemVO projected = project(admin, columns);
+            Object[] values = {
+                    projected.getId(), projected.getUsername(), projected.getNickname(), projected.getAvatar(),
+                    projected.getPhone(), projected.getEmail(), projected.getDescription(), projected.getEnable(),
+                    projected.getLastLoginIp(), projected.getLoginCount(), projected.getGmtLastLogin()
+            };
+            for (int i = 0; i < values.length; i++) {
+                if (!columns.contains(ALL_COLUMNS[i])) {
+                    continue;
+                }
+                if (values[i] == null) {
+                    bytes += 1;
+                    continue;
+                }
+                String text = values[i] instanceof LocalDateTime
+                        ? values[i].toString().replace('T', ' ') + ":00"
+                        : values[i].toString();
+                int length = text.getBytes(StandardCharsets.UTF_8).length;
+                bytes += (length < 251 ? 1 : 3) + length;
+            }
+        }
+        return bytes;
+    }
+
+    @Test
+    void selectedColumns() throws Exception {
+        Configuration configuration = new Configuration();
+        String resource = "mapper/AdminMapper.xml";
+        try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        MappedStatement statement = configuration.getMappedStatement(AdminMapper.class.getName() + ".list");
+
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("columns", Arrays.asList("id", "username", "enable"));
+        String sql = statement.getBoundSql(parameter).getSql().replaceAll("\\s+", " ");
+        Assertions.assertTrue(sql.startsWith("SELECT id , username , enable FROM ams_admin"), sql);
+
+        parameter.put("columns", null);
+        sql = statement.getBoundSql(parameter).getSql().replaceAll("\\s+", " ");
+        Assertions.assertTrue(sql.contains("last_login_ip, login_count, gmt_last_login FROM ams_admin"), sql);
+    }
+
+    @Test
+    void toColumns() {
+        table.add(admin(2));
+
+        service.list(" nickname, lastLoginIp,,nickname ");
+        Mockito.verify(adminMapper).list(Arrays.asList("id", "nickname", "last_login_ip"));
+
+        service.list("");
+        Mockito.verify(adminMapper).list(null);
+
+        ServiceException e = Assertions.assertThrows(ServiceException.class, () -> service.list("id,password"));
+        Assertions.assertTrue(e.getMessage().contains("password"));
+        e = Assertions.assertThrows(ServiceException.class, () -> service.list("username,last_login_ip"));
+        Assertions.assertTrue(e.getMessage().contains("last_login_ip"));
+        Mockito.verifyNoMoreInteractions(adminMapper);
+    }
+
+    @Test
+    void sparseResponse() throws Exception {
+        table.add(admin(2));
+
+        String json = objectMapper.writeValueAsString(JsonResult.ok(service.list("username,enable")));
+
+        Assertions.assertEquals("{\"state\":20000,\"data\":[{\"id\":2,\"username\":\"admin2\",\"enable\":1}]}", json);
+    }
+
+    @Test
+    void transferReduction() throws Exception {
+        int rows = 100000;
+        for (long id = 2; id < rows + 2; id++) {
+            table.add(admin(id));
+        }
+        String fields = "username,nickname,enable";
+        List<String> columns = Arrays.asList("id", "username", "nickname", "enable");
+
+        long fullJsonBytes = objectMapper.writeValueAsBytes(JsonResult.ok(service.list(null))).length;
+        long sparseJsonBytes = objectMapper.writeValueAsBytes(JsonResult.ok(service.list(fields))).length;
+        long fullResultSetBytes = resultSetBytes(table, Arrays.asList(ALL_COLUMNS));
+        long sparseResultSetBytes = resultSetBytes(table, columns);
+
+        System.out.println("数据量：" + rows + "，选择的字段：" + fields);
+        System.out.println("响应的JSON（字节）：所有字段 " + fullJsonBytes + "，部分字段 " + sparseJsonBytes
+                + "，减少 " + (100 - sparseJsonBytes * 100 / fullJsonBytes) + "%");
+        System.out.println("数据库结果集的数据行（估算，字节）：所有列 " + fullResultSetBytes
+                + "，部分列 " + sparseResultSetBytes
+                + "，减少 " + (100 - sparseResultSetBytes * 100 / fullResultSetBytes) + "%");
+        Assertions.assertTrue(sparseJsonBytes * 2 < fullJsonBytes);
+        Assertions.assertTrue(sparseResultSetBytes * 2 < fullResultSetBytes);
+    }
+
+    // 数据量：100000，选择的字段：username,nickname,enable
+    // 响应的JSON（字节）：所有字段 38526864，部分字段 7566724，减少 81%
+    // 数据库结果集的数据行（估算，字节）：所有列 25823078，部分列 3766700，减少 86%
+
+}
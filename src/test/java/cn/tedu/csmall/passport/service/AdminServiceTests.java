@@ -3,6 +3,8 @@ package cn.tedu.csmall.passport.service;
 import cn.tedu.csmall.passport.ex.ServiceException;
 import cn.tedu.csmall.passport.pojo.dto.AdminAddNewDTO;
 import cn.tedu.csmall.passport.pojo.dto.AdminLoginDTO;
+import cn.tedu.csmall.passport.pojo.vo.AdminListItemVO;
+import cn.tedu.csmall.passport.pojo.vo.CursorPageVO;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +26,7 @@ public class AdminServiceTests {
         adminLoginDTO.setPassword("123456");
 
         try {
-            String jwt = service.login(adminLoginDTO);
+            String jwt = service.login(adminLoginDTO, "127.0.0.1");
             log.debug("登录成功，JWT：{}", jwt);
         } catch (Throwable e) {
             // 由于不确定Spring Security会抛出什么类型的异常
@@ -63,6 +65,18 @@ public class AdminServiceTests {
         }
     }
 
+    @Test
+    void deleteBatch() {
+        Long[] ids = {1L, 7L, 8L, 9527L};
+
+        try {
+            Object result = service.deleteBatch(ids);
+            log.debug("批量删除管理员完成！结果：{}", result);
+        } catch (ServiceException e) {
+            log.debug("批量删除管理员失败！具体原因请参见日志！");
+        }
+    }
+
     @Test
     void setEnable() {
         Long id = 1L;
@@ -87,9 +101,41 @@ public class AdminServiceTests {
         }
     }
 
+    @Test
+    void setDisableBatch() {
+        Long[] ids = {1L, 2L, 3L, 9527L};
+
+        try {
+            int rows = service.setDisableBatch(ids);
+            log.debug("批量禁用管理员完成！状态发生变化的管理员数量：{}", rows);
+        } catch (ServiceException e) {
+            log.debug("批量禁用管理员失败！具体原因请参见日志！");
+        }
+    }
+
+    @Test
+    void listPage() {
+        String cursor = null;
+        do {
+            CursorPageVO<AdminListItemVO> page = service.listPage(cursor, 2, "username,enable");
+            log.debug("查询1页完成，数据：{}，下一页的游标：{}", page.getList(), page.getNextCursor());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Test
+    void getStandardById() {
+        try {
+            Object queryResult = service.getStandardById(2L, "username,nickname");
+            log.debug("根据id查询管理员详情完成，查询结果：{}", queryResult);
+        } catch (ServiceException e) {
+            log.debug("根据id查询管理员详情失败！具体原因请参见日志！");
+        }
+    }
+
     @Test
     void list() {
-        List<?> list = service.list();
+        List<?> list = service.list(null);
         log.debug("查询列表完成，列表中的数据的数量：{}", list.size());
         for (Object item : list) {
             log.debug("{}", item);
@@ -1,6 +1,8 @@
 package cn.tedu.csmall.passport.service;
 
+import cn.tedu.csmall.passport.cache.RoleListCache;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -23,4 +25,12 @@ public class RoleServiceTests {
         }
     }
 
+    @Test
+    void getListSnapshot() {
+        RoleListCache.Snapshot snapshot = service.getListSnapshot();
+        log.debug("查询快照完成，响应结果：{}字节，ETag：{}", snapshot.getJson().length, snapshot.getETag());
+        Assertions.assertEquals(snapshot.getList(), service.list());
+        Assertions.assertNotEquals(snapshot.getETag(), snapshot.getGzipETag());
+    }
+
 }